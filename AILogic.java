@@ -1,321 +1,620 @@
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
-import java.util.Stack; // 添加Stack类的导入
-
-// 这个类负责处理AI的逻辑，包括不同难度下的落子策略和评估函数
-class AILogic {
-    private static final int BOARD_SIZE = 15;
-
-    // 简单AI策略，优先在自己能连成线的地方落子，其次阻止对手连成线
-    public static Move findBestMoveEasy(Boolean[][] board) {
-        Move bestMove = null;
-        int bestScore = 0;
-
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                if (board[i][j] == null) {
-                    // 计算AI自己落子的分数
-                    board[i][j] = false;
-                    int aiScore = evaluatePosition(i, j, false, board);
-                    board[i][j] = null;
-
-                    // 计算阻止对手落子的分数
-                    board[i][j] = true;
-                    int playerScore = evaluatePosition(i, j, true, board);
-                    board[i][j] = null;
-
-                    // 取较大的分数
-                    int score = Math.max(aiScore, playerScore);
-
-                    // 如果分数更高，或者分数相同但更靠近中心，则选择这个位置
-                    if (score > bestScore || (score == bestScore && isCloserToCenter(i, j, bestMove))) {
-                        bestScore = score;
-                        bestMove = new Move(i, j, false);
-                    }
-                }
-            }
-        }
-
-        return bestMove;
-    }
-
-    // 中等AI策略，考虑两步之后的情况
-    public static Move findBestMoveMedium(Boolean[][] board, Stack<Move> moveHistory) {
-        Move bestMove = null;
-        int bestScore = Integer.MIN_VALUE;
-
-        // 尝试每个可能的位置
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                if (board[i][j] == null) {
-                    // 模拟AI落子
-                    board[i][j] = false;
-                    moveHistory.push(new Move(i, j, false));
-
-                    // 评估这个位置
-                    int score = minimax(1, false, Integer.MIN_VALUE, Integer.MAX_VALUE, board, moveHistory);
-
-                    // 撤销模拟落子
-                    board[i][j] = null;
-                    moveHistory.pop();
-
-                    // 如果分数更高，或者分数相同但更靠近中心，则选择这个位置
-                    if (score > bestScore || (score == bestScore && isCloserToCenter(i, j, bestMove))) {
-                        bestScore = score;
-                        bestMove = new Move(i, j, false);
-                    }
-                }
-            }
-        }
-
-        return bestMove;
-    }
-
-    // 困难AI策略，考虑三步之后的情况，并且有一定的随机性
-    public static Move findBestMoveHard(Boolean[][] board, Stack<Move> moveHistory) {
-        Move bestMove = null;
-        int bestScore = Integer.MIN_VALUE;
-        List<Move> bestMoves = new ArrayList<>();
-
-        // 尝试每个可能的位置
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                if (board[i][j] == null) {
-                    // 模拟AI落子
-                    board[i][j] = false;
-                    moveHistory.push(new Move(i, j, false));
-
-                    // 评估这个位置
-                    int score = minimax(2, false, Integer.MIN_VALUE, Integer.MAX_VALUE, board, moveHistory);
-
-                    // 撤销模拟落子
-                    board[i][j] = null;
-                    moveHistory.pop();
-
-                    // 如果分数更高，则清空最佳列表并添加这个位置
-                    if (score > bestScore) {
-                        bestScore = score;
-                        bestMoves.clear();
-                        bestMoves.add(new Move(i, j, false));
-                    } 
-                    // 如果分数相同，则添加到最佳列表
-                    else if (score == bestScore) {
-                        bestMoves.add(new Move(i, j, false));
-                    }
-                }
-            }
-        }
-
-        // 从最佳列表中随机选择一个位置，增加一些随机性
-        if (!bestMoves.isEmpty()) {
-            Random random = new Random();
-            bestMove = bestMoves.get(random.nextInt(bestMoves.size()));
-        }
-
-        return bestMove;
-    }
-
-    // 判断位置是否更靠近中心
-    public static boolean isCloserToCenter(int x, int y, Move move) {
-        if (move == null) {
-            return true;
-        }
-
-        int center = (BOARD_SIZE - 1) / 2;
-        int dist1 = Math.abs(x - center) + Math.abs(y - center);
-        int dist2 = Math.abs(move.x - center) + Math.abs(move.y - center);
-
-        return dist1 < dist2;
-    }
-
-    // 极小极大算法，带Alpha-Beta剪枝
-    private static int minimax(int depth, boolean isMaximizing, int alpha, int beta, Boolean[][] board, Stack<Move> moveHistory) {
-        // 检查游戏是否结束或达到最大深度
-        if (depth == 0) {
-            return evaluateBoard(board);
-        }
-
-        if (isMaximizing) {
-            int bestScore = Integer.MIN_VALUE;
-
-            // 尝试每个可能的位置
-            for (int i = 0; i < BOARD_SIZE; i++) {
-                for (int j = 0; j < BOARD_SIZE; j++) {
-                    if (board[i][j] == null) {
-                        // 模拟AI落子
-                        board[i][j] = false;
-
-                        // 递归评估
-                        int score = minimax(depth - 1, false, alpha, beta, board, moveHistory);
-
-                        // 撤销模拟落子
-                        board[i][j] = null;
-
-                        bestScore = Math.max(score, bestScore);
-                        alpha = Math.max(alpha, bestScore);
-
-                        // Alpha-Beta剪枝
-                        if (beta <= alpha) {
-                            break;
-                        }
-                    }
-                }
-
-                if (beta <= alpha) {
-                    break;
-                }
-            }
-
-            return bestScore;
-        } else {
-            int bestScore = Integer.MAX_VALUE;
-
-            // 尝试每个可能的位置
-            for (int i = 0; i < BOARD_SIZE; i++) {
-                for (int j = 0; j < BOARD_SIZE; j++) {
-                    if (board[i][j] == null) {
-                        // 模拟玩家落子
-                        board[i][j] = true;
-
-                        // 递归评估
-                        int score = minimax(depth - 1, true, alpha, beta, board, moveHistory);
-
-                        // 撤销模拟落子
-                        board[i][j] = null;
-
-                        bestScore = Math.min(score, bestScore);
-                        beta = Math.min(beta, bestScore);
-
-                        // Alpha-Beta剪枝
-                        if (beta <= alpha) {
-                            break;
-                        }
-                    }
-                }
-
-                if (beta <= alpha) {
-                    break;
-                }
-            }
-
-            return bestScore;
-        }
-    }
-
-    // 评估整个棋盘的分数
-    private static int evaluateBoard(Boolean[][] board) {
-        int aiScore = 0;
-        int playerScore = 0;
-
-        // 评估每个位置
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                if (board[i][j] != null) {
-                    if (board[i][j]) {
-                        // 玩家棋子
-                        playerScore += evaluatePosition(i, j, true, board);
-                    } else {
-                        // AI棋子
-                        aiScore += evaluatePosition(i, j, false, board);
-                    }
-                }
-            }
-        }
-
-        return aiScore - playerScore;
-    }
-
-    // 评估单个位置的分数
-    public static int evaluatePosition(int x, int y, boolean isPlayer, Boolean[][] board) {
-        Boolean player = isPlayer ? true : false;
-        int score = 0;
-
-        // 定义方向数组：水平、垂直、左上到右下、右上到左下
-        int[][] directions = {
-            {1, 0}, {0, 1}, {1, 1}, {1, -1}
-        };
-
-        // 检查每个方向
-        for (int[] dir : directions) {
-            int dx = dir[0];
-            int dy = dir[1];
-
-            // 连续相同棋子的数量
-            int count = 1;
-            // 两端可延伸的空格数
-            int spaceLeft = 0;
-            int spaceRight = 0;
-
-            // 检查正方向
-            for (int i = 1; i < 5; i++) {
-                int nx = x + dx * i;
-                int ny = y + dy * i;
-
-                if (nx >= 0 && nx < BOARD_SIZE && ny >= 0 && ny < BOARD_SIZE) {
-                    if (board[nx][ny] == player) {
-                        count++;
-                    } else if (board[nx][ny] == null) {
-                        spaceRight++;
-                        break;
-                    } else {
-                        break;
-                    }
-                } else {
-                    break;
-                }
-            }
-
-            // 检查反方向
-            for (int i = 1; i < 5; i++) {
-                int nx = x - dx * i;
-                int ny = y - dy * i;
-
-                if (nx >= 0 && nx < BOARD_SIZE && ny >= 0 && ny < BOARD_SIZE) {
-                    if (board[nx][ny] == player) {
-                        count++;
-                    } else if (board[nx][ny] == null) {
-                        spaceLeft++;
-                        break;
-                    } else {
-                        break;
-                    }
-                } else {
-                    break;
-                }
-            }
-
-            // 根据连续棋子数量和可延伸性评分
-            if (count == 5) {
-                // 五连，赢
-                return 100000;
-            } else if (count == 4) {
-                // 四连
-                if (spaceLeft + spaceRight >= 1) {
-                    // 活四或冲四
-                    score += 10000;
-                }
-            } else if (count == 3) {
-                // 三连
-                if (spaceLeft + spaceRight >= 2) {
-                    // 活三
-                    score += 1000;
-                } else if (spaceLeft + spaceRight >= 1) {
-                    // 冲三
-                    score += 100;
-                }
-            } else if (count == 2) {
-                // 两连
-                if (spaceLeft + spaceRight >= 3) {
-                    // 活二
-                    score += 10;
-                } else if (spaceLeft + spaceRight >= 2) {
-                    // 冲二
-                    score += 5;
-                }
-            }
-        }
-
-        return score;
-    }
-}
\ No newline at end of file
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// 这个类负责处理AI的逻辑，包括不同难度下的落子策略和评估函数
+class AILogic {
+    private static final int BOARD_SIZE = 15;
+    // 搜索中分出胜负时的分数，远大于任何局面评估值
+    static final int WIN_SCORE = 10000000;
+    // 迭代加深搜索的窗口边界，取反不会溢出
+    private static final int INFINITY = 1000000000;
+    // 迭代加深搜索的最大深度
+    private static final int MAX_DEPTH = SearchState.MAX_PLY - 2;
+    // 候选落子与已有棋子的最大距离
+    private static final int NEIGHBOR_RANGE = 2;
+    // 晚期落子削减：从第几个候选开始，以及剩余深度至少为多少时才削减
+    private static final int LMR_MIN_INDEX = 3;
+    private static final int LMR_MIN_DEPTH = 3;
+    // 渴望窗口的初始半宽
+    private static final int ASPIRATION_WINDOW = 500;
+    // 每搜索这么多个节点检查一次是否超时
+    private static final int TIME_CHECK_MASK = 1023;
+    // 定义方向数组：水平、垂直、左上到右下、右上到左下
+    private static final int[][] DIRECTIONS = {
+        {1, 0}, {0, 1}, {1, 1}, {1, -1}
+    };
+    // 对局规则，用于在搜索中排除禁手
+    private static GameRule rule = new FreestyleRule();
+    // 评估函数中各棋型的分值，可以从调优生成的权重文件加载
+    private static EvalWeights evalWeights = new EvalWeights();
+    // 可选的神经网络评估函数，为null时使用evaluateBoard
+    private static NnueEvaluator neuralEvaluator = null;
+    // 可选的持久分析缓存，保存各局面已完成的最深一轮搜索结果，为null时不使用
+    private static AnalysisCache analysisCache = null;
+    // 不同规则、评估函数和棋型分值的分数不能通用，按它们区分缓存中的局面
+    private static final long NNUE_CACHE_SALT = 0x6A09E667F3BCC909L;
+
+    public static void setRule(GameRule gameRule) {
+        rule = gameRule;
+    }
+
+    public static GameRule getRule() {
+        return rule;
+    }
+
+    public static void setNeuralEvaluator(NnueEvaluator evaluator) {
+        neuralEvaluator = evaluator;
+    }
+
+    public static NnueEvaluator getNeuralEvaluator() {
+        return neuralEvaluator;
+    }
+
+    public static void setAnalysisCache(AnalysisCache cache) {
+        analysisCache = cache;
+    }
+
+    public static AnalysisCache getAnalysisCache() {
+        return analysisCache;
+    }
+
+    public static EvalWeights getEvalWeights() {
+        return evalWeights;
+    }
+
+    // 从本地文件加载棋型权重，文件不存在或格式错误时使用默认权重
+    public static void loadEvalWeights(java.io.File file) {
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            evalWeights = EvalWeights.load(file);
+            System.out.println("已加载评估权重: " + file.getName());
+        } catch (java.io.IOException | IllegalArgumentException e) {
+            System.out.println("加载评估权重时出错: " + e.getMessage());
+        }
+    }
+
+    // 从本地文件加载神经网络评估函数，文件不存在或格式错误时继续使用手工评估
+    public static void loadNeuralEvaluator(java.io.File file) {
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            neuralEvaluator = NnueEvaluator.load(file);
+            System.out.println("已加载神经网络评估: " + file.getName() + " (" + neuralEvaluator.getKernelName() + ")");
+        } catch (java.io.IOException e) {
+            System.out.println("加载神经网络评估时出错: " + e.getMessage());
+        }
+    }
+
+    // 打开持久分析缓存文件，文件不存在时按sizeMegabytes创建；打不开时不使用缓存
+    public static void openAnalysisCache(java.io.File file, int sizeMegabytes) {
+        try {
+            analysisCache = new AnalysisCache(file, sizeMegabytes);
+            System.out.println("已打开分析缓存: " + file.getName() + " (" + analysisCache.getCapacity() + "个局面)");
+        } catch (java.io.IOException e) {
+            System.out.println("打开分析缓存时出错: " + e.getMessage());
+        }
+    }
+
+    // 局面在分析缓存中的键
+    private static long analysisKey(long hash, boolean player) {
+        long key = Zobrist.withSide(hash, player) ^ (rule.getClass().getName().hashCode() * 0x9E3779B97F4A7C15L)
+                ^ evalWeights.fingerprint();
+        return neuralEvaluator != null ? key ^ NNUE_CACHE_SALT : key;
+    }
+
+    // 迭代加深搜索：在时间限制内逐层加深，可按options开关主要变例搜索、渴望窗口和晚期落子削减
+    // player为落子方，timeMillis为0表示不限时（此时只受MAX_DEPTH限制）
+    public static SearchResult findBestMoveTimed(Boolean[][] board, MoveStack moveHistory, boolean player, long timeMillis,
+                                                 SearchOptions options) {
+        return findBestMoveTimed(board, moveHistory, player, timeMillis, options, null, null, null, 0, null);
+    }
+
+    // 同上，cancelled被置为true时尽快结束搜索，返回已完成的最深一轮的结果
+    public static SearchResult findBestMoveTimed(Boolean[][] board, MoveStack moveHistory, boolean player, long timeMillis,
+                                                 SearchOptions options, AtomicBoolean cancelled) {
+        return findBestMoveTimed(board, moveHistory, player, timeMillis, options, cancelled, null, null, 0, null);
+    }
+
+    // 同上，每完成一轮迭代就把这一轮的结果交给onIteration，用于统计找到正确落子所用的时间
+    public static SearchResult findBestMoveTimed(Boolean[][] board, MoveStack moveHistory, boolean player, long timeMillis,
+                                                 SearchOptions options, Consumer<SearchResult> onIteration) {
+        return findBestMoveTimed(board, moveHistory, player, timeMillis, options, null, null, null, 0, onIteration);
+    }
+
+    // 按棋钟分配的时间搜索：最长用时作为截止时间，每轮结束后由timeManager决定是否继续加深
+    public static SearchResult findBestMoveTimed(Boolean[][] board, MoveStack moveHistory, boolean player,
+                                                 TimeManager timeManager, SearchOptions options) {
+        return findBestMoveTimed(board, moveHistory, player, timeManager.getHardMillis(), options, null, timeManager,
+                null, 0, null);
+    }
+
+    // 按难度的节点预算搜索，叶节点评估加上由局面和seed决定的噪声；给定局面和seed时结果完全可复现，与机器快慢无关
+    // timeManager不为null时（有棋钟）另受时间限制，只有时间先用完时结果才与机器有关
+    public static SearchResult findBestMoveBudget(Boolean[][] board, MoveStack moveHistory, boolean player,
+                                                  Difficulty difficulty, long seed, TimeManager timeManager) {
+        long timeMillis = timeManager != null ? timeManager.getHardMillis() : 0;
+        return findBestMoveTimed(board, moveHistory, player, timeMillis, SearchOptions.all(), null, timeManager,
+                difficulty, seed, null);
+    }
+
+    // 同上，不受时间限制，使用指定的搜索选项，用于比较不同设置的棋力
+    public static SearchResult findBestMoveBudget(Boolean[][] board, MoveStack moveHistory, boolean player,
+                                                  Difficulty difficulty, long seed, SearchOptions options) {
+        return findBestMoveTimed(board, moveHistory, player, 0, options, null, null, difficulty, seed, null);
+    }
+
+    private static SearchResult findBestMoveTimed(Boolean[][] board, MoveStack moveHistory, boolean player, long timeMillis,
+                                                  SearchOptions options, AtomicBoolean cancelled, TimeManager timeManager,
+                                                  Difficulty difficulty, long seed, Consumer<SearchResult> onIteration) {
+        long start = System.nanoTime();
+        SearchState state = new SearchState(board, moveHistory, rule, neuralEvaluator);
+        state.options = options;
+        state.cancelled = cancelled;
+        state.deadline = timeMillis > 0 ? start + timeMillis * 1_000_000L : Long.MAX_VALUE;
+        if (difficulty != null) {
+            state.nodeLimit = difficulty.nodeBudget;
+            state.noise = difficulty.noise;
+            state.noiseSeed = seed;
+        }
+
+        int count = generateCandidates(state, 0, player);
+        if (count == 0) {
+            return null;
+        }
+
+        // 能直接连五或者只有一个挡法时不必搜索
+        int forced = findForcedMove(state, player, count);
+        if (forced != Move.NONE) {
+            return new SearchResult(Move.decode(forced), 0, 0, state.nodes, System.nanoTime() - start, true);
+        }
+
+        int[] rootMoves = state.candidates[0];
+        int bestMove = rootMoves[0];
+        int bestScore = 0;
+        int depthReached = 0;
+
+        // 按难度搜索时结果要由局面和种子决定，不使用缓存
+        AnalysisCache cache = difficulty == null ? analysisCache : null;
+        long cacheKey = 0;
+        int cachedDepth = 0;
+        if (cache != null) {
+            cacheKey = analysisKey(state.hash, player);
+            AnalysisCache.Entry entry = cache.probe(cacheKey);
+            int index = entry == null ? count : 0;
+            while (index < count && rootMoves[index] != entry.move) {
+                index++;
+            }
+            if (index < count) {
+                // 以前算到过这个局面：从缓存的深度接着加深，下一轮来不及完成时直接用缓存的结果
+                System.arraycopy(rootMoves, 0, rootMoves, 1, index);
+                rootMoves[0] = entry.move;
+                bestMove = entry.move;
+                bestScore = entry.score;
+                depthReached = Math.min(entry.depth, MAX_DEPTH);
+                cachedDepth = entry.depth;
+                if (Math.abs(bestScore) >= WIN_SCORE - SearchState.MAX_PLY) {
+                    return new SearchResult(Move.decode(bestMove), bestScore, depthReached, state.nodes,
+                            System.nanoTime() - start);
+                }
+            }
+        }
+
+        for (int depth = depthReached + 1; depth <= MAX_DEPTH && count > 1; depth++) {
+            int score;
+            if (options.aspirationWindows && depth > 1 && Math.abs(bestScore) < WIN_SCORE / 2) {
+                int delta = ASPIRATION_WINDOW;
+                int alpha = bestScore - delta;
+                int beta = bestScore + delta;
+                while (true) {
+                    score = searchRoot(state, depth, alpha, beta, player, count);
+                    if (state.aborted || (score > alpha && score < beta)) {
+                        break;
+                    }
+                    // 落在窗口外时放宽窗口重搜，多次失败后退回完整窗口
+                    delta *= 4;
+                    if (delta > WIN_SCORE) {
+                        alpha = -INFINITY;
+                        beta = INFINITY;
+                    } else if (score <= alpha) {
+                        alpha = bestScore - delta;
+                    } else {
+                        beta = bestScore + delta;
+                    }
+                }
+            } else {
+                score = searchRoot(state, depth, -INFINITY, INFINITY, player, count);
+            }
+
+            // 超时中断的这一轮结果不完整，沿用上一轮的结果
+            if (state.aborted) {
+                break;
+            }
+            boolean bestMoveChanged = depth > 1 && state.rootBest != bestMove;
+            bestMove = state.rootBest;
+            bestScore = score;
+            depthReached = depth;
+            if (onIteration != null) {
+                onIteration.accept(new SearchResult(Move.decode(bestMove), bestScore, depthReached, state.nodes,
+                        System.nanoTime() - start));
+            }
+
+            // 把最佳落子移到最前面，下一轮优先搜索
+            int index = 0;
+            while (rootMoves[index] != bestMove) {
+                index++;
+            }
+            System.arraycopy(rootMoves, 0, rootMoves, 1, index);
+            rootMoves[0] = bestMove;
+
+            // 已经找到必胜或必败时不再加深
+            if (Math.abs(score) >= WIN_SCORE - SearchState.MAX_PLY) {
+                break;
+            }
+            if (timeManager != null && !timeManager.shouldStartNextIteration(System.nanoTime() - start, bestMoveChanged)) {
+                break;
+            }
+        }
+
+        if (cache != null && depthReached > cachedDepth) {
+            cache.store(cacheKey, bestMove, bestScore, depthReached);
+        }
+        // 只有一个候选落子（例如空棋盘）时不搜索，与强制落子一样
+        return new SearchResult(Move.decode(bestMove), bestScore, depthReached, state.nodes, System.nanoTime() - start,
+                count == 1);
+    }
+
+    // 找出不需要搜索的落子：自己能连五时直接连五；否则对方只有一个连五点时必须去挡；都不是时返回Move.NONE
+    private static int findForcedMove(SearchState state, boolean player, int count) {
+        int[] moves = state.candidates[0];
+        int threat = Move.NONE;
+        int threats = 0;
+        for (int k = 0; k < count; k++) {
+            int x = Move.getX(moves[k]);
+            int y = Move.getY(moves[k]);
+            boolean win = state.place(x, y, player);
+            state.undo(x, y);
+            if (win) {
+                return moves[k];
+            }
+        }
+        for (int k = 0; k < count; k++) {
+            int x = Move.getX(moves[k]);
+            int y = Move.getY(moves[k]);
+            boolean win = state.place(x, y, !player);
+            state.undo(x, y);
+            if (win) {
+                threat = moves[k];
+                threats++;
+            }
+        }
+        return threats == 1 ? threat : Move.NONE;
+    }
+
+    // 搜索根节点的所有候选，返回最佳分数并记录最佳落子
+    private static int searchRoot(SearchState state, int depth, int alpha, int beta, boolean player, int count) {
+        state.rootBest = state.candidates[0][0];
+        return searchMoves(state, depth, 0, alpha, beta, player, count);
+    }
+
+    // 主要变例搜索（负极大值形式），分数为player视角
+    private static int principalVariation(SearchState state, int depth, int ply, int alpha, int beta, boolean player) {
+        state.nodes++;
+        if (state.nodes >= state.nodeLimit) {
+            state.aborted = true;
+        }
+        if ((state.nodes & TIME_CHECK_MASK) == 0
+                && (System.nanoTime() > state.deadline || (state.cancelled != null && state.cancelled.get()))) {
+            state.aborted = true;
+        }
+        if (state.aborted) {
+            return 0;
+        }
+
+        if (state.windows.isDrawn()) {
+            return 0;
+        }
+        if (depth <= 0 || ply >= SearchState.MAX_PLY - 1 || state.detector.isFull()) {
+            int score = state.evaluate();
+            return player ? -score : score;
+        }
+
+        int count = generateCandidates(state, ply, player);
+        if (count == 0) {
+            int score = state.evaluate();
+            return player ? -score : score;
+        }
+        return searchMoves(state, depth, ply, alpha, beta, player, count);
+    }
+
+    // 依次搜索第ply层已排序的候选
+    private static int searchMoves(SearchState state, int depth, int ply, int alpha, int beta, boolean player, int count) {
+        SearchOptions options = state.options;
+        int[] moves = state.candidates[ply];
+        int[] scores = state.candidateScores[ply];
+        int quietThreshold = evalWeights.get(EvalWeights.LIVE_THREE);
+        int bestScore = -INFINITY;
+
+        for (int k = 0; k < count; k++) {
+            int move = moves[k];
+            int x = Move.getX(move);
+            int y = Move.getY(move);
+            int score;
+
+            if (state.place(x, y, player)) {
+                // 直接获胜，越早获胜分数越高
+                score = WIN_SCORE - ply - 1;
+            } else if (k == 0) {
+                score = -principalVariation(state, depth - 1, ply + 1, -beta, -alpha, !player);
+            } else {
+                // 排序靠后且不形成或阻止活三以上的候选先少搜一层
+                int reduction = options.lateMoveReductions && k >= LMR_MIN_INDEX && depth >= LMR_MIN_DEPTH
+                        && scores[k] < quietThreshold ? 1 : 0;
+                int windowBeta = options.principalVariation ? alpha + 1 : beta;
+
+                score = -principalVariation(state, depth - 1 - reduction, ply + 1, -windowBeta, -alpha, !player);
+                if (reduction > 0 && score > alpha) {
+                    score = -principalVariation(state, depth - 1, ply + 1, -windowBeta, -alpha, !player);
+                }
+                if (options.principalVariation && score > alpha && score < beta) {
+                    score = -principalVariation(state, depth - 1, ply + 1, -beta, -alpha, !player);
+                }
+            }
+            state.undo(x, y);
+
+            if (state.aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (ply == 0) {
+                        state.rootBest = move;
+                    }
+                }
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+
+        return bestScore;
+    }
+
+    // 生成已有棋子附近的合法空位，按启发式分数（进攻分加防守分）从高到低排序后存入第ply层，返回数量
+    private static int generateCandidates(SearchState state, int ply, boolean player) {
+        Boolean[][] board = state.board;
+        int[] moves = state.candidates[ply];
+        int[] scores = state.candidateScores[ply];
+
+        if (state.detector.getStoneCount() == 0) {
+            int center = (BOARD_SIZE - 1) / 2;
+            moves[0] = Move.encode(center, center, player);
+            scores[0] = 0;
+            return 1;
+        }
+
+        int count = 0;
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                if (board[i][j] != null || !hasNeighbor(board, i, j) || state.windows.isDeadCell(i, j)
+                        || rule.isForbidden(board, i, j, player)) {
+                    continue;
+                }
+
+                board[i][j] = player;
+                int score = evaluatePosition(i, j, player, board);
+                board[i][j] = !player;
+                score += evaluatePosition(i, j, !player, board);
+                board[i][j] = null;
+
+                // 插入排序，保持分数从高到低
+                int k = count++;
+                while (k > 0 && scores[k - 1] < score) {
+                    moves[k] = moves[k - 1];
+                    scores[k] = scores[k - 1];
+                    k--;
+                }
+                moves[k] = Move.encode(i, j, player);
+                scores[k] = score;
+            }
+        }
+        return count;
+    }
+
+    // 判断(x,y)附近是否有棋子
+    private static boolean hasNeighbor(Boolean[][] board, int x, int y) {
+        for (int i = Math.max(0, x - NEIGHBOR_RANGE); i <= Math.min(BOARD_SIZE - 1, x + NEIGHBOR_RANGE); i++) {
+            for (int j = Math.max(0, y - NEIGHBOR_RANGE); j <= Math.min(BOARD_SIZE - 1, y + NEIGHBOR_RANGE); j++) {
+                if (board[i][j] != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // 判断位置是否更靠近中心
+    public static boolean isCloserToCenter(int x, int y, Move move) {
+        return isCloserToCenter(x, y, move == null ? Move.NONE : move.encode());
+    }
+
+    // 判断位置是否比编码后的落子更靠近中心，move为Move.NONE时返回true
+    public static boolean isCloserToCenter(int x, int y, int move) {
+        if (move == Move.NONE) {
+            return true;
+        }
+
+        int center = (BOARD_SIZE - 1) / 2;
+        int dist1 = Math.abs(x - center) + Math.abs(y - center);
+        int dist2 = Math.abs(Move.getX(move) - center) + Math.abs(Move.getY(move) - center);
+
+        return dist1 < dist2;
+    }
+
+    // 评估整个棋盘的分数
+    static int evaluateBoard(Boolean[][] board) {
+        int aiScore = 0;
+        int playerScore = 0;
+
+        // 评估每个位置
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                if (board[i][j] != null) {
+                    if (board[i][j]) {
+                        // 玩家棋子
+                        playerScore += evaluatePosition(i, j, true, board);
+                    } else {
+                        // AI棋子
+                        aiScore += evaluatePosition(i, j, false, board);
+                    }
+                }
+            }
+        }
+
+        return aiScore - playerScore;
+    }
+
+    // 评估单个位置的分数，各棋型的分值来自evalWeights
+    public static int evaluatePosition(int x, int y, boolean isPlayer, Boolean[][] board) {
+        int score = 0;
+
+        // 检查每个方向
+        for (int[] dir : DIRECTIONS) {
+            int pattern = classifyPattern(x, y, dir[0], dir[1], isPlayer, board);
+            if (pattern == EvalWeights.FIVE) {
+                // 五连，赢
+                return evalWeights.get(EvalWeights.FIVE);
+            }
+            if (pattern != EvalWeights.NONE) {
+                score += evalWeights.get(pattern);
+            }
+        }
+
+        return score;
+    }
+
+    // 统计棋盘上所有棋子在四个方向上的棋型，白棋（AI）计+1，黑棋（玩家）计-1
+    // evaluateBoard的结果等于counts与权重的点积（出现五连时除外），供权重调优使用
+    static void countPatterns(Boolean[][] board, int[] counts) {
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                if (board[i][j] != null) {
+                    boolean isPlayer = board[i][j];
+                    for (int[] dir : DIRECTIONS) {
+                        int pattern = classifyPattern(i, j, dir[0], dir[1], isPlayer, board);
+                        if (pattern != EvalWeights.NONE) {
+                            counts[pattern] += isPlayer ? -1 : 1;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // 判断经过(x,y)在一个方向上的棋型，返回EvalWeights中的棋型编号
+    private static int classifyPattern(int x, int y, int dx, int dy, boolean isPlayer, Boolean[][] board) {
+        Boolean player = isPlayer ? true : false;
+
+        // 连续相同棋子的数量
+        int count = 1;
+        // 两端可延伸的空格数
+        int spaceLeft = 0;
+        int spaceRight = 0;
+
+        // 检查正方向
+        for (int i = 1; i < 5; i++) {
+            int nx = x + dx * i;
+            int ny = y + dy * i;
+
+            if (nx >= 0 && nx < BOARD_SIZE && ny >= 0 && ny < BOARD_SIZE) {
+                if (player.equals(board[nx][ny])) {
+                    count++;
+                } else if (board[nx][ny] == null) {
+                    spaceRight++;
+                    break;
+                } else {
+                    break;
+                }
+            } else {
+                break;
+            }
+        }
+
+        // 检查反方向
+        for (int i = 1; i < 5; i++) {
+            int nx = x - dx * i;
+            int ny = y - dy * i;
+
+            if (nx >= 0 && nx < BOARD_SIZE && ny >= 0 && ny < BOARD_SIZE) {
+                if (player.equals(board[nx][ny])) {
+                    count++;
+                } else if (board[nx][ny] == null) {
+                    spaceLeft++;
+                    break;
+                } else {
+                    break;
+                }
+            } else {
+                break;
+            }
+        }
+
+        // 这条线上能容纳五子的空间不足时，无论怎样落子都不可能连成五子，不计分
+        if (count < 5 && lineRoom(x, y, dx, dy, player, board) < 5) {
+            return EvalWeights.NONE;
+        }
+
+        // 根据连续棋子数量和可延伸性判断棋型
+        if (count == 5) {
+            // 五连，赢
+            return EvalWeights.FIVE;
+        } else if (count == 4) {
+            // 四连
+            if (spaceLeft + spaceRight >= 1) {
+                // 活四或冲四
+                return EvalWeights.FOUR;
+            }
+        } else if (count == 3) {
+            // 三连
+            if (spaceLeft + spaceRight >= 2) {
+                // 活三
+                return EvalWeights.LIVE_THREE;
+            } else if (spaceLeft + spaceRight >= 1) {
+                // 冲三
+                return EvalWeights.DEAD_THREE;
+            }
+        } else if (count == 2) {
+            // 两连
+            if (spaceLeft + spaceRight >= 3) {
+                // 活二
+                return EvalWeights.LIVE_TWO;
+            } else if (spaceLeft + spaceRight >= 2) {
+                // 冲二
+                return EvalWeights.DEAD_TWO;
+            }
+        }
+
+        return EvalWeights.NONE;
+    }
+
+    // 计算经过(x,y)的一条线上，不被对方棋子和棋盘边缘阻断的连续格子数（每侧最多4格）
+    private static int lineRoom(int x, int y, int dx, int dy, Boolean player, Boolean[][] board) {
+        int room = 1;
+        for (int sign = -1; sign <= 1; sign += 2) {
+            for (int i = 1; i < 5; i++) {
+                int nx = x + dx * i * sign;
+                int ny = y + dy * i * sign;
+                if (nx < 0 || nx >= BOARD_SIZE || ny < 0 || ny >= BOARD_SIZE
+                        || (board[nx][ny] != null && !player.equals(board[nx][ny]))) {
+                    break;
+                }
+                room++;
+            }
+        }
+        return room;
+    }
+}
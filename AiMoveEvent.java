@@ -0,0 +1,43 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// 这个类是AI每走一步记录的JFR事件，持续时间为搜索用时，可以和GC、重绘事件放在同一条时间线上对照
+// 难度1-5级记录迭代加深搜索的完成深度和节点数；6级蒙特卡洛树搜索不统计深度，记为0，节点数记为模拟次数
+@Name("gomoku.AiMove")
+@Label("AI落子")
+@Category({"Gomoku", "搜索"})
+@Description("AI一次落子的搜索统计")
+class AiMoveEvent extends Event {
+    @Label("难度")
+    int difficulty;
+
+    @Label("难度名称")
+    String difficultyName;
+
+    @Label("完成深度")
+    int depth;
+
+    @Label("节点数")
+    long nodes;
+
+    @Label("每秒模拟次数")
+    @Description("蒙特卡洛树搜索每秒的模拟次数，用来和迭代加深搜索比较每CPU秒的棋力；其他难度为0")
+    double playoutsPerSecond;
+
+    @Label("种子")
+    @Description("搜索噪声的种子，与局面一起可以复现这一步")
+    long seed;
+
+    @Label("手数")
+    @Description("落子前棋盘上的棋子数")
+    int moveNumber;
+
+    @Label("落子X")
+    int x;
+
+    @Label("落子Y")
+    int y;
+}
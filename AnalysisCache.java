@@ -0,0 +1,187 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 这个类是保存在内存映射文件中的分析缓存：局面哈希 -> 分数、深度、最佳落子，程序退出后留在文件里，下次启动接着用
+// 数据在堆外，不占用Java堆，也不受GC影响；同一台机器上的多个进程可以同时打开同一个文件
+//
+// 文件格式：64字节的文件头（魔数、版本、桶数），然后是桶数组，每个桶64字节，包含4个16字节的槽
+// 每个槽是两个long：key ^ data和data。读写都不加锁，读到的两个long异或后等于要找的key才算命中，
+// 另一个进程写了一半的槽对不上key，只会被当作未命中，不会读到错误的结果
+class AnalysisCache {
+    private static final int MAGIC = 0x47414E43; // "GANC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 16;
+    private static final int SLOTS_PER_BUCKET = 4;
+    private static final int BUCKET_SIZE = SLOT_SIZE * SLOTS_PER_BUCKET;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final MappedByteBuffer buffer;
+    // 桶数，总是2的幂
+    private final int bucketCount;
+
+    private final AtomicLong probes = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+
+    // 一条缓存结果，分数是落子方视角
+    static final class Entry {
+        final int move;
+        final int score;
+        final int depth;
+
+        Entry(int move, int score, int depth) {
+            this.move = move;
+            this.score = score;
+            this.depth = depth;
+        }
+    }
+
+    // 打开缓存文件，文件不存在时按sizeMegabytes创建；已存在时沿用文件本身的大小
+    public AnalysisCache(File file, int sizeMegabytes) throws IOException {
+        this.file = file;
+        raf = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            int buckets;
+            // 只在初始化或检查文件头时加锁，避免两个进程同时创建同一个文件
+            FileLock lock = channel.lock();
+            try {
+                if (channel.size() == 0) {
+                    buckets = Integer.highestOneBit(Math.max(1, (int) ((long) sizeMegabytes * 1024 * 1024 / BUCKET_SIZE)));
+                    raf.setLength(HEADER_SIZE + (long) buckets * BUCKET_SIZE);
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                    header.putInt(MAGIC).putInt(VERSION).putInt(buckets).rewind();
+                    channel.write(header, 0);
+                } else {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                    channel.read(header, 0);
+                    header.flip();
+                    if (header.remaining() < 12 || header.getInt() != MAGIC) {
+                        throw new IOException("不是分析缓存文件: " + file.getName());
+                    }
+                    int version = header.getInt();
+                    if (version != VERSION) {
+                        throw new IOException("不支持的分析缓存版本: " + version);
+                    }
+                    buckets = header.getInt();
+                    if (buckets <= 0 || Integer.bitCount(buckets) != 1
+                            || channel.size() < HEADER_SIZE + (long) buckets * BUCKET_SIZE) {
+                        throw new IOException("分析缓存文件已损坏: " + file.getName());
+                    }
+                }
+            } finally {
+                lock.release();
+            }
+            if (HEADER_SIZE + (long) buckets * BUCKET_SIZE > Integer.MAX_VALUE) {
+                throw new IOException("分析缓存文件过大: " + file.getName());
+            }
+            bucketCount = buckets;
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) buckets * BUCKET_SIZE);
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    // 查找局面，没有时返回null
+    public Entry probe(long key) {
+        probes.incrementAndGet();
+        int bucket = bucketOffset(key);
+        for (int i = 0; i < SLOTS_PER_BUCKET; i++) {
+            int offset = bucket + i * SLOT_SIZE;
+            long data = buffer.getLong(offset + 8);
+            if (data != 0 && (buffer.getLong(offset) ^ data) == key) {
+                hits.incrementAndGet();
+                return new Entry(unpackMove(data), unpackScore(data), unpackDepth(data));
+            }
+        }
+        return null;
+    }
+
+    // 记录局面的分析结果；已有同一局面更深的结果时保留原结果，桶满时替换深度最小的槽
+    public void store(long key, int move, int score, int depth) {
+        if (depth <= 0) {
+            return;
+        }
+        int bucket = bucketOffset(key);
+        int target = bucket;
+        int targetDepth = Integer.MAX_VALUE;
+        for (int i = 0; i < SLOTS_PER_BUCKET; i++) {
+            int offset = bucket + i * SLOT_SIZE;
+            long data = buffer.getLong(offset + 8);
+            boolean valid = data != 0;
+            if (valid && (buffer.getLong(offset) ^ data) == key) {
+                if (unpackDepth(data) > depth) {
+                    return;
+                }
+                target = offset;
+                break;
+            }
+            // 空槽和对不上key的半写槽深度按0计算，优先被替换
+            int slotDepth = valid ? unpackDepth(data) : 0;
+            if (slotDepth < targetDepth) {
+                target = offset;
+                targetDepth = slotDepth;
+            }
+        }
+        long data = pack(move, score, depth);
+        buffer.putLong(target + 8, data);
+        buffer.putLong(target, key ^ data);
+        stores.incrementAndGet();
+    }
+
+    private int bucketOffset(long key) {
+        return HEADER_SIZE + (int) (key & (bucketCount - 1)) * BUCKET_SIZE;
+    }
+
+    // data的低32位是分数，接着8位深度，再接着16位落子；深度至少为1，所以data不为0
+    private static long pack(int move, int score, int depth) {
+        return (score & 0xFFFFFFFFL) | ((long) Math.min(depth, 255) << 32) | ((long) (move & 0xFFFF) << 40);
+    }
+
+    private static int unpackScore(long data) {
+        return (int) data;
+    }
+
+    private static int unpackDepth(long data) {
+        return (int) (data >>> 32) & 0xFF;
+    }
+
+    private static int unpackMove(long data) {
+        return (int) (data >>> 40) & 0xFFFF;
+    }
+
+    // 把修改写回文件并关闭；不调用时修改也会由操作系统写回，只是机器断电后未必完整
+    public void close() throws IOException {
+        buffer.force();
+        raf.close();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getCapacity() {
+        return (long) bucketCount * SLOTS_PER_BUCKET;
+    }
+
+    public long getProbes() {
+        return probes.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getStores() {
+        return stores.get();
+    }
+}
@@ -0,0 +1,428 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 这个类批量分析一个目录中的对局，找出失误：按对局规则逐手复盘，每个局面用固定的节点预算搜索，
+// 实际落子比最佳落子损失的分数超过阈值时标记为失误，写出带注释的结果
+// 对局可以是GameCore的存档，也可以是GameFormats支持的棋谱文件（txt、psq、rif、sgf），一个文件中可以有多局
+// 读取线程把对局放入有界队列，多个分析线程同时处理；写出前按读入顺序排队，排队的对局数有上限，内存占用不随对局数增长
+// 不同对局中重复出现的局面（主要是开局）只分析一次，结果放在共享缓存中
+// 用法：java BatchAnalyzer [-nodes 每步节点数] [-threshold 失误阈值] [-threads 线程数] [-renju] [-cache 缓存局面数]
+//                          [-out 输出文件] <目录或文件>...
+class BatchAnalyzer {
+    private static final int BOARD_SIZE = 15;
+    // 只有强制落子时沿着强制落子往下看的最大手数，超过时按0分计算
+    private static final int MAX_FORCED_PLIES = 8;
+
+    private long nodes = 20_000;
+    private int threshold = 5_000;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private boolean renju = false;
+    private int cacheLimit = 1_000_000;
+    private File output = new File("analysis.txt");
+
+    private GameRule rule;
+    private Difficulty budget;
+
+    // 局面（含轮到哪一方）-> 搜索结果；正在被其他线程分析的局面等它算完
+    private final ConcurrentHashMap<Long, CompletableFuture<Evaluation>> cache = new ConcurrentHashMap<>();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong positions = new AtomicLong();
+    private final AtomicLong blunders = new AtomicLong();
+    private final AtomicLong unanalysed = new AtomicLong();
+
+    // 已分析完但还不能写出的结果，按读入顺序排列
+    private final TreeMap<Long, String> pending = new TreeMap<>();
+    private long nextToWrite = 0;
+    // 读入但还没有写出的对局数上限，保证慢的对局不会让后面的结果无限堆积
+    private Semaphore inFlight;
+    private PrintWriter writer;
+    private int games = 0;
+    private int skipped = 0;
+
+    // 一个局面的分析结果，分数为轮到的一方的视角，没有可走的棋时bestMove为Move.NONE
+    // 节点预算内一轮搜索都没有完成时analysed为false，分数无意义
+    private static final class Evaluation {
+        final int bestMove;
+        final int score;
+        final boolean analysed;
+
+        Evaluation(int bestMove, int score) {
+            this(bestMove, score, true);
+        }
+
+        Evaluation(int bestMove, int score, boolean analysed) {
+            this.bestMove = bestMove;
+            this.score = score;
+            this.analysed = analysed;
+        }
+    }
+
+    // 队列中的一局，sequence为读入顺序
+    private static final class Job {
+        final long sequence;
+        final String source;
+        final GameRecord record;
+
+        Job(long sequence, String source, GameRecord record) {
+            this.sequence = sequence;
+            this.source = source;
+            this.record = record;
+        }
+    }
+
+    // 通知分析线程结束的空任务
+    private static final Job END = new Job(-1, null, null);
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        BatchAnalyzer analyzer = new BatchAnalyzer();
+        List<File> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-nodes":
+                    analyzer.nodes = Long.parseLong(args[++i]);
+                    break;
+                case "-threshold":
+                    analyzer.threshold = Integer.parseInt(args[++i]);
+                    break;
+                case "-threads":
+                    analyzer.threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-renju":
+                    analyzer.renju = true;
+                    break;
+                case "-cache":
+                    analyzer.cacheLimit = Integer.parseInt(args[++i]);
+                    break;
+                case "-out":
+                    analyzer.output = new File(args[++i]);
+                    break;
+                default:
+                    inputs.add(new File(args[i]));
+                    break;
+            }
+        }
+        if (inputs.isEmpty()) {
+            System.out.println("用法: java BatchAnalyzer [-nodes 每步节点数] [-threshold 失误阈值] [-threads 线程数] [-renju] "
+                    + "[-cache 缓存局面数] [-out 输出文件] <目录或文件>...");
+            return;
+        }
+        analyzer.run(inputs);
+    }
+
+    private void run(List<File> inputs) throws IOException, InterruptedException {
+        // 搜索时的禁手判断使用AILogic的全局规则，一次运行只分析一种规则的对局
+        rule = renju ? new RenjuRule() : new FreestyleRule();
+        AILogic.setRule(rule);
+        budget = new Difficulty("分析", nodes, 0);
+        inFlight = new Semaphore(threads * 4);
+
+        long start = System.nanoTime();
+        BlockingQueue<Job> queue = new ArrayBlockingQueue<>(threads * 2);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> work(queue), "analyzer-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+
+        writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8)));
+        try {
+            writer.println("# 失误分析：" + rule.getName() + "，每步" + nodes + "个节点，损失超过" + threshold + "分记为失误");
+            writer.println("# ?为失误，??为走出必败或放过必胜，未分析为节点预算内没有完成一轮搜索；分数为落子方视角");
+            long sequence = 0;
+            for (File input : inputs) {
+                sequence = read(input, queue, sequence);
+            }
+            for (int i = 0; i < threads; i++) {
+                queue.put(END);
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } finally {
+            writer.close();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("分析%d局（跳过%d局），%d个局面，搜索%d次，缓存命中%d次，失误%d处，未分析%d手，用时%.1f秒%n", games,
+                skipped, positions.get(), searches.get(), cacheHits.get(), blunders.get(), unanalysed.get(), seconds);
+        System.out.println("结果已写入 " + output);
+    }
+
+    // 读取一个文件或目录中的所有对局放入队列，返回下一个序号
+    private long read(File input, BlockingQueue<Job> queue, long sequence) throws InterruptedException {
+        if (input.isDirectory()) {
+            File[] children = input.listFiles();
+            if (children != null) {
+                Arrays.sort(children);
+                for (File child : children) {
+                    if (child.isFile()) {
+                        sequence = read(child, queue, sequence);
+                    }
+                }
+            }
+            return sequence;
+        }
+
+        if (GameFormats.isSupported(GameFormats.extensionOf(input))) {
+            try (GameRecordReader reader = GameFormats.openReader(input)) {
+                int index = 0;
+                while (true) {
+                    GameRecord record;
+                    index++;
+                    try {
+                        record = reader.next();
+                    } catch (IllegalArgumentException e) {
+                        System.out.println(input + " 第" + index + "局无效: " + e.getMessage());
+                        skipped++;
+                        continue;
+                    }
+                    if (record == null) {
+                        break;
+                    }
+                    submit(queue, new Job(sequence++, input.getPath() + "#" + index, record));
+                }
+            } catch (IOException e) {
+                System.out.println("读取 " + input + " 时出错: " + e.getMessage());
+            }
+            return sequence;
+        }
+
+        // 其他文件按GameCore的存档读取
+        try {
+            GameCore.SavedGame saved = GameCore.readSaveFile(input);
+            if (saved.renju != renju) {
+                System.out.println(input + " 的规则与本次分析不同，跳过");
+                skipped++;
+                return sequence;
+            }
+            int[] cells = new int[saved.moveHistory.size()];
+            for (int i = 0; i < cells.length; i++) {
+                int move = saved.moveHistory.get(i);
+                cells[i] = Move.getX(move) * BOARD_SIZE + Move.getY(move);
+            }
+            submit(queue, new Job(sequence++, input.getPath(), new GameRecord(GameRecord.RESULT_UNKNOWN, cells)));
+        } catch (IOException e) {
+            System.out.println("无法读取 " + input + ": " + e);
+            skipped++;
+        }
+        return sequence;
+    }
+
+    private void submit(BlockingQueue<Job> queue, Job job) throws InterruptedException {
+        inFlight.acquire();
+        queue.put(job);
+        games++;
+    }
+
+    private void work(BlockingQueue<Job> queue) {
+        while (true) {
+            Job job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (job == END) {
+                return;
+            }
+            String text;
+            try {
+                text = analyze(job);
+            } catch (RuntimeException e) {
+                text = "== " + job.source + " 分析出错: " + e;
+            }
+            complete(job.sequence, text);
+        }
+    }
+
+    // 按读入顺序写出所有已经连续的结果
+    private synchronized void complete(long sequence, String text) {
+        pending.put(sequence, text);
+        while (!pending.isEmpty() && pending.firstKey() == nextToWrite) {
+            writer.println(pending.pollFirstEntry().getValue());
+            nextToWrite++;
+            inFlight.release();
+        }
+    }
+
+    // 复盘并分析一局，返回注释文本
+    private String analyze(Job job) {
+        GameRecord record = job.record;
+        Boolean[][] board = new Boolean[BOARD_SIZE][BOARD_SIZE];
+        MoveStack history = new MoveStack(BOARD_SIZE * BOARD_SIZE);
+        WinDetector detector = new WinDetector(rule);
+        long hash = 0;
+        // before[i]为第i手之前的局面对轮到的一方的评估
+        Evaluation[] before = new Evaluation[record.size() + 1];
+        String stopReason = null;
+        int length = 0;
+        boolean won = false;
+
+        for (int i = 0; i < record.size(); i++) {
+            int x = record.getX(i);
+            int y = record.getY(i);
+            boolean player = record.isBlack(i);
+            if (board[x][y] != null) {
+                stopReason = "第" + (i + 1) + "手落在已有棋子的位置，之后不再分析";
+                break;
+            }
+            if (rule.hasForbiddenMoves() && rule.isForbidden(board, x, y, player)) {
+                stopReason = "第" + (i + 1) + "手是禁手，之后不再分析";
+                break;
+            }
+            before[i] = evaluate(board, history, detector, player, hash, 0);
+            positions.incrementAndGet();
+            board[x][y] = player;
+            history.push(Move.encode(x, y, player));
+            hash ^= Zobrist.key(x, y, player);
+            length = i + 1;
+            if (detector.place(x, y, player)) {
+                won = true;
+                if (i != record.size() - 1) {
+                    stopReason = "第" + (i + 1) + "手已经连成五子，之后的落子不再分析";
+                }
+                break;
+            }
+        }
+        // 最后一手之后的局面，用来计算最后一手的得失
+        if (!won && length > 0 && length < BOARD_SIZE * BOARD_SIZE) {
+            before[length] = evaluate(board, history, detector, length % 2 == 0, hash, 0);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        List<String> notes = new ArrayList<>();
+        int skippedMoves = 0;
+        for (int i = 0; i < length; i++) {
+            Evaluation best = before[i];
+            if (best.bestMove == Move.NONE) {
+                continue;
+            }
+            boolean finalWin = won && i == length - 1;
+            if (!best.analysed || (!finalWin && before[i + 1] != null && !before[i + 1].analysed)) {
+                // 没有可靠的分数，既不能判为失误也不能当作好棋，单独列出
+                unanalysed.incrementAndGet();
+                skippedMoves++;
+                notes.add(String.format("  第%d手 %s %d,%d 未分析：每步%d个节点内没有完成一轮搜索", i + 1,
+                        record.isBlack(i) ? "黑" : "白", record.getX(i), record.getY(i), nodes));
+                continue;
+            }
+            int played;
+            if (finalWin) {
+                played = AILogic.WIN_SCORE;
+            } else if (before[i + 1] != null) {
+                played = -before[i + 1].score;
+            } else {
+                continue;
+            }
+            int loss = best.score - played;
+            if (loss <= threshold || best.bestMove == Move.encode(record.getX(i), record.getY(i), record.isBlack(i))) {
+                continue;
+            }
+            blunders.incrementAndGet();
+            boolean decisive = (played <= -AILogic.WIN_SCORE / 2 && best.score > -AILogic.WIN_SCORE / 2)
+                    || (best.score >= AILogic.WIN_SCORE / 2 && played < AILogic.WIN_SCORE / 2);
+            notes.add(String.format("  第%d手 %s %d,%d %s 分数%d，最佳 %d,%d 分数%d，损失%d", i + 1,
+                    record.isBlack(i) ? "黑" : "白", record.getX(i), record.getY(i), decisive ? "??" : "?", played,
+                    Move.getX(best.bestMove), Move.getY(best.bestMove), best.score, loss));
+        }
+
+        sb.append("== ").append(job.source).append(" 结果").append(record.getResult()).append('，').append(record.size())
+                .append("手，失误").append(notes.size() - skippedMoves).append("处");
+        if (skippedMoves > 0) {
+            sb.append("，未分析").append(skippedMoves).append("手");
+        }
+        if (stopReason != null) {
+            sb.append("\n  ").append(stopReason);
+        }
+        for (String note : notes) {
+            sb.append('\n').append(note);
+        }
+        return sb.toString();
+    }
+
+    // 分析局面，先查共享缓存；只有强制落子时沿着强制落子往下走，用之后局面的分数
+    private Evaluation evaluate(Boolean[][] board, MoveStack history, WinDetector detector, boolean player, long hash,
+                                int forcedPlies) {
+        long key = Zobrist.withSide(hash, player);
+        CompletableFuture<Evaluation> future = cache.get(key);
+        if (future != null) {
+            cacheHits.incrementAndGet();
+            return future.join();
+        }
+        CompletableFuture<Evaluation> own = null;
+        if (cache.size() < cacheLimit) {
+            own = new CompletableFuture<>();
+            future = cache.putIfAbsent(key, own);
+            if (future != null) {
+                cacheHits.incrementAndGet();
+                return future.join();
+            }
+        }
+        try {
+            Evaluation evaluation = search(board, history, detector, player, hash, forcedPlies);
+            if (own != null) {
+                own.complete(evaluation);
+            }
+            return evaluation;
+        } catch (RuntimeException e) {
+            if (own != null) {
+                cache.remove(key);
+                own.completeExceptionally(e);
+            }
+            throw e;
+        }
+    }
+
+    private Evaluation search(Boolean[][] board, MoveStack history, WinDetector detector, boolean player, long hash,
+                              int forcedPlies) {
+        searches.incrementAndGet();
+        SearchResult result = AILogic.findBestMoveBudget(board, history, player, budget, 0, SearchOptions.all());
+        if (result == null) {
+            return new Evaluation(Move.NONE, 0);
+        }
+        int x = result.move.x;
+        int y = result.move.y;
+        int move = Move.encode(x, y, player);
+        if (!result.forced) {
+            // 预算用完时一轮都没搜完，深度为0，分数不可用
+            return new Evaluation(move, result.score, result.depth > 0);
+        }
+
+        // 强制落子没有经过搜索，分数无意义：能连五时是必胜，否则是必须的挡法，看挡住之后的局面
+        board[x][y] = player;
+        history.push(move);
+        boolean win = detector.place(x, y, player);
+        int score;
+        boolean analysed = true;
+        if (win) {
+            score = AILogic.WIN_SCORE;
+        } else if (forcedPlies >= MAX_FORCED_PLIES || history.size() == BOARD_SIZE * BOARD_SIZE) {
+            score = 0;
+        } else {
+            Evaluation next = evaluate(board, history, detector, !player, hash ^ Zobrist.key(x, y, player), forcedPlies + 1);
+            score = -next.score;
+            analysed = next.analysed;
+        }
+        detector.undo(x, y);
+        history.pop();
+        board[x][y] = null;
+        return new Evaluation(move, score, analysed);
+    }
+}
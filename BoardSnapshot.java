@@ -0,0 +1,106 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// 这个类是某一时刻对局状态的不可变快照，由GameCore在每次真实落子、悔棋、跳转后发布
+// 界面、提示和状态栏只读快照，不会看到AI搜索时在棋盘上模拟的棋子，也不必和搜索线程加锁
+class BoardSnapshot {
+    private static final int BOARD_SIZE = 15;
+
+    // 快照的版本号，每发布一次加一，界面据此判断局面是否变化
+    private final long version;
+    private final Boolean[][] board;
+    // 按落子顺序排列的所有落子，使用Move.encode编码
+    private final int[] moves;
+    private final boolean currentPlayer;
+    private final boolean gameOver;
+    private final boolean timedOut;
+    private final List<Move> winningMoves;
+    private final Move hintMove;
+    private final int currentNode;
+
+    BoardSnapshot(long version, Boolean[][] board, MoveStack moveHistory, boolean currentPlayer, boolean gameOver,
+                  boolean timedOut, List<Move> winningMoves, Move hintMove, int currentNode) {
+        this.version = version;
+        this.board = copyOf(board);
+        this.moves = new int[moveHistory.size()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = moveHistory.get(i);
+        }
+        this.currentPlayer = currentPlayer;
+        this.gameOver = gameOver;
+        this.timedOut = timedOut;
+        this.winningMoves = Collections.unmodifiableList(new ArrayList<>(winningMoves));
+        this.hintMove = hintMove;
+        this.currentNode = currentNode;
+    }
+
+    private static Boolean[][] copyOf(Boolean[][] source) {
+        Boolean[][] copy = new Boolean[BOARD_SIZE][];
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            copy[i] = source[i].clone();
+        }
+        return copy;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // (x,y)上的棋子，null表示空
+    public Boolean get(int x, int y) {
+        return board[x][y];
+    }
+
+    // 棋盘的可修改副本，用于禁手判断、搜索等需要Boolean[][]的地方
+    public Boolean[][] copyBoard() {
+        return copyOf(board);
+    }
+
+    // 落子历史的副本
+    public MoveStack copyMoveHistory() {
+        MoveStack history = new MoveStack(BOARD_SIZE * BOARD_SIZE);
+        for (int move : moves) {
+            history.push(move);
+        }
+        return history;
+    }
+
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    // 第index手，从0开始
+    public int getMove(int index) {
+        return moves[index];
+    }
+
+    // 最后一手，没有落子时返回Move.NONE
+    public int getLastMove() {
+        return moves.length == 0 ? Move.NONE : moves[moves.length - 1];
+    }
+
+    public boolean isCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public List<Move> getWinningMoves() {
+        return winningMoves;
+    }
+
+    public Move getHintMove() {
+        return hintMove;
+    }
+
+    public int getCurrentNode() {
+        return currentNode;
+    }
+}
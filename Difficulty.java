@@ -0,0 +1,44 @@
+// 这个类定义AI的难度：每步最多搜索的节点数和叶节点评估的噪声幅度
+// 节点预算与机器快慢无关，同一难度在快慢不同的机器上棋力一致；噪声由局面哈希和种子决定，给定局面和种子时每一步都可以完全复现
+class Difficulty {
+    // 各级难度，下标加一即难度级别
+    private static final Difficulty[] LEVELS = {
+        new Difficulty("入门", 500, 1500),
+        new Difficulty("简单", 3_000, 600),
+        new Difficulty("中等", 20_000, 200),
+        new Difficulty("困难", 100_000, 50),
+        new Difficulty("大师", 300_000, 0),
+    };
+
+    final String name;
+    // 每步最多搜索的节点数
+    final long nodeBudget;
+    // 叶节点评估加上的噪声的最大幅度，0表示不加噪声
+    final int noise;
+
+    Difficulty(String name, long nodeBudget, int noise) {
+        if (nodeBudget <= 0 || noise < 0) {
+            throw new IllegalArgumentException("节点预算必须为正数，噪声不能为负数");
+        }
+        this.name = name;
+        this.nodeBudget = nodeBudget;
+        this.noise = noise;
+    }
+
+    // 第level级难度，从1开始
+    public static Difficulty of(int level) {
+        if (level < 1 || level > LEVELS.length) {
+            throw new IllegalArgumentException("难度级别必须在1-" + LEVELS.length + "之间");
+        }
+        return LEVELS[level - 1];
+    }
+
+    public static int getLevelCount() {
+        return LEVELS.length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s(%d节点, 噪声%d)", name, nodeBudget, noise);
+    }
+}
@@ -0,0 +1,48 @@
+// 这个类是自我对弈和对抗测试中一方引擎的设置：搜索选项加上每步的节点预算和评估噪声
+// 文本形式为"选项@节点数"或"选项@节点数~噪声"，例如"pvs,asp,lmr@20000"、"none@20000~200"；"L3"表示第3级难度的默认设置
+class EngineConfig {
+    final String name;
+    final SearchOptions options;
+    final Difficulty difficulty;
+
+    public EngineConfig(String name, SearchOptions options, Difficulty difficulty) {
+        this.name = name;
+        this.options = options;
+        this.difficulty = difficulty;
+    }
+
+    // 第level级难度，全部搜索优化开启
+    public static EngineConfig ofLevel(int level) {
+        return new EngineConfig("L" + level, SearchOptions.all(), Difficulty.of(level));
+    }
+
+    public static EngineConfig parse(String text) {
+        text = text.trim();
+        if (text.length() > 1 && text.charAt(0) == 'L' && Character.isDigit(text.charAt(1))) {
+            return ofLevel(Integer.parseInt(text.substring(1)));
+        }
+        int at = text.indexOf('@');
+        if (at < 0) {
+            throw new IllegalArgumentException("引擎设置缺少节点数: " + text);
+        }
+        SearchOptions options = SearchOptions.parse(text.substring(0, at));
+        String budget = text.substring(at + 1);
+        int noise = 0;
+        int tilde = budget.indexOf('~');
+        if (tilde >= 0) {
+            noise = Integer.parseInt(budget.substring(tilde + 1));
+            budget = budget.substring(0, tilde);
+        }
+        return new EngineConfig(text, options, new Difficulty(text, Long.parseLong(budget), noise));
+    }
+
+    // 按节点预算搜索，结果只由局面和seed决定
+    public SearchResult findMove(Boolean[][] board, MoveStack moveHistory, boolean player, long seed) {
+        return AILogic.findBestMoveBudget(board, moveHistory, player, difficulty, seed, options);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
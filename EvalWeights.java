@@ -0,0 +1,103 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+// 这个类保存AILogic评估函数中各棋型的分值，可以从文本文件读取或写入
+// 文件每行一个"棋型名=分值"，以#开头的行是注释，未出现的棋型使用默认分值
+class EvalWeights {
+    // 棋型编号
+    public static final int NONE = -1;
+    public static final int FIVE = 0;
+    public static final int FOUR = 1;
+    public static final int LIVE_THREE = 2;
+    public static final int DEAD_THREE = 3;
+    public static final int LIVE_TWO = 4;
+    public static final int DEAD_TWO = 5;
+    public static final int COUNT = 6;
+
+    private static final String[] NAMES = {"five", "four", "live_three", "dead_three", "live_two", "dead_two"};
+    // 原来手工设定的分值
+    private static final int[] DEFAULTS = {100000, 10000, 1000, 100, 10, 5};
+
+    private final int[] values;
+
+    public EvalWeights() {
+        this(DEFAULTS);
+    }
+
+    public EvalWeights(int[] values) {
+        if (values.length != COUNT) {
+            throw new IllegalArgumentException("棋型权重数量必须为" + COUNT);
+        }
+        this.values = Arrays.copyOf(values, COUNT);
+    }
+
+    public int get(int pattern) {
+        return values[pattern];
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, COUNT);
+    }
+
+    // 全部分值的指纹，用来区分不同权重下的搜索结果
+    public long fingerprint() {
+        long hash = 0;
+        for (int value : values) {
+            hash = (hash + value) * 0x9E3779B97F4A7C15L;
+            hash ^= hash >>> 29;
+        }
+        return hash;
+    }
+
+    public static String getName(int pattern) {
+        return NAMES[pattern];
+    }
+
+    public static EvalWeights load(File file) throws IOException {
+        int[] values = Arrays.copyOf(DEFAULTS, COUNT);
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int eq = line.indexOf('=');
+                if (eq < 0) {
+                    throw new IllegalArgumentException("无效的权重行: " + line);
+                }
+                int pattern = Arrays.asList(NAMES).indexOf(line.substring(0, eq).trim());
+                if (pattern < 0) {
+                    throw new IllegalArgumentException("未知的棋型: " + line);
+                }
+                values[pattern] = Integer.parseInt(line.substring(eq + 1).trim());
+            }
+        }
+        return new EvalWeights(values);
+    }
+
+    public void save(File file, String comment) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+            if (comment != null) {
+                writer.println("# " + comment);
+            }
+            for (int i = 0; i < COUNT; i++) {
+                writer.println(NAMES[i] + "=" + values[i]);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < COUNT; i++) {
+            sb.append(i == 0 ? "" : ", ").append(NAMES[i]).append('=').append(values[i]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,22 @@
+// 这个类实现无禁手的自由规则，五子及以上连珠均算获胜
+class FreestyleRule implements GameRule {
+    @Override
+    public String getName() {
+        return "自由规则";
+    }
+
+    @Override
+    public boolean isExactFiveRequired(boolean player) {
+        return false;
+    }
+
+    @Override
+    public boolean hasForbiddenMoves() {
+        return false;
+    }
+
+    @Override
+    public boolean isForbidden(Boolean[][] board, int x, int y, boolean player) {
+        return false;
+    }
+}
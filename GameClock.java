@@ -0,0 +1,160 @@
+// 这个类是对局双方的棋钟：每方有基本用时，每走一步加秒（increment）；基本用时用完后进入读秒（byoyomi），
+// 每手须在一个读秒周期内走完，超出一个周期就消耗一次读秒，读秒次数用完或者没有读秒时基本用时用完即超时
+// 落子线程和界面线程都会访问，所有方法都加了同步
+class GameClock {
+    private static final int BLACK = 0;
+    private static final int WHITE = 1;
+
+    private final long mainNanos;
+    private final long incrementNanos;
+    private final long periodNanos;
+    private final int periods;
+
+    // 双方剩余的基本用时和读秒次数，不含正在计时的这一手
+    private final long[] remaining = new long[2];
+    private final int[] periodsLeft = new int[2];
+    private final boolean[] flagged = new boolean[2];
+    // 正在计时的一方，-1表示棋钟停着
+    private int running = -1;
+    private long startedAt;
+
+    public GameClock(long mainMillis, long incrementMillis, long periodMillis, int periods) {
+        if (mainMillis < 0 || incrementMillis < 0 || periodMillis < 0 || periods < 0) {
+            throw new IllegalArgumentException("用时设置不能为负数");
+        }
+        if (mainMillis == 0 && (periodMillis == 0 || periods == 0)) {
+            throw new IllegalArgumentException("必须设置基本用时或读秒");
+        }
+        this.mainNanos = mainMillis * 1_000_000L;
+        this.incrementNanos = incrementMillis * 1_000_000L;
+        this.periodNanos = periodMillis * 1_000_000L;
+        this.periods = periodMillis > 0 ? periods : 0;
+        reset();
+    }
+
+    // 恢复到开局时的用时，棋钟停止
+    public synchronized void reset() {
+        for (int side = BLACK; side <= WHITE; side++) {
+            remaining[side] = mainNanos;
+            periodsLeft[side] = periods;
+            flagged[side] = false;
+        }
+        running = -1;
+    }
+
+    // 开始为player计时；另一方正在计时时先结束它的这一手
+    public synchronized void start(boolean player) {
+        stop();
+        running = side(player);
+        startedAt = System.nanoTime();
+    }
+
+    // 停止计时并记入正在计时一方的用时，返回这一手用的时间（纳秒），棋钟本来就停着时返回0
+    public synchronized long stop() {
+        if (running < 0) {
+            return 0;
+        }
+        long spent = System.nanoTime() - startedAt;
+        charge(running, spent);
+        running = -1;
+        return spent;
+    }
+
+    // 把一手的用时记到side上：先扣基本用时，不够时按超出的整周期数扣读秒次数；基本用时没用完时才加秒
+    private void charge(int side, long spent) {
+        long main = remaining[side] - spent;
+        if (main >= 0) {
+            remaining[side] = main + incrementNanos;
+            return;
+        }
+        remaining[side] = 0;
+        long over = -main;
+        if (periods == 0) {
+            flagged[side] = true;
+            return;
+        }
+        periodsLeft[side] -= (int) Math.min(Integer.MAX_VALUE, over / periodNanos);
+        if (periodsLeft[side] <= 0) {
+            periodsLeft[side] = 0;
+            flagged[side] = true;
+        }
+    }
+
+    // 正在计时的这一手已经用掉的时间
+    private long pending(int side) {
+        return running == side ? System.nanoTime() - startedAt : 0;
+    }
+
+    // 剩余的基本用时（毫秒），包含正在计时的这一手
+    public synchronized long getRemainingMillis(boolean player) {
+        int side = side(player);
+        return Math.max(0, remaining[side] - pending(side)) / 1_000_000L;
+    }
+
+    // 是否已经进入读秒
+    public synchronized boolean isInByoyomi(boolean player) {
+        int side = side(player);
+        return periods > 0 && remaining[side] - pending(side) <= 0;
+    }
+
+    // 剩余的读秒次数，包含正在计时的这一手已经超出的周期
+    public synchronized int getPeriodsLeft(boolean player) {
+        int side = side(player);
+        long over = pending(side) - remaining[side];
+        if (over <= 0 || periods == 0) {
+            return periodsLeft[side];
+        }
+        return (int) Math.max(0, periodsLeft[side] - over / periodNanos);
+    }
+
+    // 当前读秒周期还剩的时间（毫秒），不在读秒时返回一个完整周期
+    public synchronized long getPeriodRemainingMillis(boolean player) {
+        int side = side(player);
+        long over = pending(side) - remaining[side];
+        if (over <= 0 || periods == 0) {
+            return periodNanos / 1_000_000L;
+        }
+        return (periodNanos - over % periodNanos) / 1_000_000L;
+    }
+
+    // 是否已经超时，包含正在计时的这一手
+    public synchronized boolean isFlagged(boolean player) {
+        int side = side(player);
+        if (flagged[side]) {
+            return true;
+        }
+        long over = pending(side) - remaining[side];
+        if (over <= 0) {
+            return false;
+        }
+        return periods == 0 || over / periodNanos >= periodsLeft[side];
+    }
+
+    public long getIncrementMillis() {
+        return incrementNanos / 1_000_000L;
+    }
+
+    public long getPeriodMillis() {
+        return periodNanos / 1_000_000L;
+    }
+
+    public int getPeriods() {
+        return periods;
+    }
+
+    // 显示用的剩余时间，例如"09:58"或"读秒 25秒 (3次)"
+    public synchronized String format(boolean player) {
+        if (isFlagged(player)) {
+            return "超时";
+        }
+        if (getRemainingMillis(player) > 0) {
+            long seconds = (getRemainingMillis(player) + 999) / 1000;
+            return String.format("%02d:%02d", seconds / 60, seconds % 60);
+        }
+        return "读秒 " + (getPeriodRemainingMillis(player) + 999) / 1000 + "秒 (" + getPeriodsLeft(player) + "次)";
+    }
+
+    private static int side(boolean player) {
+        return player ? BLACK : WHITE;
+    }
+}
@@ -0,0 +1,172 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// 这个类批量转换棋谱格式，每个输入文件在线程池中单独转换，逐局读取和写出，内存占用与文件大小无关
+// 输出文件放在输出目录中，文件名与输入相同，扩展名换成目标格式；换扩展名后重名的输入（例如a.psq和a.sgf）保留原扩展名，
+// 写成a.psq.txt，仍然重名时不转换。某一局内容无效时跳过这一局并计数
+// 输入也可以是GameCore的存档，按文件内容识别
+// 用法：java GameConverter [-threads 线程数] <目标格式txt|psq|rif|sgf> <输出目录> <输入文件或目录>...
+class GameConverter {
+
+    // 一个文件的转换结果
+    private static class FileResult {
+        final File input;
+        int games;
+        int skipped;
+        String error;
+
+        FileResult(File input) {
+            this.input = input;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int i = 0;
+        if (args.length > 1 && args[0].equals("-threads")) {
+            threads = Integer.parseInt(args[1]);
+            i = 2;
+        }
+        if (args.length - i < 3) {
+            System.out.println("用法: java GameConverter [-threads 线程数] <目标格式txt|psq|rif|sgf> <输出目录> <输入文件或目录>...");
+            return;
+        }
+        String format = args[i].toLowerCase();
+        if (!GameFormats.isSupported(format)) {
+            System.out.println("不支持的目标格式: " + format);
+            return;
+        }
+        File outputDir = new File(args[i + 1]);
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            System.out.println("无法创建输出目录: " + outputDir);
+            return;
+        }
+
+        List<File> inputs = new ArrayList<>();
+        for (int j = i + 2; j < args.length; j++) {
+            collectInputs(new File(args[j]), inputs);
+        }
+        // 提交任务之前确定全部输出文件，两个任务同时写同一个文件会互相覆盖
+        List<File> outputs = outputFiles(inputs, outputDir, format);
+        if (outputs == null) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        long bytes = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<FileResult>> futures = new ArrayList<>();
+        try {
+            for (int j = 0; j < inputs.size(); j++) {
+                File input = inputs.get(j);
+                File output = outputs.get(j);
+                bytes += input.length();
+                futures.add(executor.submit(() -> convert(input, output)));
+            }
+            int games = 0;
+            int skipped = 0;
+            int failed = 0;
+            for (Future<FileResult> future : futures) {
+                FileResult result = future.get();
+                games += result.games;
+                skipped += result.skipped;
+                if (result.error != null) {
+                    failed++;
+                    System.out.println(result.input + ": " + result.error);
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d个文件，转换%d局，跳过%d局，%d个文件出错，用时%.1f秒，%.1f MB/s%n", inputs.size(), games,
+                    skipped, failed, seconds, bytes / 1e6 / seconds);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // 文件直接加入；目录中加入所有支持格式的文件和存档，不进入子目录
+    private static void collectInputs(File file, List<File> inputs) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children == null) {
+                return;
+            }
+            java.util.Arrays.sort(children);
+            for (File child : children) {
+                if (child.isFile() && (GameFormats.isSupported(GameFormats.extensionOf(child)) || GameFormats.isSaveFile(child))) {
+                    inputs.add(child);
+                }
+            }
+        } else {
+            inputs.add(file);
+        }
+    }
+
+    // 每个输入对应的输出文件，有两个输入会写到同一个文件时返回null
+    private static List<File> outputFiles(List<File> inputs, File outputDir, String format) {
+        // 文件系统可能不区分大小写，按小写比较
+        Map<String, Integer> baseNames = new HashMap<>();
+        for (File input : inputs) {
+            baseNames.merge(baseName(input).toLowerCase(), 1, Integer::sum);
+        }
+        Map<String, File> used = new HashMap<>();
+        List<File> outputs = new ArrayList<>();
+        for (File input : inputs) {
+            String name = baseNames.get(baseName(input).toLowerCase()) > 1 ? input.getName() : baseName(input);
+            File output = new File(outputDir, name + "." + format);
+            File previous = used.put(output.getName().toLowerCase(), input);
+            if (previous != null) {
+                System.out.println(previous + " 和 " + input + " 的输出文件都是 " + output + "，请分开转换");
+                return null;
+            }
+            outputs.add(output);
+        }
+        return outputs;
+    }
+
+    private static String baseName(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? name : name.substring(0, dot);
+    }
+
+    private static FileResult convert(File input, File output) {
+        FileResult result = new FileResult(input);
+        try {
+            if (output.getCanonicalFile().equals(input.getCanonicalFile())) {
+                result.error = "输出文件与输入文件相同";
+                return result;
+            }
+        } catch (IOException e) {
+            result.error = e.getMessage();
+            return result;
+        }
+        try (GameRecordReader reader = GameFormats.openReader(input);
+             GameRecordWriter writer = GameFormats.openWriter(output)) {
+            while (true) {
+                GameRecord record;
+                try {
+                    record = reader.next();
+                } catch (IllegalArgumentException e) {
+                    result.skipped++;
+                    continue;
+                }
+                if (record == null) {
+                    break;
+                }
+                writer.write(record);
+                result.games++;
+            }
+        } catch (IOException e) {
+            result.error = e.getMessage();
+        }
+        return result;
+    }
+}
@@ -1,455 +1,1053 @@
-import javax.swing.JFileChooser;
-import javax.swing.JOptionPane;
-import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Stack;
-
-// 这个类负责游戏的核心逻辑，包括初始化棋盘、落子、检查胜负、悔棋等操作
-class GameCore {
-    private static final int BOARD_SIZE = 15;
-    private static final int UNDO_LIMIT = 10;
-    private GomokuGameUI gameUI;
-
-    // 当前玩家，true为黑棋，false为白棋
-    private boolean currentPlayer = true;
-    // 游戏是否结束
-    private boolean gameOver = false;
-    // 棋盘状态，null表示空，true表示黑棋，false表示白棋
-    private Boolean[][] board = new Boolean[BOARD_SIZE][BOARD_SIZE];
-    // 历史记录，用于悔棋
-    private Stack<Move> moveHistory = new Stack<>();
-    // 人机对战模式
-    private boolean aiMode = false;
-    // AI难度，1-3级
-    private int aiDifficulty = 2;
-
-    // 记录获胜的连珠位置
-    private List<Move> winningMoves = new ArrayList<>();
-
-    // 提示的落子位置
-    private Move hintMove = null;
-
-    // 初始化棋盘
-    public void initBoard() {
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                board[i][j] = null;
-            }
-        }
-        currentPlayer = true;
-        gameOver = false;
-        moveHistory.clear();
-        winningMoves.clear(); // 清空获胜连珠记录
-        hintMove = null; // 清空提示
-    }
-
-    // 落子
-    public boolean placeStone(int x, int y) {
-        // 检查坐标是否在棋盘内
-        if (x < 0 || x >= BOARD_SIZE || y < 0 || y >= BOARD_SIZE) {
-            return false;
-        }
-
-        // 检查该位置是否已经有棋子
-        if (board[x][y] != null) {
-            return false;
-        }
-
-        // 检查游戏是否结束
-        if (gameOver) {
-            return false;
-        }
-
-        // 落子
-        board[x][y] = currentPlayer;
-        moveHistory.push(new Move(x, y, currentPlayer));
-        hintMove = null; // 落子后清空提示
-
-        // 检查是否有玩家获胜
-        if (checkWin(x, y)) {
-            gameOver = true;
-            JOptionPane.showMessageDialog(null,
-                    (currentPlayer ? "黑棋" : "白棋") + "获胜！",
-                    "游戏结束",
-                    JOptionPane.INFORMATION_MESSAGE);
-        if (gameUI != null) {
-            gameUI.getBoardPanel().repaint();
-            gameUI.getStatusPanel().updateStatus();
-        }
-            return true;
-        }
-
-        // 检查是否平局
-        if (checkDraw()) {
-            gameOver = true;
-            JOptionPane.showMessageDialog(null, "平局！", "游戏结束", JOptionPane.INFORMATION_MESSAGE);
-            if (gameUI != null) {
-                gameUI.getBoardPanel().repaint();
-                gameUI.getStatusPanel().updateStatus(); // 更新状态面板
-            }
-            return true;
-        }
-
-        // 切换玩家
-        currentPlayer = !currentPlayer;
-
-        return true;
-    }
-
-    // 添加设置游戏界面的方法
-    public void setGameUI(GomokuGameUI gameUI) {
-        this.gameUI = gameUI;
-    }
-    // AI落子
-    public void makeAIMove() {
-        // 根据AI难度选择不同的策略
-        Move bestMove = null;
-
-        switch (aiDifficulty) {
-            case 1:
-                bestMove = AILogic.findBestMoveEasy(board);
-                break;
-            case 2:
-                bestMove = AILogic.findBestMoveMedium(board, moveHistory);
-                break;
-            case 3:
-                bestMove = AILogic.findBestMoveHard(board, moveHistory);
-                break;
-            default:
-                bestMove = AILogic.findBestMoveMedium(board, moveHistory);
-        }
-
-        if (bestMove != null) {
-            board[bestMove.x][bestMove.y] = currentPlayer;
-            moveHistory.push(bestMove);
-            hintMove = null; // AI落子后清空提示
-
-            // 检查是否有玩家获胜
-            if (checkWin(bestMove.x, bestMove.y)) {
-                gameOver = true;
-                JOptionPane.showMessageDialog(null,
-                        "白棋(AI)获胜！",
-                        "游戏结束",
-                        JOptionPane.INFORMATION_MESSAGE);
-                if (gameUI != null) {
-                    gameUI.getBoardPanel().repaint();
-                    gameUI.getStatusPanel().updateStatus(); // 更新状态面板
-                }
-                return;
-            }
-
-            // 检查是否平局
-            if (checkDraw()) {
-                gameOver = true;
-                JOptionPane.showMessageDialog(null, "平局！", "游戏结束", JOptionPane.INFORMATION_MESSAGE);
-                if (gameUI != null) {
-                    gameUI.getBoardPanel().repaint();
-                    gameUI.getStatusPanel().updateStatus(); // 更新状态面板
-                }
-                return;
-            }
-
-            // 切换玩家
-            currentPlayer = !currentPlayer;
-        }
-    }
-
-    // 检查是否有玩家获胜
-    private boolean checkWin(int x, int y) {
-        Boolean player = board[x][y];
-
-        // 定义方向数组：水平、垂直、左上到右下、右上到左下
-        int[][] directions = {
-            {1, 0}, {0, 1}, {1, 1}, {1, -1}
-        };
-
-        // 检查每个方向
-        for (int[] dir : directions) {
-            int dx = dir[0];
-            int dy = dir[1];
-            int count = 1;
-            List<Move> currentMoves = new ArrayList<>();
-            currentMoves.add(new Move(x, y, player));
-
-            // 检查正方向
-            for (int i = 1; i < 5; i++) {
-                int nx = x + dx * i;
-                int ny = y + dy * i;
-
-                if (nx >= 0 && nx < BOARD_SIZE && ny >= 0 && ny < BOARD_SIZE && 
-                    board[nx][ny] == player) {
-                    count++;
-                    currentMoves.add(new Move(nx, ny, player));
-                } else {
-                    break;
-                }
-            }
-
-            // 检查反方向
-            for (int i = 1; i < 5; i++) {
-                int nx = x - dx * i;
-                int ny = y - dy * i;
-
-                if (nx >= 0 && nx < BOARD_SIZE && ny >= 0 && ny < BOARD_SIZE && 
-                    board[nx][ny] == player) {
-                    count++;
-                    currentMoves.add(new Move(nx, ny, player));
-                } else {
-                    break;
-                }
-            }
-
-            // 如果有连续五个相同的棋子，则获胜
-            if (count >= 5) {
-                winningMoves = currentMoves; // 记录获胜的连珠位置
-                return true;
-            }
-        }
-
-        return false;
-    }
-
-    // 检查是否平局
-    private boolean checkDraw() {
-        // 如果棋盘已满且没有人获胜，则平局
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                if (board[i][j] == null) {
-                    return false;
-                }
-            }
-        }
-        return true;
-    }
-
-    // 悔棋
-    public void undo(int steps) {
-        // 检查是否可以悔棋
-        if (moveHistory.isEmpty()) {
-            JOptionPane.showMessageDialog(null, "无法悔棋，没有历史记录！", "提示", JOptionPane.INFORMATION_MESSAGE);
-            return;
-        }
-
-        // 限制悔棋步数
-        steps = Math.min(steps, moveHistory.size());
-        steps = Math.min(steps, UNDO_LIMIT);
-
-        // 悔棋
-        for (int i = 0; i < steps; i++) {
-            Move move = moveHistory.pop();
-            board[move.x][move.y] = null;
-            currentPlayer = move.player; // 回到上一个玩家
-        }
-
-        // 更新游戏状态
-        gameOver = false;
-        winningMoves.clear(); // 清空获胜连珠记录
-        hintMove = null; // 悔棋后清空提示
-    }
-
-    // 投降
-    public void surrender() {
-        if (gameOver) {
-            JOptionPane.showMessageDialog(null, "游戏已结束！", "提示", JOptionPane.INFORMATION_MESSAGE);
-            return;
-        }
-
-        // 当前玩家投降
-        gameOver = true;
-
-        // 显示提示框
-        JOptionPane.showMessageDialog(null, 
-                (currentPlayer ? "黑棋" : "白棋") + "投降！\n" + 
-                (!currentPlayer ? "黑棋" : "白棋") + "获胜！", 
-                "游戏结束", 
-                JOptionPane.INFORMATION_MESSAGE);
-    }
-
-    // 设置AI难度
-    public void setAIDifficulty(int difficulty) {
-        if (difficulty < 1 || difficulty > 3) {
-            JOptionPane.showMessageDialog(null, "难度级别必须在1-3之间！", "提示", JOptionPane.INFORMATION_MESSAGE);
-            return;
-        }
-
-        aiDifficulty = difficulty;
-        JOptionPane.showMessageDialog(null, "AI难度已设置为：" + getDifficultyName(aiDifficulty), "设置成功", JOptionPane.INFORMATION_MESSAGE);
-    }
-
-    // 获取难度名称 - 修改为public访问修饰符
-    public String getDifficultyName(int difficulty) {
-        switch (difficulty) {
-            case 1:
-                return "困难";
-            case 2:
-                return "中等";
-            case 3:
-                return "简单";
-            default:
-                return "中等";
-        }
-    }
-
-    // 显示提示
-    public void showHint() {
-        if (gameOver) {
-            JOptionPane.showMessageDialog(null, "游戏已结束，无法提示！", "提示", JOptionPane.INFORMATION_MESSAGE);
-            return;
-        }
-
-        if (aiMode && !currentPlayer) {
-            JOptionPane.showMessageDialog(null, "当前轮到AI，无法提示！", "提示", JOptionPane.INFORMATION_MESSAGE);
-            return;
-        }
-
-        Move bestMove = null;
-        if (currentPlayer) {
-            // 玩家是黑棋，模拟玩家落子
-            bestMove = findBestMoveForPlayer(true);
-        } else {
-            // 玩家是白棋，模拟玩家落子
-            bestMove = findBestMoveForPlayer(false);
-        }
-
-        if (bestMove != null) {
-            hintMove = bestMove;
-        }
-    }
-
-    // 为玩家找到最佳落子位置
-    private Move findBestMoveForPlayer(boolean isPlayer) {
-        Move bestMove = null;
-        int bestScore = 0;
-
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                if (board[i][j] == null) {
-                    // 计算玩家落子的分数
-                    board[i][j] = isPlayer;
-                    int score = AILogic.evaluatePosition(i, j, isPlayer, board);
-                    board[i][j] = null;
-
-                    // 如果分数更高，或者分数相同但更靠近中心，则选择这个位置
-                    if (score > bestScore || (score == bestScore && AILogic.isCloserToCenter(i, j, bestMove))) {
-                        bestScore = score;
-                        bestMove = new Move(i, j, isPlayer);
-                    }
-                }
-            }
-        }
-
-        return bestMove;
-    }
-
-    // 保存游戏存档
-    public void saveGame() {
-        JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setDialogTitle("保存游戏存档");
-        int userSelection = fileChooser.showSaveDialog(null);
-
-        if (userSelection == JFileChooser.APPROVE_OPTION) {
-            java.io.File fileToSave = fileChooser.getSelectedFile();
-            try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(fileToSave))) {
-                oos.writeObject(currentPlayer);
-                oos.writeObject(gameOver);
-                oos.writeObject(board);
-                oos.writeObject(moveHistory);
-                oos.writeObject(aiMode);
-                oos.writeObject(aiDifficulty);
-                oos.writeObject(winningMoves);
-                oos.writeObject(hintMove);
-                JOptionPane.showMessageDialog(null, "游戏存档保存成功！", "保存成功", JOptionPane.INFORMATION_MESSAGE);
-            } catch (IOException e) {
-                JOptionPane.showMessageDialog(null, "保存游戏存档时出错：" + e.getMessage(), "保存失败", JOptionPane.ERROR_MESSAGE);
-            }
-        }
-    }
-
-    // 读取游戏存档
-    public void loadGame() {
-        JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setDialogTitle("选择游戏存档文件");
-        int userSelection = fileChooser.showOpenDialog(null);
-        if (userSelection == JFileChooser.APPROVE_OPTION) {
-            java.io.File fileToLoad = fileChooser.getSelectedFile();
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(fileToLoad))) {
-                currentPlayer = (boolean) ois.readObject();
-                gameOver = (boolean) ois.readObject();
-                board = (Boolean[][]) ois.readObject();
-                
-                // 使用注解抑制类型安全警告
-                @SuppressWarnings("unchecked")
-                Stack<Move> loadedMoveHistory = (Stack<Move>) ois.readObject();
-                moveHistory = loadedMoveHistory;
-                
-                aiMode = (boolean) ois.readObject();
-                aiDifficulty = (int) ois.readObject();
-                
-                @SuppressWarnings("unchecked")
-                List<Move> loadedWinningMoves = (List<Move>) ois.readObject();
-                winningMoves = loadedWinningMoves;
-                
-                hintMove = (Move) ois.readObject();
-                JOptionPane.showMessageDialog(null, "游戏存档加载成功！", "加载成功", JOptionPane.INFORMATION_MESSAGE);
-                
-                // 加载成功后刷新界面
-                refreshBoard();
-            } catch (IOException | ClassNotFoundException e) {
-                JOptionPane.showMessageDialog(null, "加载游戏存档时出错：" + e.getMessage(), "加载失败", JOptionPane.ERROR_MESSAGE);
-            }
-        }
-    }
-
-    // 获取落子历史记录
-    public Stack<Move> getMoveHistory() {
-        return moveHistory;
-    }
-
-    // 设置当前玩家
-    public void setCurrentPlayer(boolean currentPlayer) {
-        this.currentPlayer = currentPlayer;
-    }
-
-    // 修改刷新界面的方法
-    private void refreshBoard() {
-        if (gameUI != null) {
-            gameUI.repaint();
-            gameUI.getBoardPanel().repaint(); 
-        }
-    }
-
-    // Getter和Setter方法
-    public boolean isGameOver() {
-        return gameOver;
-    }
-
-    public Boolean[][] getBoard() {
-        return board;
-    }
-
-    public boolean isAiMode() {
-        return aiMode;
-    }
-
-    public void setAiMode(boolean aiMode) {
-        this.aiMode = aiMode;
-    }
-
-    public boolean isCurrentPlayer() {
-        return currentPlayer;
-    }
-
-    public Move getHintMove() {
-        return hintMove;
-    }
-
-    public List<Move> getWinningMoves() {
-        return winningMoves;
-    }
-
-    // 添加缺少的getter方法
-    public int getAiDifficulty() {
-        return aiDifficulty;
-    }
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Stack;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// 这个类负责游戏的核心逻辑，包括初始化棋盘、落子、检查胜负、悔棋等操作
+class GameCore {
+    private static final int BOARD_SIZE = 15;
+    private static final int UNDO_LIMIT = 10;
+    // 提示缓存最多保存的局面数
+    private static final int HINT_CACHE_SIZE = 4096;
+    // 后台预先计算提示的时间
+    private static final long HINT_TIME_MILLIS = 1000;
+    private GomokuGameUI gameUI;
+
+    // 当前玩家，true为黑棋，false为白棋
+    private boolean currentPlayer = true;
+    // 游戏是否结束
+    private boolean gameOver = false;
+    // 棋盘状态，null表示空，true表示黑棋，false表示白棋
+    private Boolean[][] board = new Boolean[BOARD_SIZE][BOARD_SIZE];
+    // 历史记录，用于悔棋，元素为Move.encode编码后的落子
+    private MoveStack moveHistory = new MoveStack(BOARD_SIZE * BOARD_SIZE);
+    // 人机对战模式
+    private boolean aiMode = false;
+    // AI难度，1-5级为按节点预算的迭代加深搜索（见Difficulty），6级为蒙特卡洛树搜索
+    private int aiDifficulty = 3;
+    // 蒙特卡洛树搜索的难度级别，多线程搜索，结果不能复现
+    private static final int MCTS_LEVEL = 6;
+    // 存档格式版本，写在存档最后；没有版本号的旧存档来自难度重新编号之前
+    private static final int SAVE_VERSION = 2;
+    // 旧存档的难度级别对应的现在的级别，下标为旧级别：旧的1-3级分别是简单、中等、困难三种固定深度的搜索，
+    // 换成同名的简单、中等、困难（现在的2-4级）；旧的4级是蒙特卡洛树搜索
+    private static final int[] OLD_LEVELS = {0, 2, 3, 4, MCTS_LEVEL};
+    // AI搜索噪声的种子，每局开始时随机生成，随存档保存；同一局面和种子下AI的落子完全相同
+    private long aiSeed;
+    private final Random seedGenerator = new Random();
+    // 蒙特卡洛树搜索引擎，第一次使用时创建
+    private MctsEngine mctsEngine;
+    // 蒙特卡洛树搜索的模拟次数和时间限制，0表示不限制
+    private long mctsPlayouts = 0;
+    private long mctsTimeMillis = 2000;
+    // 对局规则，默认无禁手
+    private GameRule rule = new FreestyleRule();
+    // 增量维护连珠长度和棋子数，用于判断胜负与平局
+    private WinDetector winDetector = new WinDetector(rule);
+    // 增量维护双方仍可能连成五子的窗口，用于提前判和
+    private LiveWindowTracker liveWindows = new LiveWindowTracker();
+
+    // 记录获胜的连珠位置
+    private List<Move> winningMoves = new ArrayList<>();
+
+    // 提示的落子位置
+    private Move hintMove = null;
+
+    // 棋钟，为null表示不限时
+    private GameClock clock;
+    // 是否有一方超时
+    private boolean timedOut = false;
+    // 每一手的思考时间（毫秒），下标与moveHistory一致
+    private long[] moveTimes = new long[BOARD_SIZE * BOARD_SIZE];
+    // 当前这一手开始思考的时间
+    private long turnStartNanos = System.nanoTime();
+
+    // 当前局面的Zobrist哈希，随落子和悔棋增量更新
+    private long positionHash = 0;
+    // 按局面哈希缓存的提示结果，悔棋后再提示可以直接取出
+    private HintCache hintCache = new HintCache(HINT_CACHE_SIZE);
+    // 后台预先计算提示的线程；界面线程和AI线程都会用到，在构造时创建，线程本身在第一个任务提交时才启动
+    private final ExecutorService hintExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "hint-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 正在进行的预先计算的取消标志
+    private volatile AtomicBoolean speculativeHint = new AtomicBoolean(true);
+
+    // 对局的变化树，悔棋后再落子会成为新的变化
+    private VariationTree variations = new VariationTree();
+    // 当前局面在变化树中的节点
+    private int currentNode = VariationTree.ROOT;
+    // 分析模式下可以在变化树中任意跳转，悔棋不受步数限制，AI也不会自动应手
+    private boolean analysisMode = false;
+
+    // 最近一次发布的局面快照，界面、提示和状态栏只读它；上面的棋盘和历史只由落子的线程修改
+    private volatile BoardSnapshot snapshot = new BoardSnapshot(0, board, moveHistory, true, false, false,
+            winningMoves, null, VariationTree.ROOT);
+    private long snapshotVersion = 0;
+
+    // 初始化棋盘
+    public void initBoard() {
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                board[i][j] = null;
+            }
+        }
+        currentPlayer = true;
+        gameOver = false;
+        moveHistory.clear();
+        winDetector.clear();
+        liveWindows.clear();
+        winningMoves.clear(); // 清空获胜连珠记录
+        hintMove = null; // 清空提示
+        variations.clear();
+        currentNode = VariationTree.ROOT;
+        positionHash = 0;
+        aiSeed = seedGenerator.nextLong();
+        Arrays.fill(moveTimes, -1);
+        timedOut = false;
+        turnStartNanos = System.nanoTime();
+        if (clock != null) {
+            clock.reset();
+            if (!analysisMode) {
+                clock.start(currentPlayer);
+            }
+        }
+        publishSnapshot();
+        speculateHint();
+    }
+
+    // 发布当前局面的快照，在每次真实落子、悔棋、跳转等改变对局状态之后调用
+    private synchronized void publishSnapshot() {
+        snapshot = new BoardSnapshot(++snapshotVersion, board, moveHistory, currentPlayer, gameOver, timedOut,
+                winningMoves, hintMove, currentNode);
+    }
+
+    // 最近发布的局面快照，任何线程都可以无锁读取
+    public BoardSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    // 落子
+    public boolean placeStone(int x, int y) {
+        // 检查坐标是否在棋盘内
+        if (x < 0 || x >= BOARD_SIZE || y < 0 || y >= BOARD_SIZE) {
+            return false;
+        }
+
+        // 检查该位置是否已经有棋子
+        if (board[x][y] != null) {
+            return false;
+        }
+
+        // 检查游戏是否结束
+        if (gameOver) {
+            return false;
+        }
+
+        // 检查是否为禁手
+        if (rule.isForbidden(board, x, y, currentPlayer)) {
+            JOptionPane.showMessageDialog(null, "黑棋禁手，不能在此落子！", "提示", JOptionPane.INFORMATION_MESSAGE);
+            return false;
+        }
+
+        // 落子
+        board[x][y] = currentPlayer;
+        winDetector.place(x, y, currentPlayer);
+        liveWindows.place(x, y, currentPlayer);
+        moveHistory.push(Move.encode(x, y, currentPlayer));
+        currentNode = variations.addChild(currentNode, moveHistory.peek());
+        positionHash ^= Zobrist.key(x, y, currentPlayer);
+        recordThinkTime();
+        hintMove = null; // 落子后清空提示
+
+        // 检查是否有玩家获胜
+        if (checkWin(x, y)) {
+            gameOver = true;
+            stopClock();
+            publishSnapshot();
+            JOptionPane.showMessageDialog(null,
+                    (currentPlayer ? "黑棋" : "白棋") + "获胜！",
+                    "游戏结束",
+                    JOptionPane.INFORMATION_MESSAGE);
+        if (gameUI != null) {
+            gameUI.getBoardPanel().repaint();
+            gameUI.getStatusPanel().updateStatus();
+        }
+            return true;
+        }
+
+        // 检查是否平局
+        if (checkDraw()) {
+            gameOver = true;
+            stopClock();
+            publishSnapshot();
+            JOptionPane.showMessageDialog(null, "平局！", "游戏结束", JOptionPane.INFORMATION_MESSAGE);
+            if (gameUI != null) {
+                gameUI.getBoardPanel().repaint();
+                gameUI.getStatusPanel().updateStatus(); // 更新状态面板
+            }
+            return true;
+        }
+
+        // 切换玩家
+        currentPlayer = !currentPlayer;
+        startClock();
+        publishSnapshot();
+        speculateHint();
+
+        return true;
+    }
+
+    // 添加设置游戏界面的方法
+    public void setGameUI(GomokuGameUI gameUI) {
+        this.gameUI = gameUI;
+    }
+    // AI落子：在调用线程上搜索，搜索结果转到界面线程落下
+    public void makeAIMove() {
+        // AI思考时不再预先计算提示，把CPU留给AI
+        cancelSpeculativeHint();
+
+        // 搜索用时和统计记入JFR事件，没有开启记录时几乎没有开销
+        AiMoveEvent event = new AiMoveEvent();
+        event.begin();
+        int searchDepth = 0;
+        long searchNodes = 0;
+        double playoutsPerSecond = 0;
+
+        // 搜索会在棋盘上模拟落子，只在自己的副本上进行，界面读到的快照不受影响
+        BoardSnapshot position = snapshot;
+        Boolean[][] searchBoard = position.copyBoard();
+        MoveStack searchHistory = position.copyMoveHistory();
+        boolean player = position.isCurrentPlayer();
+
+        // 根据AI难度选择不同的策略
+        Move bestMove = null;
+
+        if (aiDifficulty == MCTS_LEVEL) {
+            // 有棋钟时按时间管理分配的常规用时搜索
+            long mctsTime = isClockRunning()
+                    ? TimeManager.forClock(clock, player, searchHistory.size()).getSoftMillis()
+                    : mctsTimeMillis;
+            bestMove = getMctsEngine().findBestMove(searchBoard, player, mctsPlayouts, mctsTime);
+            searchNodes = getMctsEngine().getLastPlayouts();
+            playoutsPerSecond = getMctsEngine().getLastPlayoutsPerSecond();
+        } else {
+            // 节点预算决定棋力；有棋钟时另受时间限制
+            TimeManager timeManager = isClockRunning()
+                    ? TimeManager.forClock(clock, player, searchHistory.size())
+                    : null;
+            SearchResult result = AILogic.findBestMoveBudget(searchBoard, searchHistory, player,
+                    Difficulty.of(aiDifficulty), aiSeed, timeManager);
+            if (result != null) {
+                bestMove = result.move;
+                searchDepth = result.depth;
+                searchNodes = result.nodes;
+            }
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.difficulty = aiDifficulty;
+            event.difficultyName = getDifficultyName(aiDifficulty);
+            event.depth = searchDepth;
+            event.nodes = searchNodes;
+            event.playoutsPerSecond = playoutsPerSecond;
+            event.seed = aiSeed;
+            event.moveNumber = searchHistory.size();
+            event.x = bestMove != null ? bestMove.x : -1;
+            event.y = bestMove != null ? bestMove.y : -1;
+            event.commit();
+        }
+
+        if (bestMove != null) {
+            Move move = bestMove;
+            long version = position.getVersion();
+            SwingUtilities.invokeLater(() -> applyAIMove(move, version));
+        }
+    }
+
+    // 在界面线程落下AI的一手；搜索期间悔棋、新开局、读档、跳转或改了规则时局面已经变化，丢弃这个结果
+    private void applyAIMove(Move bestMove, long version) {
+        if (snapshot.getVersion() != version || gameOver || !aiMode || analysisMode) {
+            return;
+        }
+        board[bestMove.x][bestMove.y] = currentPlayer;
+        winDetector.place(bestMove.x, bestMove.y, currentPlayer);
+        liveWindows.place(bestMove.x, bestMove.y, currentPlayer);
+        moveHistory.push(Move.encode(bestMove.x, bestMove.y, currentPlayer));
+        currentNode = variations.addChild(currentNode, moveHistory.peek());
+        positionHash ^= Zobrist.key(bestMove.x, bestMove.y, currentPlayer);
+        recordThinkTime();
+        hintMove = null; // AI落子后清空提示
+        if (gameUI != null) {
+            gameUI.getBoardPanel().startAnimation(bestMove.x, bestMove.y);
+        }
+
+        // 检查是否有玩家获胜
+        if (checkWin(bestMove.x, bestMove.y)) {
+            gameOver = true;
+            stopClock();
+            publishSnapshot();
+            JOptionPane.showMessageDialog(null,
+                    "白棋(AI)获胜！",
+                    "游戏结束",
+                    JOptionPane.INFORMATION_MESSAGE);
+            if (gameUI != null) {
+                gameUI.getBoardPanel().repaint();
+                gameUI.getStatusPanel().updateStatus(); // 更新状态面板
+            }
+            return;
+        }
+
+        // 检查是否平局
+        if (checkDraw()) {
+            gameOver = true;
+            stopClock();
+            publishSnapshot();
+            JOptionPane.showMessageDialog(null, "平局！", "游戏结束", JOptionPane.INFORMATION_MESSAGE);
+            if (gameUI != null) {
+                gameUI.getBoardPanel().repaint();
+                gameUI.getStatusPanel().updateStatus(); // 更新状态面板
+            }
+            return;
+        }
+
+        // 切换玩家
+        currentPlayer = !currentPlayer;
+        startClock();
+        publishSnapshot();
+        speculateHint();
+    }
+
+    // 记录刚走完的这一手的思考时间，并开始计下一手
+    private void recordThinkTime() {
+        long now = System.nanoTime();
+        moveTimes[moveHistory.size() - 1] = (now - turnStartNanos) / 1_000_000L;
+        turnStartNanos = now;
+    }
+
+    // 开始为轮到的一方计时，分析模式和对局结束后棋钟停着
+    private void startClock() {
+        if (clock != null && !analysisMode && !gameOver) {
+            clock.start(currentPlayer);
+        }
+    }
+
+    private void stopClock() {
+        if (clock != null) {
+            clock.stop();
+        }
+    }
+
+    private boolean isClockRunning() {
+        return clock != null && !analysisMode;
+    }
+
+    // 由界面定时调用，轮到的一方用完时间时判负；超时时返回true
+    public boolean checkTimeout() {
+        if (clock == null || gameOver || analysisMode || !clock.isFlagged(currentPlayer)) {
+            return false;
+        }
+        boolean loser = currentPlayer;
+        gameOver = true;
+        timedOut = true;
+        stopClock();
+        cancelSpeculativeHint();
+        // 与连五获胜时一致，对局结束时currentPlayer为获胜方
+        currentPlayer = !loser;
+        publishSnapshot();
+        JOptionPane.showMessageDialog(null,
+                (loser ? "黑棋" : "白棋") + "超时！\n" + (loser ? "白棋" : "黑棋") + "获胜！",
+                "游戏结束",
+                JOptionPane.INFORMATION_MESSAGE);
+        return true;
+    }
+
+    // 设置用时，mainMillis为基本用时，incrementMillis为每步加秒，periodMillis和periods为读秒；全为0时不限时
+    // 新的用时从下一局开始生效
+    public void setTimeControl(long mainMillis, long incrementMillis, long periodMillis, int periods) {
+        stopClock();
+        if (mainMillis == 0 && incrementMillis == 0 && (periodMillis == 0 || periods == 0)) {
+            clock = null;
+        } else {
+            clock = new GameClock(mainMillis, incrementMillis, periodMillis, periods);
+        }
+    }
+
+    public GameClock getClock() {
+        return clock;
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    // 把当前这条线转换为棋谱，每手带上思考时间
+    public GameRecord toGameRecord() {
+        int size = moveHistory.size();
+        int[] cells = new int[size];
+        long[] times = new long[size];
+        for (int i = 0; i < size; i++) {
+            int move = moveHistory.get(i);
+            cells[i] = Move.getX(move) * BOARD_SIZE + Move.getY(move);
+            times[i] = moveTimes[i];
+        }
+        char result = GameRecord.RESULT_UNKNOWN;
+        if (gameOver) {
+            if (!winningMoves.isEmpty() || timedOut) {
+                result = currentPlayer ? GameRecord.RESULT_BLACK : GameRecord.RESULT_WHITE;
+            } else if (checkDraw()) {
+                result = GameRecord.RESULT_DRAW;
+            }
+        }
+        return new GameRecord(result, cells, times);
+    }
+
+    // 检查是否有玩家获胜，只有获胜时才生成获胜连珠的列表
+    private boolean checkWin(int x, int y) {
+        if (!winDetector.isWinningCell(x, y)) {
+            return false;
+        }
+        winningMoves = winDetector.collectWinningLine(x, y); // 记录获胜的连珠位置
+        return true;
+    }
+
+    // 检查是否平局
+    private boolean checkDraw() {
+        // 如果棋盘已满，或者双方都已经不可能连成五子，则平局
+        return winDetector.isFull() || liveWindows.isDrawn();
+    }
+
+    // 悔棋
+    public void undo(int steps) {
+        // 检查是否可以悔棋
+        if (moveHistory.isEmpty()) {
+            JOptionPane.showMessageDialog(null, "无法悔棋，没有历史记录！", "提示", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        // 限制悔棋步数
+        steps = Math.min(steps, moveHistory.size());
+        if (!analysisMode) {
+            steps = Math.min(steps, UNDO_LIMIT);
+        }
+
+        // 悔棋
+        for (int i = 0; i < steps; i++) {
+            int move = moveHistory.pop();
+            int x = Move.getX(move);
+            int y = Move.getY(move);
+            board[x][y] = null;
+            winDetector.undo(x, y);
+            liveWindows.undo(x, y, Move.getPlayer(move));
+            positionHash ^= Zobrist.key(x, y, Move.getPlayer(move));
+            currentPlayer = Move.getPlayer(move); // 回到上一个玩家
+            currentNode = variations.getParent(currentNode); // 变化树中保留被悔掉的落子
+        }
+
+        // 更新游戏状态
+        gameOver = false;
+        winningMoves.clear(); // 清空获胜连珠记录
+        hintMove = null; // 悔棋后清空提示
+        timedOut = false;
+        turnStartNanos = System.nanoTime();
+        startClock();
+        publishSnapshot();
+        speculateHint();
+    }
+
+    // 投降
+    public void surrender() {
+        if (gameOver) {
+            JOptionPane.showMessageDialog(null, "游戏已结束！", "提示", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        // 当前玩家投降
+        gameOver = true;
+        stopClock();
+        publishSnapshot();
+
+        // 显示提示框
+        JOptionPane.showMessageDialog(null, 
+                (currentPlayer ? "黑棋" : "白棋") + "投降！\n" + 
+                (!currentPlayer ? "黑棋" : "白棋") + "获胜！", 
+                "游戏结束", 
+                JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    // 设置AI难度
+    public void setAIDifficulty(int difficulty) {
+        if (difficulty < 1 || difficulty > MCTS_LEVEL) {
+            JOptionPane.showMessageDialog(null, "难度级别必须在1-" + MCTS_LEVEL + "之间！", "提示", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        aiDifficulty = difficulty;
+        JOptionPane.showMessageDialog(null, "AI难度已设置为：" + getDifficultyName(aiDifficulty), "设置成功", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    // 获取难度名称 - 修改为public访问修饰符
+    public String getDifficultyName(int difficulty) {
+        if (difficulty == MCTS_LEVEL) {
+            return "蒙特卡洛";
+        }
+        if (difficulty < 1 || difficulty > Difficulty.getLevelCount()) {
+            return "中等";
+        }
+        return Difficulty.of(difficulty).name;
+    }
+
+    // 难度级别的数量，包括蒙特卡洛树搜索
+    public int getDifficultyCount() {
+        return MCTS_LEVEL;
+    }
+
+    public long getAiSeed() {
+        return aiSeed;
+    }
+
+    // 指定AI搜索噪声的种子，用于复现某一局中AI的落子；下一局开始时重新随机生成
+    public void setAiSeed(long aiSeed) {
+        this.aiSeed = aiSeed;
+    }
+
+    // 显示提示
+    public void showHint() {
+        if (gameOver) {
+            JOptionPane.showMessageDialog(null, "游戏已结束，无法提示！", "提示", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        if (aiMode && !currentPlayer) {
+            JOptionPane.showMessageDialog(null, "当前轮到AI，无法提示！", "提示", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        // 先查缓存，通常后台已经算好了比同步计算更深的结果
+        long key = Zobrist.withSide(positionHash, currentPlayer);
+        HintCache.Entry cached = hintCache.get(key);
+        if (cached != null) {
+            hintMove = cached.move;
+            publishSnapshot();
+            return;
+        }
+
+        Move bestMove = null;
+        if (currentPlayer) {
+            // 玩家是黑棋，模拟玩家落子
+            bestMove = findBestMoveForPlayer(true);
+        } else {
+            // 玩家是白棋，模拟玩家落子
+            bestMove = findBestMoveForPlayer(false);
+        }
+
+        if (bestMove != null) {
+            hintMove = bestMove;
+            hintCache.put(key, bestMove, 1);
+            publishSnapshot();
+        }
+    }
+
+    // 在后台为轮到的一方预先计算提示，结果放入提示缓存；局面再次变化时取消上一次的计算
+    private void speculateHint() {
+        cancelSpeculativeHint();
+        if (gameOver || (aiMode && !analysisMode && !currentPlayer)) {
+            // 对局结束或轮到AI时不需要提示
+            return;
+        }
+        long key = Zobrist.withSide(positionHash, currentPlayer);
+        HintCache.Entry cached = hintCache.get(key);
+        if (cached != null && cached.depth > 1) {
+            return;
+        }
+
+        // 搜索在快照的副本上进行，不影响界面使用的棋盘
+        Boolean[][] boardCopy = snapshot.copyBoard();
+        MoveStack historyCopy = snapshot.copyMoveHistory();
+        boolean player = currentPlayer;
+        HintCache cache = hintCache;
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        speculativeHint = cancelled;
+        hintExecutor.execute(() -> {
+            if (cancelled.get()) {
+                return;
+            }
+            // 中途取消时返回已完成的最深一轮，对这个局面仍然有效
+            SearchResult result = AILogic.findBestMoveTimed(boardCopy, historyCopy, player, HINT_TIME_MILLIS,
+                    SearchOptions.all(), cancelled);
+            if (result != null) {
+                cache.put(key, result.move, Math.max(1, result.depth));
+            }
+        });
+    }
+
+    private void cancelSpeculativeHint() {
+        speculativeHint.set(true);
+    }
+
+    // 为玩家找到最佳落子位置
+    private Move findBestMoveForPlayer(boolean isPlayer) {
+        int bestMove = Move.NONE;
+        int bestScore = 0;
+        // 评估时要临时落子，在快照的副本上进行
+        Boolean[][] board = snapshot.copyBoard();
+
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                if (board[i][j] == null && !liveWindows.isDeadCell(i, j) && !rule.isForbidden(board, i, j, isPlayer)) {
+                    // 计算玩家落子的分数
+                    board[i][j] = isPlayer;
+                    int score = AILogic.evaluatePosition(i, j, isPlayer, board);
+                    board[i][j] = null;
+
+                    // 如果分数更高，或者分数相同但更靠近中心，则选择这个位置
+                    if (score > bestScore || (score == bestScore && AILogic.isCloserToCenter(i, j, bestMove))) {
+                        bestScore = score;
+                        bestMove = Move.encode(i, j, isPlayer);
+                    }
+                }
+            }
+        }
+
+        return bestMove == Move.NONE ? null : Move.decode(bestMove);
+    }
+
+    // 保存游戏存档
+    public void saveGame() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("保存游戏存档");
+        int userSelection = fileChooser.showSaveDialog(null);
+
+        if (userSelection == JFileChooser.APPROVE_OPTION) {
+            java.io.File fileToSave = fileChooser.getSelectedFile();
+            GameIoEvent event = new GameIoEvent();
+            event.begin();
+            try (FileOutputStream fos = new FileOutputStream(fileToSave);
+                 ObjectOutputStream oos = new ObjectOutputStream(fos)) {
+                oos.writeObject(currentPlayer);
+                oos.writeObject(gameOver);
+                oos.writeObject(board);
+                oos.writeObject(moveHistory);
+                oos.writeObject(aiMode);
+                oos.writeObject(aiDifficulty);
+                oos.writeObject(winningMoves);
+                oos.writeObject(hintMove);
+                oos.writeObject(rule instanceof RenjuRule);
+                oos.writeObject(Arrays.copyOf(moveTimes, moveHistory.size()));
+                oos.writeObject(aiSeed);
+                oos.writeObject(SAVE_VERSION);
+                // 写到磁盘后再结束计时，让事件包括落盘的时间
+                oos.flush();
+                fos.getFD().sync();
+                commitIoEvent(event, "save", fileToSave, true);
+                JOptionPane.showMessageDialog(null, "游戏存档保存成功！", "保存成功", JOptionPane.INFORMATION_MESSAGE);
+            } catch (IOException e) {
+                commitIoEvent(event, "save", fileToSave, false);
+                JOptionPane.showMessageDialog(null, "保存游戏存档时出错：" + e.getMessage(), "保存失败", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    // 读取游戏存档
+    public void loadGame() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("选择游戏存档文件");
+        int userSelection = fileChooser.showOpenDialog(null);
+        if (userSelection == JFileChooser.APPROVE_OPTION) {
+            try {
+                loadGame(fileChooser.getSelectedFile());
+                JOptionPane.showMessageDialog(null, "游戏存档加载成功！", "加载成功", JOptionPane.INFORMATION_MESSAGE);
+
+                // 加载成功后刷新界面
+                refreshBoard();
+                speculateHint();
+            } catch (IOException e) {
+                JOptionPane.showMessageDialog(null, "加载游戏存档时出错：" + e.getMessage(), "加载失败", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    // 从文件读取存档并恢复对局，不弹出对话框，也不启动后台提示，可以在没有界面时使用
+    public void loadGame(java.io.File fileToLoad) throws IOException {
+        SavedGame saved = readSaveFile(fileToLoad);
+        currentPlayer = saved.currentPlayer;
+        gameOver = saved.gameOver;
+        board = saved.board;
+        positionHash = Zobrist.hash(board);
+        winDetector.load(board);
+        liveWindows.load(board);
+        moveHistory = saved.moveHistory;
+        rebuildVariations();
+        aiMode = saved.aiMode;
+        aiDifficulty = saved.aiDifficulty;
+        winningMoves = saved.winningMoves;
+        hintMove = saved.hintMove;
+        setRule(saved.renju ? new RenjuRule() : new FreestyleRule());
+
+        moveTimes = new long[BOARD_SIZE * BOARD_SIZE];
+        Arrays.fill(moveTimes, -1);
+        if (saved.moveTimes != null) {
+            System.arraycopy(saved.moveTimes, 0, moveTimes, 0, Math.min(saved.moveTimes.length, moveTimes.length));
+        }
+        // 旧存档没有AI种子，沿用本局随机生成的种子
+        if (saved.aiSeed != null) {
+            aiSeed = saved.aiSeed;
+        }
+        timedOut = false;
+        turnStartNanos = System.nanoTime();
+        if (clock != null) {
+            clock.reset();
+        }
+        startClock();
+        publishSnapshot();
+    }
+
+    // 存档文件的内容，旧存档没有的字段为null或默认值
+    static class SavedGame {
+        boolean currentPlayer;
+        boolean gameOver;
+        Boolean[][] board;
+        MoveStack moveHistory;
+        boolean aiMode;
+        int aiDifficulty;
+        List<Move> winningMoves;
+        Move hintMove;
+        boolean renju;
+        long[] moveTimes;
+        Long aiSeed;
+    }
+
+    // 读取存档文件，只解析内容，不改变任何对局状态，可以在多个线程中同时调用
+    static SavedGame readSaveFile(java.io.File file) throws IOException {
+        GameIoEvent event = new GameIoEvent();
+        event.begin();
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            SavedGame saved = new SavedGame();
+            saved.currentPlayer = (boolean) ois.readObject();
+            saved.gameOver = (boolean) ois.readObject();
+            saved.board = (Boolean[][]) ois.readObject();
+            // 反序列化得到的是新的Boolean对象，换成Boolean.TRUE/FALSE，与界面和搜索中落下的棋子一致
+            for (Boolean[] row : saved.board) {
+                for (int i = 0; i < row.length; i++) {
+                    if (row[i] != null) {
+                        row[i] = Boolean.valueOf(row[i]);
+                    }
+                }
+            }
+            saved.moveHistory = readMoveHistory(ois.readObject());
+            saved.aiMode = (boolean) ois.readObject();
+            saved.aiDifficulty = (int) ois.readObject();
+
+            // 使用注解抑制类型安全警告
+            @SuppressWarnings("unchecked")
+            List<Move> loadedWinningMoves = (List<Move>) ois.readObject();
+            saved.winningMoves = loadedWinningMoves;
+
+            saved.hintMove = (Move) ois.readObject();
+
+            // 旧存档没有规则信息，按自由规则处理
+            try {
+                saved.renju = (boolean) ois.readObject();
+            } catch (EOFException e) {
+                saved.renju = false;
+            }
+            // 旧存档没有思考时间
+            try {
+                saved.moveTimes = (long[]) ois.readObject();
+            } catch (EOFException e) {
+                saved.moveTimes = null;
+            }
+            // 旧存档没有AI种子
+            try {
+                saved.aiSeed = (long) ois.readObject();
+            } catch (EOFException e) {
+                saved.aiSeed = null;
+            }
+            // 旧存档没有版本号，难度级别按OLD_LEVELS换算
+            int version;
+            try {
+                version = (int) ois.readObject();
+            } catch (EOFException e) {
+                version = 1;
+            }
+            if (version < 2 && saved.aiDifficulty >= 1 && saved.aiDifficulty < OLD_LEVELS.length) {
+                saved.aiDifficulty = OLD_LEVELS[saved.aiDifficulty];
+            }
+            commitIoEvent(event, "load", file, true);
+            return saved;
+        } catch (IOException e) {
+            commitIoEvent(event, "load", file, false);
+            throw e;
+        } catch (ClassNotFoundException | ClassCastException e) {
+            commitIoEvent(event, "load", file, false);
+            throw new IOException("存档格式错误: " + e.getMessage(), e);
+        }
+    }
+
+    // 落子历史：旧存档保存的是Stack<Move>，转换为MoveStack
+    private static MoveStack readMoveHistory(Object object) {
+        if (object instanceof MoveStack) {
+            return (MoveStack) object;
+        }
+        MoveStack history = new MoveStack(BOARD_SIZE * BOARD_SIZE);
+        for (Object move : (Stack<?>) object) {
+            history.push(((Move) move).encode());
+        }
+        return history;
+    }
+
+    // 结束并提交一次存档读写的JFR事件
+    private static void commitIoEvent(GameIoEvent event, String operation, java.io.File file, boolean success) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.path = file.getPath();
+            event.bytes = file.length();
+            event.success = success;
+            event.commit();
+        }
+    }
+
+    // 存档只保存当前这条线，读档后按落子历史重建变化树
+    private void rebuildVariations() {
+        variations.clear();
+        currentNode = VariationTree.ROOT;
+        for (int i = 0; i < moveHistory.size(); i++) {
+            currentNode = variations.addChild(currentNode, moveHistory.get(i));
+        }
+    }
+
+    // 跳转到变化树中的任意节点
+    public void gotoNode(int node) {
+        if (node == currentNode) {
+            return;
+        }
+        int ancestor = variations.commonAncestor(currentNode, node);
+        int distance = variations.getDepth(currentNode) + variations.getDepth(node) - 2 * variations.getDepth(ancestor);
+
+        if (distance > variations.getDepth(node)) {
+            // 要走的步数比目标局面的棋子还多，直接从最近的快照恢复棋盘，再重建胜负检测
+            variations.restore(node, board);
+            winDetector.load(board);
+            liveWindows.load(board);
+            positionHash = Zobrist.hash(board);
+        } else {
+            // 先退回公共祖先
+            for (int n = currentNode; n != ancestor; n = variations.getParent(n)) {
+                int move = variations.getMove(n);
+                int x = Move.getX(move);
+                int y = Move.getY(move);
+                board[x][y] = null;
+                winDetector.undo(x, y);
+                liveWindows.undo(x, y, Move.getPlayer(move));
+                positionHash ^= Zobrist.key(x, y, Move.getPlayer(move));
+            }
+            // 再沿目标分支落子
+            int[] path = new int[variations.getDepth(node) - variations.getDepth(ancestor)];
+            for (int n = node; n != ancestor; n = variations.getParent(n)) {
+                path[variations.getDepth(n) - variations.getDepth(ancestor) - 1] = variations.getMove(n);
+            }
+            for (int move : path) {
+                int x = Move.getX(move);
+                int y = Move.getY(move);
+                boolean player = Move.getPlayer(move);
+                board[x][y] = player;
+                winDetector.place(x, y, player);
+                liveWindows.place(x, y, player);
+                positionHash ^= Zobrist.key(x, y, player);
+            }
+        }
+
+        currentNode = node;
+        moveHistory.clear();
+        variations.collectPath(node, moveHistory);
+        // 公共祖先之后的手来自另一条变化，思考时间不再对应
+        Arrays.fill(moveTimes, variations.getDepth(ancestor), moveTimes.length, -1);
+        turnStartNanos = System.nanoTime();
+
+        // 根据新局面恢复轮次和胜负状态
+        gameOver = false;
+        winningMoves.clear();
+        hintMove = null;
+        int lastMove = moveHistory.peek();
+        if (lastMove == Move.NONE) {
+            currentPlayer = true;
+        } else if (checkWin(Move.getX(lastMove), Move.getY(lastMove)) || checkDraw()) {
+            // 与落子时一致，对局结束时不切换玩家
+            gameOver = true;
+            currentPlayer = Move.getPlayer(lastMove);
+        } else {
+            currentPlayer = !Move.getPlayer(lastMove);
+        }
+        publishSnapshot();
+        speculateHint();
+    }
+
+    // 退回上一手
+    public void variationBack() {
+        if (currentNode != VariationTree.ROOT) {
+            gotoNode(variations.getParent(currentNode));
+        }
+    }
+
+    // 沿第一个变化前进一手
+    public void variationForward() {
+        int child = variations.getFirstChild(currentNode);
+        if (child != VariationTree.NONE) {
+            gotoNode(child);
+        }
+    }
+
+    // 在同一手的不同变化之间切换，delta为1切到下一个变化，-1切到上一个变化
+    public void switchVariation(int delta) {
+        if (currentNode == VariationTree.ROOT) {
+            return;
+        }
+        int parent = variations.getParent(currentNode);
+        int count = variations.getChildCount(parent);
+        int index = Math.floorMod(variations.getSiblingIndex(currentNode) + delta, count);
+        gotoNode(variations.getChild(parent, index));
+    }
+
+    // 回到开局
+    public void variationStart() {
+        gotoNode(VariationTree.ROOT);
+    }
+
+    // 沿第一个变化走到底
+    public void variationEnd() {
+        gotoNode(variations.mainLineEnd(currentNode));
+    }
+
+    public VariationTree getVariations() {
+        return variations;
+    }
+
+    public long getPositionHash() {
+        return positionHash;
+    }
+
+    public HintCache getHintCache() {
+        return hintCache;
+    }
+
+    public int getCurrentNode() {
+        return currentNode;
+    }
+
+    public boolean isAnalysisMode() {
+        return analysisMode;
+    }
+
+    // 进入分析模式时棋钟停下，回到对局时继续为轮到的一方计时
+    public void setAnalysisMode(boolean analysisMode) {
+        this.analysisMode = analysisMode;
+        if (analysisMode) {
+            stopClock();
+        } else {
+            turnStartNanos = System.nanoTime();
+            startClock();
+        }
+    }
+
+    // 获取落子历史记录
+    public MoveStack getMoveHistory() {
+        return moveHistory;
+    }
+
+    // 获取最后一手，没有落子时返回null
+    public Move getLastMove() {
+        return moveHistory.isEmpty() ? null : Move.decode(moveHistory.peek());
+    }
+
+    // 设置当前玩家
+    public void setCurrentPlayer(boolean currentPlayer) {
+        this.currentPlayer = currentPlayer;
+        publishSnapshot();
+    }
+
+    // 修改刷新界面的方法
+    private void refreshBoard() {
+        if (gameUI != null) {
+            gameUI.repaint();
+            gameUI.getBoardPanel().repaint(); 
+        }
+    }
+
+    // Getter和Setter方法
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public Boolean[][] getBoard() {
+        return board;
+    }
+
+    public boolean isAiMode() {
+        return aiMode;
+    }
+
+    public void setAiMode(boolean aiMode) {
+        this.aiMode = aiMode;
+    }
+
+    public boolean isCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    public Move getHintMove() {
+        return hintMove;
+    }
+
+    public List<Move> getWinningMoves() {
+        return winningMoves;
+    }
+
+    // 添加缺少的getter方法
+    public int getAiDifficulty() {
+        return aiDifficulty;
+    }
+
+    public GameRule getRule() {
+        return rule;
+    }
+
+    // 设置蒙特卡洛树搜索的预算，playouts和timeMillis为0表示不限制，但不能同时为0
+    public void setMctsBudget(long playouts, long timeMillis) {
+        if (playouts <= 0 && timeMillis <= 0) {
+            throw new IllegalArgumentException("必须设置模拟次数或时间限制");
+        }
+        mctsPlayouts = playouts;
+        mctsTimeMillis = timeMillis;
+    }
+
+    private MctsEngine getMctsEngine() {
+        if (mctsEngine == null) {
+            mctsEngine = new MctsEngine(1 << 19, Runtime.getRuntime().availableProcessors());
+        }
+        return mctsEngine;
+    }
+
+    // 设置对局规则，AI使用同一套规则
+    public void setRule(GameRule rule) {
+        this.rule = rule;
+        winDetector.setRule(rule);
+        AILogic.setRule(rule);
+        // 禁手规则不同，缓存的提示不再可用；换一个新缓存，还在计算的旧结果写回旧缓存
+        cancelSpeculativeHint();
+        hintCache = new HintCache(HINT_CACHE_SIZE);
+        // 规则变了，正在计算的AI落子作废
+        publishSnapshot();
+    }
 }
\ No newline at end of file
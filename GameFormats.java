@@ -0,0 +1,186 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ObjectStreamConstants;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// 这个类按文件扩展名选择棋谱格式：txt为本项目的GameRecord文本格式，psq为Piskvork格式，rif和xml为RIF数据库格式，sgf为SGF文本
+// 各格式的坐标统一换算为本项目的坐标：x为从左往右的列，y为从上往下的行，都从0开始
+// GameCore的存档没有固定的扩展名，按文件内容识别，只能读取不能写出
+class GameFormats {
+    private static final int BOARD_SIZE = 15;
+
+    public static final String[] EXTENSIONS = {"txt", "psq", "rif", "xml", "sgf"};
+
+    private GameFormats() {
+    }
+
+    // 文件的扩展名，小写，没有时返回空串
+    public static String extensionOf(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase();
+    }
+
+    public static boolean isSupported(String extension) {
+        for (String supported : EXTENSIONS) {
+            if (supported.equals(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 是否是GameCore的存档：存档是Java序列化的对象流，按文件开头的魔数识别
+    public static boolean isSaveFile(File file) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readShort() == ObjectStreamConstants.STREAM_MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public static GameRecordReader openReader(File file) throws IOException {
+        String extension = extensionOf(file);
+        if (!isSupported(extension) && isSaveFile(file)) {
+            return new SaveReader(file);
+        }
+        switch (extension) {
+            case "txt":
+                return new TextReader(new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)));
+            case "psq":
+                return new PsqFormat.Reader(new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)));
+            case "rif":
+            case "xml":
+                return new RifFormat.Reader(new FileInputStream(file));
+            case "sgf":
+                return new SgfFormat.Reader(new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)));
+            default:
+                throw new IOException("不支持的棋谱格式: " + file.getName());
+        }
+    }
+
+    public static GameRecordWriter openWriter(File file) throws IOException {
+        String extension = extensionOf(file);
+        if (!isSupported(extension)) {
+            throw new IOException("不支持的棋谱格式: " + file.getName());
+        }
+        if (extension.equals("rif") || extension.equals("xml")) {
+            return new RifFormat.Writer(new FileOutputStream(file));
+        }
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+        switch (extension) {
+            case "psq":
+                return new PsqFormat.Writer(out);
+            case "sgf":
+                return new SgfFormat.Writer(out);
+            default:
+                return new TextWriter(out);
+        }
+    }
+
+    // 复盘一局没有记录结果的棋，最后一手连成五子时判定胜方，否则结果未知
+    static char replayResult(int[] cells) {
+        WinDetector detector = new WinDetector(new FreestyleRule());
+        for (int i = 0; i < cells.length; i++) {
+            if (detector.place(cells[i] / BOARD_SIZE, cells[i] % BOARD_SIZE, i % 2 == 0)) {
+                if (i != cells.length - 1) {
+                    throw new IllegalArgumentException("第" + (i + 1) + "手已经连成五子，之后还有落子");
+                }
+                return i % 2 == 0 ? GameRecord.RESULT_BLACK : GameRecord.RESULT_WHITE;
+            }
+        }
+        return cells.length == BOARD_SIZE * BOARD_SIZE ? GameRecord.RESULT_DRAW : GameRecord.RESULT_UNKNOWN;
+    }
+
+    // 检查落子都在棋盘内且没有重复
+    static void checkCells(int[] cells) {
+        boolean[] used = new boolean[BOARD_SIZE * BOARD_SIZE];
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] < 0 || cells[i] >= used.length) {
+                throw new IllegalArgumentException("第" + (i + 1) + "手超出棋盘");
+            }
+            if (used[cells[i]]) {
+                throw new IllegalArgumentException("第" + (i + 1) + "手落在已有棋子的位置");
+            }
+            used[cells[i]] = true;
+        }
+    }
+
+    // GameCore的存档，一个文件只有一局；存档不记录结果，复盘判定
+    static class SaveReader implements GameRecordReader {
+        private final File file;
+        private boolean done = false;
+
+        SaveReader(File file) {
+            this.file = file;
+        }
+
+        @Override
+        public GameRecord next() throws IOException {
+            if (done) {
+                return null;
+            }
+            done = true;
+            GameCore.SavedGame saved = GameCore.readSaveFile(file);
+            int[] cells = new int[saved.moveHistory.size()];
+            for (int i = 0; i < cells.length; i++) {
+                int move = saved.moveHistory.get(i);
+                cells[i] = Move.getX(move) * BOARD_SIZE + Move.getY(move);
+            }
+            checkCells(cells);
+            // 旧存档没有思考时间
+            long[] thinkMillis = saved.moveTimes != null && saved.moveTimes.length == cells.length ? saved.moveTimes : null;
+            return new GameRecord(replayResult(cells), cells, thinkMillis);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // 本项目的GameRecord文本格式，每行一局
+    static class TextReader implements GameRecordReader {
+        private final BufferedReader reader;
+
+        TextReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public GameRecord next() throws IOException {
+            return GameRecord.readNext(reader);
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    static class TextWriter implements GameRecordWriter {
+        private final Writer out;
+
+        TextWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(GameRecord record) throws IOException {
+            out.write(record.format());
+            out.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// 这个类是保存和读取存档时记录的JFR事件，持续时间只包括文件读写，不包括选择文件和提示对话框
+@Name("gomoku.GameIo")
+@Label("存档读写")
+@Category({"Gomoku", "存档"})
+class GameIoEvent extends Event {
+    @Label("操作")
+    String operation;
+
+    @Label("文件")
+    String path;
+
+    @Label("大小")
+    @DataAmount
+    long bytes;
+
+    @Label("成功")
+    boolean success;
+}
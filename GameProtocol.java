@@ -0,0 +1,114 @@
+import java.nio.ByteBuffer;
+
+// 这个类定义联机对局的二进制协议。每帧为[长度][类型][内容]，长度占1字节，等于类型和内容的字节数之和
+// 落子用一个字节表示格子x * 15 + y，落子方由手数的奇偶决定，黑棋先行
+//
+// 客户端发给服务器：
+//   PLAY   gameId(int) rule(byte)   以对局者身份加入对局，对局不存在时按rule创建，先加入的执黑
+//   WATCH  gameId(int)              以观战者身份加入对局
+//   MOVE   cell(byte)               落子
+// 服务器发给客户端：
+//   JOINED gameId(int) role(byte) rule(byte) count(byte) cells(count个byte)   加入成功，附带已有的落子
+//   MOVED  cell(byte) state(byte)   有人落子，state为落子后的对局状态
+//   ERROR  code(byte)               请求被拒绝
+//   LEFT   role(byte)               有对局者断开
+class GameProtocol {
+    static final int DEFAULT_PORT = 9876;
+    private static final int BOARD_SIZE = 15;
+
+    // 帧类型
+    static final byte PLAY = 1;
+    static final byte WATCH = 2;
+    static final byte MOVE = 3;
+    static final byte JOINED = 16;
+    static final byte MOVED = 17;
+    static final byte ERROR = 18;
+    static final byte LEFT = 19;
+
+    // 身份
+    static final byte ROLE_BLACK = 0;
+    static final byte ROLE_WHITE = 1;
+    static final byte ROLE_SPECTATOR = 2;
+
+    // 规则
+    static final byte RULE_FREESTYLE = 0;
+    static final byte RULE_RENJU = 1;
+
+    // 对局状态
+    static final byte STATE_PLAYING = 0;
+    static final byte STATE_BLACK_WIN = 1;
+    static final byte STATE_WHITE_WIN = 2;
+    static final byte STATE_DRAW = 3;
+
+    // 错误码
+    static final byte ERROR_ILLEGAL_MOVE = 1;
+    static final byte ERROR_GAME_FULL = 2;
+    static final byte ERROR_BAD_FRAME = 3;
+    static final byte ERROR_NOT_JOINED = 4;
+
+    // 一帧最长的字节数，包括长度字节
+    static final int MAX_FRAME = 256;
+
+    private GameProtocol() {
+    }
+
+    public static ByteBuffer play(int gameId, byte rule) {
+        ByteBuffer frame = ByteBuffer.allocate(7);
+        frame.put((byte) 6).put(PLAY).putInt(gameId).put(rule);
+        return frame.flip();
+    }
+
+    public static ByteBuffer watch(int gameId) {
+        ByteBuffer frame = ByteBuffer.allocate(6);
+        frame.put((byte) 5).put(WATCH).putInt(gameId);
+        return frame.flip();
+    }
+
+    public static ByteBuffer move(int x, int y) {
+        ByteBuffer frame = ByteBuffer.allocate(3);
+        frame.put((byte) 2).put(MOVE).put((byte) (x * BOARD_SIZE + y));
+        return frame.flip();
+    }
+
+    // cells为已有的落子，长度不超过225
+    public static ByteBuffer joined(int gameId, byte role, byte rule, byte[] cells, int count) {
+        ByteBuffer frame = ByteBuffer.allocate(9 + count);
+        frame.put((byte) (8 + count)).put(JOINED).putInt(gameId).put(role).put(rule).put((byte) count).put(cells, 0, count);
+        return frame.flip();
+    }
+
+    public static ByteBuffer moved(int cell, byte state) {
+        ByteBuffer frame = ByteBuffer.allocate(4);
+        frame.put((byte) 3).put(MOVED).put((byte) cell).put(state);
+        return frame.flip();
+    }
+
+    public static ByteBuffer error(byte code) {
+        ByteBuffer frame = ByteBuffer.allocate(3);
+        frame.put((byte) 2).put(ERROR).put(code);
+        return frame.flip();
+    }
+
+    public static ByteBuffer left(byte role) {
+        ByteBuffer frame = ByteBuffer.allocate(3);
+        frame.put((byte) 2).put(LEFT).put(role);
+        return frame.flip();
+    }
+
+    // 复制到直接缓冲区并设为只读，广播时每个连接只取一个duplicate，内容只编码一次
+    public static ByteBuffer shared(ByteBuffer frame) {
+        ByteBuffer direct = ByteBuffer.allocateDirect(frame.remaining());
+        direct.put(frame.duplicate()).flip();
+        return direct.asReadOnlyBuffer();
+    }
+
+    // buffer处于读模式时，开头是否已经有一个完整的帧
+    public static boolean hasFrame(ByteBuffer buffer) {
+        return buffer.remaining() >= 1 && buffer.remaining() >= 1 + (buffer.get(buffer.position()) & 0xFF);
+    }
+
+    // 字节转为无符号的格子编号
+    public static int cell(byte value) {
+        return value & 0xFF;
+    }
+}
@@ -0,0 +1,119 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+// 这个类表示一局棋的文本记录，用于批量处理棋谱
+// 每行一局：第一个字段是结果（B黑胜、W白胜、D平局、?未知），后面是以空格分隔的"x,y"落子坐标，黑棋先行；以#开头的行是注释
+// 坐标后可以跟"@毫秒"记录这一手的思考时间，例如"7,7@1520"，没有记录的手不写
+class GameRecord {
+    private static final int BOARD_SIZE = 15;
+
+    public static final char RESULT_BLACK = 'B';
+    public static final char RESULT_WHITE = 'W';
+    public static final char RESULT_DRAW = 'D';
+    public static final char RESULT_UNKNOWN = '?';
+
+    private final char result;
+    // 落子位置，按x * BOARD_SIZE + y编码
+    private final int[] cells;
+    // 每手的思考时间（毫秒），-1表示没有记录；整局都没有记录时为null
+    private final long[] thinkMillis;
+
+    public GameRecord(char result, int[] cells) {
+        this(result, cells, null);
+    }
+
+    public GameRecord(char result, int[] cells, long[] thinkMillis) {
+        if (thinkMillis != null && thinkMillis.length != cells.length) {
+            throw new IllegalArgumentException("思考时间的数量与落子数不一致");
+        }
+        this.result = result;
+        this.cells = cells;
+        this.thinkMillis = thinkMillis;
+    }
+
+    // 解析一行棋谱
+    public static GameRecord parse(String line) {
+        String[] tokens = line.trim().split("\\s+");
+        if (tokens.length == 0 || tokens[0].length() != 1 || "BWD?".indexOf(tokens[0].charAt(0)) < 0) {
+            throw new IllegalArgumentException("无效的对局结果: " + line);
+        }
+
+        int[] cells = new int[tokens.length - 1];
+        long[] thinkMillis = null;
+        for (int i = 1; i < tokens.length; i++) {
+            String token = tokens[i];
+            int at = token.indexOf('@');
+            if (at >= 0) {
+                if (thinkMillis == null) {
+                    thinkMillis = new long[cells.length];
+                    Arrays.fill(thinkMillis, -1);
+                }
+                thinkMillis[i - 1] = Long.parseLong(token.substring(at + 1));
+                token = token.substring(0, at);
+            }
+            int comma = token.indexOf(',');
+            if (comma < 0) {
+                throw new IllegalArgumentException("无效的落子坐标: " + tokens[i]);
+            }
+            int x = Integer.parseInt(token.substring(0, comma));
+            int y = Integer.parseInt(token.substring(comma + 1));
+            if (x < 0 || x >= BOARD_SIZE || y < 0 || y >= BOARD_SIZE) {
+                throw new IllegalArgumentException("落子坐标超出棋盘: " + tokens[i]);
+            }
+            cells[i - 1] = x * BOARD_SIZE + y;
+        }
+        return new GameRecord(tokens[0].charAt(0), cells, thinkMillis);
+    }
+
+    // 从流中读取下一局，跳过空行和注释，读到末尾时返回null
+    public static GameRecord readNext(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                return parse(line);
+            }
+        }
+        return null;
+    }
+
+    // 转换为一行文本
+    public String format() {
+        StringBuilder sb = new StringBuilder(cells.length * (thinkMillis == null ? 6 : 12) + 1);
+        sb.append(result);
+        for (int i = 0; i < cells.length; i++) {
+            sb.append(' ').append(cells[i] / BOARD_SIZE).append(',').append(cells[i] % BOARD_SIZE);
+            if (thinkMillis != null && thinkMillis[i] >= 0) {
+                sb.append('@').append(thinkMillis[i]);
+            }
+        }
+        return sb.toString();
+    }
+
+    public char getResult() {
+        return result;
+    }
+
+    public int size() {
+        return cells.length;
+    }
+
+    public int getX(int index) {
+        return cells[index] / BOARD_SIZE;
+    }
+
+    public int getY(int index) {
+        return cells[index] % BOARD_SIZE;
+    }
+
+    // 第index手的思考时间（毫秒），没有记录时返回-1
+    public long getThinkMillis(int index) {
+        return thinkMillis == null ? -1 : thinkMillis[index];
+    }
+
+    // 第index手是否为黑棋
+    public boolean isBlack(int index) {
+        return index % 2 == 0;
+    }
+}
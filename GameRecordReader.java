@@ -0,0 +1,8 @@
+import java.io.Closeable;
+import java.io.IOException;
+
+// 这个接口按顺序读取棋谱文件中的每一局，一次只保存当前这一局，内存占用与文件大小无关
+interface GameRecordReader extends Closeable {
+    // 读取下一局，读到末尾时返回null；某一局内容无效时抛出IllegalArgumentException，之后仍可以继续读下一局
+    GameRecord next() throws IOException;
+}
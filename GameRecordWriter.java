@@ -0,0 +1,7 @@
+import java.io.Closeable;
+import java.io.IOException;
+
+// 这个接口逐局写出棋谱，close时写出格式要求的结尾
+interface GameRecordWriter extends Closeable {
+    void write(GameRecord record) throws IOException;
+}
@@ -0,0 +1,14 @@
+// 这个接口表示一套对局规则，负责胜负条件和禁手判定，GameCore和AILogic都通过它来判断落子是否合法
+interface GameRule {
+    // 规则名称，用于界面显示
+    String getName();
+
+    // 该玩家是否必须恰好连成五子才算获胜（长连不算胜）
+    boolean isExactFiveRequired(boolean player);
+
+    // 该规则下是否存在禁手，不存在时调用方可以跳过禁手检测
+    boolean hasForbiddenMoves();
+
+    // 判断player在空位(x,y)落子是否为禁手，只检查经过该点的四条线，不会修改棋盘
+    boolean isForbidden(Boolean[][] board, int x, int y, boolean player);
+}
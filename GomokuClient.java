@@ -0,0 +1,123 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+// 这个类是联机对局的客户端，连接GomokuServer，在后台线程读取服务器发来的帧并回调Listener
+// 回调在读取线程上执行，界面需要自己切换到事件线程
+class GomokuClient {
+    private final SocketChannel channel;
+    private final Listener listener;
+    private final Thread reader;
+    private volatile boolean closed = false;
+
+    // 服务器消息的回调
+    interface Listener {
+        // 加入对局成功，moves为已有的落子（格子编号），按落子顺序排列
+        void joined(int gameId, byte role, byte rule, int[] moves);
+
+        void moved(int cell, byte state);
+
+        void error(byte code);
+
+        void left(byte role);
+
+        // 连接断开，主动关闭时不回调
+        void closed();
+    }
+
+    public GomokuClient(String host, int port, Listener listener) throws IOException {
+        this.listener = listener;
+        channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        reader = new Thread(this::readLoop, "gomoku-client");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    public void play(int gameId, byte rule) throws IOException {
+        write(GameProtocol.play(gameId, rule));
+    }
+
+    public void watch(int gameId) throws IOException {
+        write(GameProtocol.watch(gameId));
+    }
+
+    public void sendMove(int x, int y) throws IOException {
+        write(GameProtocol.move(x, y));
+    }
+
+    private synchronized void write(ByteBuffer frame) throws IOException {
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    private void readLoop() {
+        ByteBuffer in = ByteBuffer.allocate(GameProtocol.MAX_FRAME * 4);
+        try {
+            while (channel.read(in) >= 0) {
+                in.flip();
+                while (GameProtocol.hasFrame(in)) {
+                    int length = in.get() & 0xFF;
+                    int end = in.position() + length;
+                    dispatch(in, length);
+                    in.position(end);
+                }
+                in.compact();
+            }
+        } catch (IOException e) {
+            // 主动关闭时读取会抛出异常，下面统一处理
+        }
+        if (!closed) {
+            closed = true;
+            listener.closed();
+        }
+    }
+
+    private void dispatch(ByteBuffer in, int length) {
+        if (length == 0) {
+            return;
+        }
+        byte type = in.get();
+        switch (type) {
+            case GameProtocol.JOINED: {
+                int gameId = in.getInt();
+                byte role = in.get();
+                byte rule = in.get();
+                int[] moves = new int[GameProtocol.cell(in.get())];
+                for (int i = 0; i < moves.length; i++) {
+                    moves[i] = GameProtocol.cell(in.get());
+                }
+                listener.joined(gameId, role, rule, moves);
+                break;
+            }
+            case GameProtocol.MOVED:
+                listener.moved(GameProtocol.cell(in.get()), in.get());
+                break;
+            case GameProtocol.ERROR:
+                listener.error(in.get());
+                break;
+            case GameProtocol.LEFT:
+                listener.left(in.get());
+                break;
+            default:
+                // 不认识的帧直接跳过，便于以后扩展协议
+                break;
+        }
+    }
+
+    public void close() {
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("关闭连接时出错: " + e.getMessage());
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+}
@@ -1,521 +1,1205 @@
-import java.awt.*;
-import java.awt.event.*;
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.util.Stack;
-import javax.swing.*;
-
-// 这个类负责游戏的用户界面，包括创建窗口、面板和按钮，以及处理用户交互
-class GomokuGameUI extends JFrame {
-    private static final int BOARD_SIZE = 15;
-    private static final int CELL_SIZE = 40;
-    private static final int MARGIN = 50;
-    private static final int STONE_SIZE = 36;
-
-    private GameCore gameCore;
-
-    // 主面板
-    private JPanel mainPanel;
-    // 棋盘面板
-    private BoardPanel boardPanel;
-    // 控制面板
-    private ControlPanel controlPanel;
-    // 状态面板
-    private StatusPanel statusPanel;
-    // 图片标签
-    private JLabel imageLabel;
-
-    // 鼠标所在的格子坐标
-    private int mouseX = -1;
-    private int mouseY = -1;
-
-    public GomokuGameUI(GameCore gameCore) {
-        this.gameCore = gameCore;
-        gameCore.setGameUI(this); // 设置 gameUI
-
-        // 初始化窗口
-        setTitle("五子棋游戏");
-        setSize(BOARD_SIZE * CELL_SIZE + MARGIN * 2, BOARD_SIZE * CELL_SIZE + MARGIN * 2 + 200);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setLocationRelativeTo(null);
-        setResizable(false);
-
-        // 初始化棋盘
-        gameCore.initBoard();
-
-        // 创建主面板
-        mainPanel = new JPanel(new BorderLayout());
-
-        // 创建棋盘面板
-        boardPanel = new BoardPanel();
-        boardPanel.addMouseListener(new BoardMouseListener());
-        boardPanel.addMouseMotionListener(new BoardMouseMotionListener());
-
-        // 创建控制面板
-        controlPanel = new ControlPanel();
-
-        // 创建状态面板
-        statusPanel = new StatusPanel();
-
-        // 加载图片并调整大小
-        ImageIcon resizedIcon = loadAndResizeImage("GomokuGame.png");
-        if (resizedIcon != null) {
-            imageLabel = new JLabel(resizedIcon);
-            imageLabel.setHorizontalAlignment(JLabel.CENTER);
-        } else {
-            // 图片加载失败，显示提示信息
-            imageLabel = new JLabel("图片加载失败");
-            imageLabel.setHorizontalAlignment(JLabel.CENTER);
-        }
-
-        // 添加面板到主面板
-        mainPanel.add(boardPanel, BorderLayout.CENTER);
-        mainPanel.add(controlPanel, BorderLayout.SOUTH);
-        mainPanel.add(statusPanel, BorderLayout.NORTH);
-        mainPanel.add(imageLabel, BorderLayout.BEFORE_FIRST_LINE);
-
-        // 添加主面板到窗口
-        add(mainPanel);
-
-        // 显示窗口
-        setVisible(true);
-    }
-
-    private ImageIcon loadAndResizeImage(String fileName) {
-        try {
-            // 尝试使用绝对路径加载图片
-            File imageFile = new File(fileName);
-            if (!imageFile.exists()) {
-                System.out.println("图片文件不存在: " + imageFile.getAbsolutePath());
-                return null;
-            }
-            ImageIcon originalIcon = new ImageIcon(imageFile.getAbsolutePath());
-
-            // 获取原始图片尺寸
-            int originalWidth = originalIcon.getIconWidth();
-            int originalHeight = originalIcon.getIconHeight();
-
-            // 设置图片缩放比例 (0.0 - 1.0)
-            double scaleFactor = 0.3; // 默认为原始大小的60%
-
-            // 计算新的图片尺寸
-            int newWidth = (int) (originalWidth * scaleFactor);
-            int newHeight = (int) (originalHeight * scaleFactor);
-
-            // 高质量图像缩放方法
-            BufferedImage originalImage = new BufferedImage(originalWidth, originalHeight, BufferedImage.TYPE_INT_ARGB);
-            Graphics2D g2d = originalImage.createGraphics();
-            g2d.drawImage(originalIcon.getImage(), 0, 0, null);
-            g2d.dispose();
-
-            // 创建目标尺寸的缓冲图像
-            BufferedImage resizedImage = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_ARGB);
-            Graphics2D g = resizedImage.createGraphics();
-
-            // 设置高质量渲染提示
-            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-            // 绘制缩放后的图像
-            g.drawImage(originalImage, 0, 0, newWidth, newHeight, null);
-            g.dispose();
-
-            // 创建新的ImageIcon
-            return new ImageIcon(resizedImage);
-        } catch (Exception e) {
-            System.out.println("加载图片时出错: " + e.getMessage());
-            return null;
-        }
-    }
-
-    /**
-     * 棋盘面板类
-     */
-    class BoardPanel extends JPanel {
-        // 落子动画的定时器
-        private Timer animationTimer;
-        // 动画的当前大小
-        private int currentSize;
-        // 动画的目标大小
-        private int targetSize = STONE_SIZE;
-        // 动画是否正在进行
-        private boolean isAnimating = false;
-        // 动画的棋子颜色
-        private Color animationColor;
-        // 动画的棋子坐标
-        private int animationX;
-        private int animationY;
-
-        public BoardPanel() {
-            setPreferredSize(new Dimension(BOARD_SIZE * CELL_SIZE + MARGIN * 2,
-                    BOARD_SIZE * CELL_SIZE + MARGIN * 2));
-            setBackground(new Color(240, 180, 100)); // 棋盘背景色
-
-            // 初始化动画定时器
-            animationTimer = new Timer(10, e -> {
-                if (currentSize < targetSize) {
-                    currentSize += 2;
-                    if (currentSize > targetSize) {
-                        currentSize = targetSize;
-                    }
-                    repaint();
-                } else {
-                    isAnimating = false;
-                    animationTimer.stop();
-                    repaint();
-                }
-            });
-        }
-
-        @Override
-        protected void paintComponent(Graphics g) {
-            super.paintComponent(g);
-            // 绘制棋盘网格
-            for (int i = 0; i < BOARD_SIZE; i++) {
-                // 水平线
-                g.drawLine(MARGIN, MARGIN + i * CELL_SIZE,
-                        MARGIN + (BOARD_SIZE - 1) * CELL_SIZE, MARGIN + i * CELL_SIZE);
-                // 垂直线
-                g.drawLine(MARGIN + i * CELL_SIZE, MARGIN,
-                        MARGIN + i * CELL_SIZE, MARGIN + (BOARD_SIZE - 1) * CELL_SIZE);
-            }
-
-            // 绘制天元和星位
-            drawStarPoint(g, 7, 7); // 天元
-            drawStarPoint(g, 3, 3); // 左上星
-            drawStarPoint(g, 3, 11); // 右上星
-            drawStarPoint(g, 11, 3); // 左下星
-            drawStarPoint(g, 11, 11); // 右下星
-
-            // 绘制棋子
-            Boolean[][] board = gameCore.getBoard();
-            Stack<Move> moveHistory = gameCore.getMoveHistory(); // 获取正确的落子历史记录
-            for (int i = 0; i < BOARD_SIZE; i++) {
-                for (int j = 0; j < BOARD_SIZE; j++) {
-                    if (board[i][j] != null) {
-                        if (isAnimating && i == animationX && j == animationY) {
-                            // 如果是正在动画的棋子，根据当前大小绘制
-                            int x = MARGIN + i * CELL_SIZE - currentSize / 2;
-                            int y = MARGIN + j * CELL_SIZE - currentSize / 2;
-                            g.setColor(animationColor);
-                            g.fillOval(x, y, currentSize, currentSize);
-                            if (animationColor == Color.WHITE) {
-                                g.setColor(Color.BLACK);
-                                g.drawOval(x, y, currentSize, currentSize);
-                            }
-                        } else {
-                            // 正常绘制棋子
-                            int x = MARGIN + i * CELL_SIZE - STONE_SIZE / 2;
-                            int y = MARGIN + j * CELL_SIZE - STONE_SIZE / 2;
-
-                            if (board[i][j]) {
-                                // 黑棋
-                                g.setColor(Color.BLACK);
-                            } else {
-                                // 白棋
-                                g.setColor(Color.WHITE);
-                            }
-
-                            g.fillOval(x, y, STONE_SIZE, STONE_SIZE);
-
-                            // 给白棋加边框
-                            if (!board[i][j]) {
-                                g.setColor(Color.BLACK);
-                                g.drawOval(x, y, STONE_SIZE, STONE_SIZE);
-                            }
-
-                            // 如果是最后一步，标记数字
-                            if (!moveHistory.isEmpty() && moveHistory.peek().x == i && moveHistory.peek().y == j) {
-                                g.setColor(Color.RED);
-                                g.setFont(new Font("SimHei", Font.BOLD, 14));
-                                g.drawString(String.valueOf(moveHistory.size()), x + STONE_SIZE / 2 - 5, y + STONE_SIZE / 2 + 5);
-                            }
-                        }
-                    }
-                }
-            }
-
-            // 高亮显示获胜的连珠棋子，无论双人对战还是人机对战
-            if (gameCore.isGameOver() && gameCore.getWinningMoves() != null && !gameCore.getWinningMoves().isEmpty()) {
-                g.setColor(Color.RED);
-                for (Move move : gameCore.getWinningMoves()) {
-                    int x = MARGIN + move.x * CELL_SIZE - STONE_SIZE / 2;
-                    int y = MARGIN + move.y * CELL_SIZE - STONE_SIZE / 2;
-                    g.drawOval(x, y, STONE_SIZE, STONE_SIZE);
-                }
-            }
-
-            // 显示提示
-            if (gameCore.getHintMove() != null) {
-                int x = MARGIN + gameCore.getHintMove().x * CELL_SIZE - STONE_SIZE / 2;
-                int y = MARGIN + gameCore.getHintMove().y * CELL_SIZE - STONE_SIZE / 2;
-                g.setColor(Color.GREEN);
-                g.drawOval(x, y, STONE_SIZE, STONE_SIZE);
-            }
-
-            // 显示鼠标阴影提示
-            if (mouseX != -1 && mouseY != -1 && board[mouseX][mouseY] == null) {
-                int x = MARGIN + mouseX * CELL_SIZE - STONE_SIZE / 2;
-                int y = MARGIN + mouseY * CELL_SIZE - STONE_SIZE / 2;
-                Color shadowColor = gameCore.isCurrentPlayer() ? new Color(0, 0, 0, 100) : new Color(255, 255, 255, 100);
-                g.setColor(shadowColor);
-                g.fillOval(x, y, STONE_SIZE, STONE_SIZE);
-            }
-
-            if (gameCore.isGameOver() && gameCore.getWinningMoves() != null) {
-                g.setColor(new Color(255, 0, 0, 150));
-                g.setFont(new Font("SimHei", Font.BOLD, 40));
-                FontMetrics fm = g.getFontMetrics();
-                String text;
-                if (gameCore.isAiMode() && !gameCore.isCurrentPlayer()) {
-                    text = "白棋(AI)获胜！";
-                } else {
-                    text = (gameCore.isCurrentPlayer() ? "黑棋" : "白棋") + "获胜！";
-                }
-                int textWidth = fm.stringWidth(text);
-                int textHeight = fm.getHeight();
-                g.drawString(text, getWidth() / 2 - textWidth / 2, getHeight() / 2 - textHeight / 2);
-            }
-        }
-
-        /**
-         * 绘制星位
-         */
-        private void drawStarPoint(Graphics g, int x, int y) {
-            g.setColor(Color.BLACK);
-            int size = 6;
-            g.fillOval(MARGIN + x * CELL_SIZE - size / 2,
-                    MARGIN + y * CELL_SIZE - size / 2,
-                    size, size);
-        }
-
-        // 开始落子动画
-        public void startAnimation(int x, int y) {
-            animationX = x;
-            animationY = y;
-            currentSize = 0;
-            // 修改动画颜色的设置逻辑
-            animationColor = !gameCore.isCurrentPlayer() ? Color.BLACK : Color.WHITE; 
-            isAnimating = true;
-            animationTimer.start();
-        }
-    }
-
-    /**
-     * 棋盘鼠标监听器类
-     */
-    private class BoardMouseListener extends MouseAdapter {
-        @Override
-        public void mouseClicked(MouseEvent e) {
-            // 如果游戏结束，不处理点击事件
-            if (gameCore.isGameOver()) {
-                return;
-            }
-
-            // 如果是人机模式且轮到AI，不处理点击事件
-            if (gameCore.isAiMode() && !gameCore.isCurrentPlayer()) {
-                return;
-            }
-
-            // 计算点击的格子坐标
-            int x = (e.getX() - MARGIN + CELL_SIZE / 2) / CELL_SIZE;
-            int y = (e.getY() - MARGIN + CELL_SIZE / 2) / CELL_SIZE;
-
-            // 检查坐标是否在棋盘内
-            if (x >= 0 && x < BOARD_SIZE && y >= 0 && y < BOARD_SIZE) {
-                // 落子
-                if (gameCore.placeStone(x, y)) {
-                    // 开始落子动画
-                    boardPanel.startAnimation(x, y);
-                    if (gameCore.isAiMode() && !gameCore.isCurrentPlayer()) {
-                        // 延迟一下，让AI思考
-                        java.util.Timer timer = new java.util.Timer();
-                        timer.schedule(new java.util.TimerTask() {
-                            @Override
-                            public void run() {
-                                // AI落子
-                                gameCore.makeAIMove();
-                                if (gameCore.getMoveHistory().size() > 0) {
-                                    Move lastMove = gameCore.getMoveHistory().peek();
-                                    boardPanel.startAnimation(lastMove.x, lastMove.y);
-                                }
-                            }
-                        }, 500);
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * 棋盘鼠标移动监听器类
-     */
-    private class BoardMouseMotionListener extends MouseMotionAdapter {
-        @Override
-        public void mouseMoved(MouseEvent e) {
-            // 计算鼠标所在的格子坐标
-            int x = (e.getX() - MARGIN + CELL_SIZE / 2) / CELL_SIZE;
-            int y = (e.getY() - MARGIN + CELL_SIZE / 2) / CELL_SIZE;
-
-            // 检查坐标是否在棋盘内
-            if (x >= 0 && x < BOARD_SIZE && y >= 0 && y < BOARD_SIZE) {
-                mouseX = x;
-                mouseY = y;
-            } else {
-                mouseX = -1;
-                mouseY = -1;
-            }
-
-            boardPanel.repaint();
-        }
-    }
-
-    /**
-     * 控制面板类
-     */
-    private class ControlPanel extends JPanel {
-        private JButton newGameButton;
-        private JButton undoButton;
-        private JButton surrenderButton;
-        private JButton aiModeButton;
-        private JButton difficultyButton;
-        private JButton hintButton;
-        private JButton saveButton;
-        private JButton loadButton;
-
-        public ControlPanel() {
-            setLayout(new FlowLayout());
-
-            // 新建游戏按钮
-            newGameButton = new JButton("重新开始");
-            newGameButton.addActionListener(e -> {
-                int result = JOptionPane.showConfirmDialog(
-                        GomokuGameUI.this,
-                        "确定要重新开始游戏吗？",
-                        "确认",
-                        JOptionPane.YES_NO_OPTION);
-
-                if (result == JOptionPane.YES_OPTION) {
-                    gameCore.initBoard();
-                    boardPanel.repaint();
-                }
-            });
-
-            // 悔棋按钮
-            undoButton = new JButton("悔棋");
-            undoButton.addActionListener(e -> {
-                int steps = 1;
-                if (gameCore.isAiMode() && !gameCore.isCurrentPlayer()) {
-                    // 如果是人机模式且轮到AI，需要悔两步（AI一步和玩家一步）
-                    steps = 2;
-                }
-
-                gameCore.undo(steps);
-                boardPanel.repaint();
-            });
-
-            // 投降按钮
-            surrenderButton = new JButton("投降");
-            surrenderButton.addActionListener(e -> {
-                gameCore.surrender();
-                boardPanel.repaint();
-            });
-
-            // 人机模式按钮
-            aiModeButton = new JButton("人机对战");
-            aiModeButton.addActionListener(e -> {
-                gameCore.setAiMode(!gameCore.isAiMode());
-                if (gameCore.isAiMode()) {
-                    aiModeButton.setText("双人对战");
-                    JOptionPane.showMessageDialog(GomokuGameUI.this, "已切换至人机对战模式\n你将使用黑棋，AI使用白棋", "模式切换", JOptionPane.INFORMATION_MESSAGE);
-                } else {
-                    aiModeButton.setText("人机对战");
-                    JOptionPane.showMessageDialog(GomokuGameUI.this, "已切换至双人对战模式", "模式切换", JOptionPane.INFORMATION_MESSAGE);
-                }
-
-                // 重新开始游戏
-                gameCore.initBoard();
-                boardPanel.repaint();
-            });
-
-            // 难度设置按钮
-            difficultyButton = new JButton("AI难度: " + gameCore.getDifficultyName(gameCore.getAiDifficulty()));
-            difficultyButton.addActionListener(e -> {
-                String[] options = {"困难", "中等", "简单"};
-                int choice = JOptionPane.showOptionDialog(
-                        GomokuGameUI.this,
-                        "选择AI难度",
-                        "AI难度设置",
-                        JOptionPane.DEFAULT_OPTION,
-                        JOptionPane.QUESTION_MESSAGE,
-                        null,
-                        options,
-                        options[gameCore.getAiDifficulty() - 1]);
-
-                if (choice != -1) {
-                    gameCore.setAIDifficulty(choice + 1);
-                    difficultyButton.setText("AI难度: " + gameCore.getDifficultyName(gameCore.getAiDifficulty()));
-                }
-            });
-
-            // 提示按钮
-            hintButton = new JButton("提示");
-            hintButton.addActionListener(e -> {
-                gameCore.showHint();
-                boardPanel.repaint();
-            });
-
-            // 保存按钮
-            saveButton = new JButton("保存游戏");
-            saveButton.addActionListener(e -> gameCore.saveGame());
-
-            // 加载按钮
-            loadButton = new JButton("加载游戏");
-            loadButton.addActionListener(e -> gameCore.loadGame());
-
-            add(newGameButton);
-            add(undoButton);
-            add(surrenderButton);
-            add(aiModeButton);
-            add(difficultyButton);
-            add(hintButton);
-            add(saveButton);
-            add(loadButton);
-        }
-    }
-    public BoardPanel getBoardPanel() {
-        return boardPanel;
-    }
-    public StatusPanel getStatusPanel() {
-        return statusPanel;
-    }
-    /**
-     * 状态面板类
-     */
-    public class StatusPanel extends JPanel {
-        private JLabel statusLabel;
-
-        public StatusPanel() {
-            statusLabel = new JLabel();
-            add(statusLabel);
-            updateStatus();
-        }
-
-        public void updateStatus() {
-            String status = gameCore.isCurrentPlayer() ? "当前轮到黑棋" : "当前轮到白棋";
-            if (gameCore.isGameOver()) {
-                if (gameCore.getWinningMoves() != null) {
-                    if (gameCore.isAiMode() && !gameCore.isCurrentPlayer()) {
-                        status = "白棋(AI)获胜！";
-                    } else {
-                        status = gameCore.isCurrentPlayer() ? "黑棋获胜！" : "白棋获胜！";
-                    }
-                } else {
-                    status = "平局！";
-                }
-            }
-            statusLabel.setText(status);
-        }
-    }
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import javax.imageio.ImageIO;
+import javax.swing.*;
+
+// 这个类负责游戏的用户界面，包括创建窗口、面板和按钮，以及处理用户交互
+class GomokuGameUI extends JFrame {
+    private static final int BOARD_SIZE = 15;
+    private static final int CELL_SIZE = 40;
+    private static final int MARGIN = 50;
+    private static final int STONE_SIZE = 36;
+    // 落子动画从零长到完整大小所用的时间
+    private static final long ANIMATION_NANOS = 180_000_000L;
+    // 取不到屏幕刷新率时使用的帧率
+    private static final int DEFAULT_REFRESH_RATE = 60;
+
+    // 绘制用的字体和颜色只创建一次，重绘时直接复用
+    private static final Color BOARD_COLOR = new Color(240, 180, 100);
+    private static final Color BLACK_SHADOW_COLOR = new Color(0, 0, 0, 100);
+    private static final Color WHITE_SHADOW_COLOR = new Color(255, 255, 255, 100);
+    private static final Color WIN_TEXT_COLOR = new Color(255, 0, 0, 150);
+    private static final Font LAST_MOVE_FONT = new Font("SimHei", Font.BOLD, 14);
+    private static final Font WIN_FONT = new Font("SimHei", Font.BOLD, 40);
+    private static final Color VARIATION_COLOR = new Color(0, 0, 200);
+    private static final Font VARIATION_FONT = new Font("SimHei", Font.BOLD, 16);
+    // 热力图的颜色，按分数的对数分级，级别越高越红越不透明
+    private static final Color[] HEAT_COLORS = new Color[16];
+
+    static {
+        for (int i = 0; i < HEAT_COLORS.length; i++) {
+            HEAT_COLORS[i] = new Color(255, 200 - i * 12, 0, 30 + i * 10);
+        }
+    }
+
+    // 顶部图片的缩放比例
+    private static final double IMAGE_SCALE = 0.3;
+    // 缩放后图片的磁盘缓存目录，文件名带源图片的哈希，源图片变了自然失效
+    private static final File IMAGE_CACHE_DIR = new File("image_cache");
+    // 启动时输出图片加载和首帧耗时，用 -Dgomoku.startupTiming=true 开启
+    private static final boolean STARTUP_TIMING = Boolean.getBoolean("gomoku.startupTiming");
+
+    private GameCore gameCore;
+
+    // 主面板
+    private JPanel mainPanel;
+    // 棋盘面板
+    private BoardPanel boardPanel;
+    // 控制面板
+    private ControlPanel controlPanel;
+    // 状态面板
+    private StatusPanel statusPanel;
+    // 图片标签
+    private JLabel imageLabel;
+
+    // 鼠标所在的格子坐标
+    private int mouseX = -1;
+    private int mouseY = -1;
+
+    // 联机对局的连接和本方身份，未联机时为空
+    private GomokuClient netClient;
+    private byte netRole = -1;
+
+    public GomokuGameUI(GameCore gameCore) {
+        this.gameCore = gameCore;
+        gameCore.setGameUI(this); // 设置 gameUI
+
+        // 初始化窗口
+        setTitle("五子棋游戏");
+        setSize(BOARD_SIZE * CELL_SIZE + MARGIN * 2, BOARD_SIZE * CELL_SIZE + MARGIN * 2 + 200);
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setLocationRelativeTo(null);
+        setResizable(false);
+
+        // 初始化棋盘
+        gameCore.initBoard();
+
+        // 创建主面板
+        mainPanel = new JPanel(new BorderLayout());
+
+        // 创建棋盘面板
+        boardPanel = new BoardPanel();
+        boardPanel.addMouseListener(new BoardMouseListener());
+        boardPanel.addMouseMotionListener(new BoardMouseMotionListener());
+
+        // 创建控制面板
+        controlPanel = new ControlPanel();
+
+        // 创建状态面板
+        statusPanel = new StatusPanel();
+
+        // 图片在后台线程加载，先放一个占位标签，窗口不必等图片解码完成
+        imageLabel = new JLabel("图片加载中...");
+        imageLabel.setHorizontalAlignment(JLabel.CENTER);
+
+        // 添加面板到主面板
+        mainPanel.add(boardPanel, BorderLayout.CENTER);
+        mainPanel.add(controlPanel, BorderLayout.SOUTH);
+        mainPanel.add(statusPanel, BorderLayout.NORTH);
+        mainPanel.add(imageLabel, BorderLayout.BEFORE_FIRST_LINE);
+
+        // 添加主面板到窗口
+        add(mainPanel);
+
+        // 创建菜单栏
+        setJMenuBar(createMenuBar());
+
+        // 显示窗口
+        setVisible(true);
+
+        // 开始加载并缩放图片
+        new ImageLoader(new File("GomokuGame.png")).execute();
+    }
+
+    // 创建菜单栏，放置规则等不常用的设置
+    private JMenuBar createMenuBar() {
+        JMenuBar menuBar = new JMenuBar();
+
+        // 规则菜单
+        JMenu ruleMenu = new JMenu("规则");
+        ButtonGroup ruleGroup = new ButtonGroup();
+        JRadioButtonMenuItem freestyleItem = new JRadioButtonMenuItem("自由规则", true);
+        JRadioButtonMenuItem renjuItem = new JRadioButtonMenuItem("连珠规则（黑棋禁手）");
+        freestyleItem.addActionListener(e -> changeRule(new FreestyleRule()));
+        renjuItem.addActionListener(e -> changeRule(new RenjuRule()));
+        ruleGroup.add(freestyleItem);
+        ruleGroup.add(renjuItem);
+        ruleMenu.add(freestyleItem);
+        ruleMenu.add(renjuItem);
+        ruleMenu.addSeparator();
+        JMenuItem timeControlItem = new JMenuItem("用时设置...");
+        timeControlItem.addActionListener(e -> changeTimeControl());
+        ruleMenu.add(timeControlItem);
+        menuBar.add(ruleMenu);
+
+        // 分析菜单，在变化树中前后跳转
+        JMenu analysisMenu = new JMenu("分析");
+        JCheckBoxMenuItem analysisItem = new JCheckBoxMenuItem("分析模式");
+        JMenuItem backItem = createNavigationItem("后退一手", KeyEvent.VK_LEFT, gameCore::variationBack);
+        JMenuItem forwardItem = createNavigationItem("前进一手", KeyEvent.VK_RIGHT, gameCore::variationForward);
+        JMenuItem previousItem = createNavigationItem("上一变化", KeyEvent.VK_UP, () -> gameCore.switchVariation(-1));
+        JMenuItem nextItem = createNavigationItem("下一变化", KeyEvent.VK_DOWN, () -> gameCore.switchVariation(1));
+        JMenuItem startItem = createNavigationItem("回到开局", KeyEvent.VK_HOME, gameCore::variationStart);
+        JMenuItem endItem = createNavigationItem("到变化末端", KeyEvent.VK_END, gameCore::variationEnd);
+        JMenuItem[] navigationItems = {backItem, forwardItem, previousItem, nextItem, startItem, endItem};
+        JCheckBoxMenuItem heatmapItem = new JCheckBoxMenuItem("局面热力图");
+        heatmapItem.addActionListener(e -> boardPanel.setHeatmapEnabled(heatmapItem.isSelected()));
+        analysisItem.addActionListener(e -> {
+            gameCore.setAnalysisMode(analysisItem.isSelected());
+            for (JMenuItem item : navigationItems) {
+                item.setEnabled(analysisItem.isSelected());
+            }
+            boardPanel.repaint();
+            statusPanel.updateStatus();
+        });
+        JMenuItem exportItem = new JMenuItem("导出棋谱...");
+        exportItem.addActionListener(e -> exportGameRecord());
+        analysisMenu.add(analysisItem);
+        analysisMenu.add(heatmapItem);
+        analysisMenu.add(exportItem);
+        analysisMenu.addSeparator();
+        for (JMenuItem item : navigationItems) {
+            item.setEnabled(false);
+            analysisMenu.add(item);
+        }
+        menuBar.add(analysisMenu);
+
+        // 联机菜单，连接GomokuServer对局或观战
+        JMenu networkMenu = new JMenu("联机");
+        JMenuItem playItem = new JMenuItem("加入对局...");
+        playItem.addActionListener(e -> connect(false));
+        JMenuItem watchItem = new JMenuItem("观战...");
+        watchItem.addActionListener(e -> connect(true));
+        JMenuItem disconnectItem = new JMenuItem("断开连接");
+        disconnectItem.addActionListener(e -> disconnect());
+        networkMenu.add(playItem);
+        networkMenu.add(watchItem);
+        networkMenu.addSeparator();
+        networkMenu.add(disconnectItem);
+        menuBar.add(networkMenu);
+
+        return menuBar;
+    }
+
+    // 创建一个变化树导航菜单项，跳转后刷新棋盘和状态
+    private JMenuItem createNavigationItem(String text, int keyCode, Runnable action) {
+        JMenuItem item = new JMenuItem(text);
+        item.setAccelerator(KeyStroke.getKeyStroke(keyCode, 0));
+        item.addActionListener(e -> {
+            action.run();
+            boardPanel.repaint();
+            statusPanel.updateStatus();
+        });
+        return item;
+    }
+
+    // 切换规则后重新开始游戏
+    private void changeRule(GameRule rule) {
+        gameCore.setRule(rule);
+        gameCore.initBoard();
+        boardPanel.repaint();
+        statusPanel.updateStatus();
+        JOptionPane.showMessageDialog(this, "已切换至" + rule.getName() + "，游戏重新开始", "规则切换", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    // 设置用时，格式为"基本用时(分钟),加秒(秒),读秒(秒),读秒次数"，0表示不限时；设置后重新开始游戏
+    private void changeTimeControl() {
+        String input = JOptionPane.showInputDialog(this,
+                "基本用时(分钟),每步加秒(秒),读秒(秒),读秒次数\n例如 10,0,30,3；输入0表示不限时",
+                "用时设置", JOptionPane.QUESTION_MESSAGE);
+        if (input == null) {
+            return;
+        }
+        try {
+            String[] parts = input.trim().split("\\s*,\\s*");
+            long mainMillis = Math.round(Double.parseDouble(parts[0]) * 60_000);
+            long incrementMillis = parts.length > 1 ? Math.round(Double.parseDouble(parts[1]) * 1000) : 0;
+            long periodMillis = parts.length > 2 ? Math.round(Double.parseDouble(parts[2]) * 1000) : 0;
+            int periods = parts.length > 3 ? Integer.parseInt(parts[3]) : (periodMillis > 0 ? 1 : 0);
+            gameCore.setTimeControl(mainMillis, incrementMillis, periodMillis, periods);
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, "用时设置无效：" + e.getMessage(), "用时设置", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        gameCore.initBoard();
+        boardPanel.repaint();
+        statusPanel.updateStatus();
+        JOptionPane.showMessageDialog(this, gameCore.getClock() == null ? "已取消限时，游戏重新开始" : "用时已设置，游戏重新开始",
+                "用时设置", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    // 连接服务器，地址格式为"主机:端口:对局编号"；加入对局时使用当前规则，先加入的一方执黑
+    private void connect(boolean spectate) {
+        String input = JOptionPane.showInputDialog(this,
+                "服务器地址:端口:对局编号，例如 localhost:" + GameProtocol.DEFAULT_PORT + ":1",
+                "localhost:" + GameProtocol.DEFAULT_PORT + ":1");
+        if (input == null) {
+            return;
+        }
+        String[] parts = input.trim().split(":");
+        try {
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("格式应为 主机:端口:对局编号");
+            }
+            disconnect();
+            netClient = new GomokuClient(parts[0], Integer.parseInt(parts[1]), new NetworkListener());
+            if (spectate) {
+                netClient.watch(Integer.parseInt(parts[2]));
+            } else {
+                byte rule = gameCore.getRule() instanceof RenjuRule ? GameProtocol.RULE_RENJU : GameProtocol.RULE_FREESTYLE;
+                netClient.play(Integer.parseInt(parts[2]), rule);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            disconnect();
+            JOptionPane.showMessageDialog(this, "连接服务器失败：" + e.getMessage(), "联机", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void disconnect() {
+        if (netClient != null) {
+            netClient.close();
+            netClient = null;
+            netRole = -1;
+            statusPanel.updateStatus();
+        }
+    }
+
+    /**
+     * 联机消息监听器类，在读取线程上收到消息后切换到事件线程处理
+     */
+    private class NetworkListener implements GomokuClient.Listener {
+        @Override
+        public void joined(int gameId, byte role, byte rule, int[] moves) {
+            SwingUtilities.invokeLater(() -> {
+                netRole = role;
+                // 联机对局不限时，也不由本地AI落子
+                gameCore.setAiMode(false);
+                controlPanel.aiModeButton.setText("人机对战");
+                gameCore.setTimeControl(0, 0, 0, 0);
+                gameCore.setRule(rule == GameProtocol.RULE_RENJU ? new RenjuRule() : new FreestyleRule());
+                gameCore.initBoard();
+                for (int cell : moves) {
+                    gameCore.placeStone(cell / BOARD_SIZE, cell % BOARD_SIZE);
+                }
+                boardPanel.repaint();
+                statusPanel.updateStatus();
+            });
+        }
+
+        @Override
+        public void moved(int cell, byte state) {
+            SwingUtilities.invokeLater(() -> {
+                int x = cell / BOARD_SIZE;
+                int y = cell % BOARD_SIZE;
+                if (gameCore.placeStone(x, y)) {
+                    boardPanel.startAnimation(x, y);
+                    statusPanel.updateStatus();
+                }
+            });
+        }
+
+        @Override
+        public void error(byte code) {
+            SwingUtilities.invokeLater(() -> {
+                String message = code == GameProtocol.ERROR_GAME_FULL ? "对局已满，可以选择观战"
+                        : code == GameProtocol.ERROR_ILLEGAL_MOVE ? "服务器拒绝了这一手" : "服务器返回错误 " + code;
+                JOptionPane.showMessageDialog(GomokuGameUI.this, message, "联机", JOptionPane.WARNING_MESSAGE);
+            });
+        }
+
+        @Override
+        public void left(byte role) {
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(GomokuGameUI.this,
+                    (role == GameProtocol.ROLE_BLACK ? "黑棋" : "白棋") + "已离开对局", "联机", JOptionPane.INFORMATION_MESSAGE));
+        }
+
+        @Override
+        public void closed() {
+            SwingUtilities.invokeLater(() -> {
+                netClient = null;
+                netRole = -1;
+                statusPanel.updateStatus();
+                JOptionPane.showMessageDialog(GomokuGameUI.this, "与服务器的连接已断开", "联机", JOptionPane.WARNING_MESSAGE);
+            });
+        }
+    }
+
+    // 把当前对局（含每手思考时间）追加到棋谱文件
+    private void exportGameRecord() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("导出棋谱");
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)) {
+            writer.write(gameCore.toGameRecord().format());
+            writer.write(System.lineSeparator());
+            JOptionPane.showMessageDialog(this, "棋谱已导出到 " + file.getName(), "导出成功", JOptionPane.INFORMATION_MESSAGE);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "导出棋谱时出错：" + e.getMessage(), "导出失败", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    // 加载图片并调整大小，在后台线程运行；缩放结果按源文件哈希缓存到磁盘
+    private static ImageIcon loadAndResizeImage(File imageFile) {
+        try {
+            if (!imageFile.exists()) {
+                System.out.println("图片文件不存在: " + imageFile.getAbsolutePath());
+                return null;
+            }
+            long start = System.nanoTime();
+
+            // 命中缓存时直接读取缩放好的小图
+            File cacheFile = new File(IMAGE_CACHE_DIR,
+                    sha256(imageFile) + "_" + Math.round(IMAGE_SCALE * 100) + ".png");
+            if (cacheFile.exists()) {
+                BufferedImage cachedImage = ImageIO.read(cacheFile);
+                if (cachedImage != null) {
+                    if (STARTUP_TIMING) {
+                        System.out.println("从缓存加载图片耗时: " + (System.nanoTime() - start) / 1_000_000 + " ms");
+                    }
+                    return new ImageIcon(cachedImage);
+                }
+            }
+
+            // ImageIO 直接解码成 BufferedImage，不再经过 ImageIcon 再复制一遍
+            BufferedImage originalImage = ImageIO.read(imageFile);
+            if (originalImage == null) {
+                System.out.println("无法解码图片: " + imageFile.getAbsolutePath());
+                return null;
+            }
+
+            // 计算新的图片尺寸
+            int newWidth = Math.max(1, (int) (originalImage.getWidth() * IMAGE_SCALE));
+            int newHeight = Math.max(1, (int) (originalImage.getHeight() * IMAGE_SCALE));
+
+            // 创建目标尺寸的缓冲图像
+            BufferedImage resizedImage = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = resizedImage.createGraphics();
+
+            // 设置高质量渲染提示
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+            // 绘制缩放后的图像
+            g.drawImage(originalImage, 0, 0, newWidth, newHeight, null);
+            g.dispose();
+
+            saveImageCache(resizedImage, cacheFile);
+            if (STARTUP_TIMING) {
+                System.out.println("解码并缩放图片耗时: " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            }
+            return new ImageIcon(resizedImage);
+        } catch (Exception e) {
+            System.out.println("加载图片时出错: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // 先写临时文件再改名，避免另一个进程读到写了一半的缓存
+    private static void saveImageCache(BufferedImage image, File cacheFile) {
+        try {
+            if (!IMAGE_CACHE_DIR.isDirectory() && !IMAGE_CACHE_DIR.mkdirs()) {
+                System.out.println("无法创建图片缓存目录: " + IMAGE_CACHE_DIR.getAbsolutePath());
+                return;
+            }
+            File tempFile = File.createTempFile("image", ".tmp", IMAGE_CACHE_DIR);
+            try {
+                ImageIO.write(image, "png", tempFile);
+                try {
+                    Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tempFile.toPath());
+            }
+        } catch (IOException e) {
+            System.out.println("写入图片缓存时出错: " + e.getMessage());
+        }
+    }
+
+    // 计算文件内容的 SHA-256，作为缓存的键
+    private static String sha256(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("不支持 SHA-256", e);
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * 后台图片加载类
+     */
+    private class ImageLoader extends SwingWorker<ImageIcon, Void> {
+        private final File imageFile;
+
+        ImageLoader(File imageFile) {
+            this.imageFile = imageFile;
+        }
+
+        @Override
+        protected ImageIcon doInBackground() {
+            return loadAndResizeImage(imageFile);
+        }
+
+        // 回到事件线程后替换占位标签
+        @Override
+        protected void done() {
+            ImageIcon icon = null;
+            try {
+                icon = get();
+            } catch (Exception e) {
+                System.out.println("加载图片时出错: " + e.getMessage());
+            }
+            if (icon != null) {
+                imageLabel.setText(null);
+                imageLabel.setIcon(icon);
+            } else {
+                // 图片加载失败，显示提示信息
+                imageLabel.setText("图片加载失败");
+            }
+            mainPanel.revalidate();
+            mainPanel.repaint();
+        }
+    }
+
+    /**
+     * 棋盘面板类
+     */
+    class BoardPanel extends JPanel {
+        // 落子动画的定时器，只在有动画进行时运行
+        private Timer animationTimer;
+        // 正在进行的落子动画，人和AI的落子可以同时在动
+        private final java.util.List<StoneAnimation> animations = new java.util.ArrayList<>();
+
+        // 局面热力图，第一次打开时创建
+        private HeatmapAnalyzer heatmap;
+        private boolean heatmapEnabled = false;
+        // 当前热力图的最高分，用于把分数映射到颜色
+        private int heatmapMax = 0;
+
+        // 是否已经画出第一帧，用于记录启动耗时
+        private boolean firstFramePainted = false;
+
+        // 最近一次绘制所用快照的棋盘副本，只在事件线程上使用，快照版本不变时复用
+        private Boolean[][] paintedBoard;
+        private long paintedVersion = -1;
+
+        // 缓存的静态棋盘图层（背景、网格、星位）
+        private BufferedImage gridLayer;
+        // 预渲染的棋子和鼠标阴影
+        private BufferedImage blackStoneSprite;
+        private BufferedImage whiteStoneSprite;
+        private BufferedImage blackShadowSprite;
+        private BufferedImage whiteShadowSprite;
+
+        public BoardPanel() {
+            setPreferredSize(new Dimension(BOARD_SIZE * CELL_SIZE + MARGIN * 2,
+                    BOARD_SIZE * CELL_SIZE + MARGIN * 2));
+            setBackground(BOARD_COLOR); // 棋盘背景色
+
+            // 初始化动画定时器，帧间隔在开始动画时按屏幕刷新率设置
+            animationTimer = new Timer(1000 / DEFAULT_REFRESH_RATE, e -> stepAnimations());
+            animationTimer.setCoalesce(true);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            // 超过阈值的重绘记入JFR，用来和AI搜索、GC的停顿对照
+            PaintEvent paintEvent = new PaintEvent();
+            paintEvent.begin();
+            ensureLayers();
+            if (STARTUP_TIMING && !firstFramePainted) {
+                firstFramePainted = true;
+                System.out.println("启动到首帧耗时: " + ManagementFactory.getRuntimeMXBean().getUptime() + " ms");
+            }
+            // 网格和星位来自缓存图层，只按裁剪区域贴图
+            g.drawImage(gridLayer, 0, 0, null);
+
+            // 只处理与裁剪区域相交的格子
+            Rectangle clip = g.getClipBounds();
+            if (clip == null) {
+                clip = new Rectangle(0, 0, getWidth(), getHeight());
+            }
+            int minI = cellAt(clip.x);
+            int maxI = cellAt(clip.x + clip.width - 1);
+            int minJ = cellAt(clip.y);
+            int maxJ = cellAt(clip.y + clip.height - 1);
+
+            // 整个绘制过程只读同一个快照，AI搜索时模拟的棋子不会出现在界面上
+            BoardSnapshot snapshot = gameCore.getSnapshot();
+            Boolean[][] board = boardOf(snapshot);
+            if (heatmapEnabled) {
+                // 每次重绘都交给分析器比较局面，局面没变时直接返回，变了就只重算受影响的格子
+                heatmap.update(board);
+                drawHeatmap(g, board, minI, maxI, minJ, maxJ);
+            }
+
+            // 绘制棋子
+            int lastMove = snapshot.getLastMove();
+            for (int i = minI; i <= maxI; i++) {
+                for (int j = minJ; j <= maxJ; j++) {
+                    if (board[i][j] != null) {
+                        StoneAnimation animation = findAnimation(i, j);
+                        if (animation != null) {
+                            // 如果是正在动画的棋子，根据当前大小绘制
+                            int size = animation.size;
+                            int x = MARGIN + i * CELL_SIZE - size / 2;
+                            int y = MARGIN + j * CELL_SIZE - size / 2;
+                            g.setColor(board[i][j] ? Color.BLACK : Color.WHITE);
+                            g.fillOval(x, y, size, size);
+                            if (!board[i][j]) {
+                                g.setColor(Color.BLACK);
+                                g.drawOval(x, y, size, size);
+                            }
+                        } else {
+                            // 正常绘制棋子，直接贴预渲染的棋子图
+                            int x = MARGIN + i * CELL_SIZE - STONE_SIZE / 2;
+                            int y = MARGIN + j * CELL_SIZE - STONE_SIZE / 2;
+                            g.drawImage(board[i][j] ? blackStoneSprite : whiteStoneSprite, x, y, null);
+
+                            // 如果是最后一步，标记数字
+                            if (lastMove != Move.NONE && Move.getX(lastMove) == i && Move.getY(lastMove) == j) {
+                                g.setColor(Color.RED);
+                                g.setFont(LAST_MOVE_FONT);
+                                g.drawString(String.valueOf(snapshot.getMoveCount()), x + STONE_SIZE / 2 - 5, y + STONE_SIZE / 2 + 5);
+                            }
+                        }
+                    }
+                }
+            }
+
+            // 高亮显示获胜的连珠棋子，无论双人对战还是人机对战
+            if (snapshot.isGameOver() && !snapshot.getWinningMoves().isEmpty()) {
+                g.setColor(Color.RED);
+                for (Move move : snapshot.getWinningMoves()) {
+                    int x = MARGIN + move.x * CELL_SIZE - STONE_SIZE / 2;
+                    int y = MARGIN + move.y * CELL_SIZE - STONE_SIZE / 2;
+                    g.drawOval(x, y, STONE_SIZE, STONE_SIZE);
+                }
+            }
+
+            // 显示提示
+            Move hintMove = snapshot.getHintMove();
+            if (hintMove != null) {
+                int x = MARGIN + hintMove.x * CELL_SIZE - STONE_SIZE / 2;
+                int y = MARGIN + hintMove.y * CELL_SIZE - STONE_SIZE / 2;
+                g.setColor(Color.GREEN);
+                g.drawOval(x, y, STONE_SIZE, STONE_SIZE);
+            }
+
+            // 连珠规则下轮到黑棋时标记禁手点，禁手判断较贵，只算裁剪区域内的格子
+            GameRule rule = gameCore.getRule();
+            if (rule.hasForbiddenMoves() && snapshot.isCurrentPlayer() && !snapshot.isGameOver()) {
+                g.setColor(Color.RED);
+                for (int i = minI; i <= maxI; i++) {
+                    for (int j = minJ; j <= maxJ; j++) {
+                        if (board[i][j] == null && rule.isForbidden(board, i, j, true)) {
+                            int cx = MARGIN + i * CELL_SIZE;
+                            int cy = MARGIN + j * CELL_SIZE;
+                            g.drawLine(cx - 6, cy - 6, cx + 6, cy + 6);
+                            g.drawLine(cx - 6, cy + 6, cx + 6, cy - 6);
+                        }
+                    }
+                }
+            }
+
+            // 分析模式下用字母标出当前局面之后已有的各个变化
+            if (gameCore.isAnalysisMode()) {
+                VariationTree variations = gameCore.getVariations();
+                g.setColor(VARIATION_COLOR);
+                g.setFont(VARIATION_FONT);
+                FontMetrics fm = g.getFontMetrics();
+                char label = 'A';
+                for (int child = variations.getFirstChild(snapshot.getCurrentNode()); child != VariationTree.NONE;
+                        child = variations.getNextSibling(child)) {
+                    int move = variations.getMove(child);
+                    String text = String.valueOf(label++);
+                    int cx = MARGIN + Move.getX(move) * CELL_SIZE;
+                    int cy = MARGIN + Move.getY(move) * CELL_SIZE;
+                    g.drawString(text, cx - fm.stringWidth(text) / 2, cy + fm.getAscent() / 2 - 1);
+                }
+            }
+
+            // 显示鼠标阴影提示
+            if (mouseX != -1 && mouseY != -1 && board[mouseX][mouseY] == null) {
+                int x = MARGIN + mouseX * CELL_SIZE - STONE_SIZE / 2;
+                int y = MARGIN + mouseY * CELL_SIZE - STONE_SIZE / 2;
+                g.drawImage(snapshot.isCurrentPlayer() ? blackShadowSprite : whiteShadowSprite, x, y, null);
+            }
+
+            // 没有连五也没有超时就结束的是和棋（棋盘下满或双方都已不可能连成五子），不显示获胜方
+            if (snapshot.isGameOver() && (!snapshot.getWinningMoves().isEmpty() || snapshot.isTimedOut())) {
+                g.setColor(WIN_TEXT_COLOR);
+                g.setFont(WIN_FONT);
+                FontMetrics fm = g.getFontMetrics();
+                String text;
+                if (gameCore.isAiMode() && !snapshot.isCurrentPlayer()) {
+                    text = "白棋(AI)获胜！";
+                } else {
+                    text = (snapshot.isCurrentPlayer() ? "黑棋" : "白棋") + "获胜！";
+                }
+                int textWidth = fm.stringWidth(text);
+                int textHeight = fm.getHeight();
+                g.drawString(text, getWidth() / 2 - textWidth / 2, getHeight() / 2 - textHeight / 2);
+            }
+
+            paintEvent.end();
+            if (paintEvent.shouldCommit()) {
+                paintEvent.cells = (maxI - minI + 1) * (maxJ - minJ + 1);
+                paintEvent.animations = animations.size();
+                paintEvent.heatmap = heatmapEnabled;
+                paintEvent.snapshotVersion = snapshot.getVersion();
+                paintEvent.commit();
+            }
+        }
+
+        // 快照对应的棋盘副本；禁手判断和热力图需要Boolean[][]，每个版本只复制一次
+        private Boolean[][] boardOf(BoardSnapshot snapshot) {
+            if (snapshot.getVersion() != paintedVersion) {
+                paintedBoard = snapshot.copyBoard();
+                paintedVersion = snapshot.getVersion();
+            }
+            return paintedBoard;
+        }
+
+        // 在空位上画出已经算好的热度
+        private void drawHeatmap(Graphics g, Boolean[][] board, int minI, int maxI, int minJ, int maxJ) {
+            if (heatmapMax <= 0) {
+                return;
+            }
+            double scale = (HEAT_COLORS.length - 1) / Math.log1p(heatmapMax);
+            int size = CELL_SIZE - 4;
+            for (int i = minI; i <= maxI; i++) {
+                for (int j = minJ; j <= maxJ; j++) {
+                    if (board[i][j] == null && heatmap.isScored(i, j)) {
+                        int score = heatmap.getScore(i, j);
+                        if (score > 0) {
+                            g.setColor(HEAT_COLORS[(int) (Math.log1p(score) * scale)]);
+                            g.fillRect(MARGIN + i * CELL_SIZE - size / 2, MARGIN + j * CELL_SIZE - size / 2, size, size);
+                        }
+                    }
+                }
+            }
+        }
+
+        // 打开或关闭热力图
+        public void setHeatmapEnabled(boolean enabled) {
+            if (enabled && heatmap == null) {
+                heatmap = new HeatmapAnalyzer(Runtime.getRuntime().availableProcessors(), this::heatmapCellsScored);
+            }
+            if (!enabled && heatmap != null) {
+                heatmap.reset();
+                heatmapMax = 0;
+            }
+            heatmapEnabled = enabled;
+            repaint();
+        }
+
+        // 一批格子算完后调用；最高分变了颜色刻度也变，整块重绘，否则只重绘这批格子
+        private void heatmapCellsScored(int[] cells) {
+            if (!heatmapEnabled) {
+                return;
+            }
+            Boolean[][] board = boardOf(gameCore.getSnapshot());
+            int max = 0;
+            for (int i = 0; i < BOARD_SIZE; i++) {
+                for (int j = 0; j < BOARD_SIZE; j++) {
+                    if (board[i][j] == null && heatmap.isScored(i, j)) {
+                        max = Math.max(max, heatmap.getScore(i, j));
+                    }
+                }
+            }
+            if (max != heatmapMax) {
+                heatmapMax = max;
+                repaint();
+                return;
+            }
+            for (int cell : cells) {
+                repaintCell(cell / BOARD_SIZE, cell % BOARD_SIZE);
+            }
+        }
+
+        // 像素坐标所在的格子，超出棋盘时截到边界
+        private int cellAt(int pixel) {
+            int cell = Math.floorDiv(pixel - MARGIN + CELL_SIZE / 2, CELL_SIZE);
+            return Math.max(0, Math.min(BOARD_SIZE - 1, cell));
+        }
+
+        // 只重绘一个格子所占的矩形
+        public void repaintCell(int x, int y) {
+            repaint(MARGIN + x * CELL_SIZE - CELL_SIZE / 2, MARGIN + y * CELL_SIZE - CELL_SIZE / 2,
+                    CELL_SIZE, CELL_SIZE);
+        }
+
+        // 重新挂到窗口后显示设备可能变了，丢弃缓存图层
+        @Override
+        public void addNotify() {
+            super.addNotify();
+            gridLayer = null;
+        }
+
+        // 首次绘制时生成网格图层和棋子图，之后每次重绘直接贴图
+        private void ensureLayers() {
+            int width = Math.max(1, getWidth());
+            int height = Math.max(1, getHeight());
+            if (gridLayer != null && gridLayer.getWidth() == width && gridLayer.getHeight() == height) {
+                return;
+            }
+
+            gridLayer = createLayer(width, height, Transparency.OPAQUE);
+            Graphics2D g = gridLayer.createGraphics();
+            g.setColor(getBackground());
+            g.fillRect(0, 0, width, height);
+            g.setColor(getForeground());
+            // 绘制棋盘网格
+            for (int i = 0; i < BOARD_SIZE; i++) {
+                // 水平线
+                g.drawLine(MARGIN, MARGIN + i * CELL_SIZE,
+                        MARGIN + (BOARD_SIZE - 1) * CELL_SIZE, MARGIN + i * CELL_SIZE);
+                // 垂直线
+                g.drawLine(MARGIN + i * CELL_SIZE, MARGIN,
+                        MARGIN + i * CELL_SIZE, MARGIN + (BOARD_SIZE - 1) * CELL_SIZE);
+            }
+
+            // 绘制天元和星位
+            drawStarPoint(g, 7, 7); // 天元
+            drawStarPoint(g, 3, 3); // 左上星
+            drawStarPoint(g, 3, 11); // 右上星
+            drawStarPoint(g, 11, 3); // 左下星
+            drawStarPoint(g, 11, 11); // 右下星
+            g.dispose();
+
+            blackStoneSprite = createStoneSprite(Color.BLACK, null);
+            whiteStoneSprite = createStoneSprite(Color.WHITE, Color.BLACK);
+            blackShadowSprite = createStoneSprite(BLACK_SHADOW_COLOR, null);
+            whiteShadowSprite = createStoneSprite(WHITE_SHADOW_COLOR, null);
+        }
+
+        // 预渲染一枚棋子，外框多留一个像素给描边
+        private BufferedImage createStoneSprite(Color fill, Color border) {
+            BufferedImage sprite = createLayer(STONE_SIZE + 1, STONE_SIZE + 1, Transparency.TRANSLUCENT);
+            Graphics2D g = sprite.createGraphics();
+            g.setColor(fill);
+            g.fillOval(0, 0, STONE_SIZE, STONE_SIZE);
+            if (border != null) {
+                g.setColor(border);
+                g.drawOval(0, 0, STONE_SIZE, STONE_SIZE);
+            }
+            g.dispose();
+            return sprite;
+        }
+
+        // 优先使用与屏幕格式一致的兼容图像，Java2D 可以把它缓存到显存中加速绘制
+        private BufferedImage createLayer(int width, int height, int transparency) {
+            GraphicsConfiguration gc = getGraphicsConfiguration();
+            if (gc != null) {
+                return gc.createCompatibleImage(width, height, transparency);
+            }
+            return new BufferedImage(width, height, transparency == Transparency.OPAQUE
+                    ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        }
+
+        /**
+         * 绘制星位
+         */
+        private void drawStarPoint(Graphics g, int x, int y) {
+            g.setColor(Color.BLACK);
+            int size = 6;
+            g.fillOval(MARGIN + x * CELL_SIZE - size / 2,
+                    MARGIN + y * CELL_SIZE - size / 2,
+                    size, size);
+        }
+
+        // 开始落子动画，AI 落子时从后台线程调用，统一转到事件线程处理
+        public void startAnimation(int x, int y) {
+            if (!SwingUtilities.isEventDispatchThread()) {
+                SwingUtilities.invokeLater(() -> startAnimation(x, y));
+                return;
+            }
+
+            StoneAnimation animation = findAnimation(x, y);
+            if (animation == null) {
+                animation = new StoneAnimation(x, y);
+                animations.add(animation);
+            }
+            animation.startNanos = System.nanoTime();
+            animation.size = 0;
+
+            // 落子改变了最后一步标记、提示和禁手点，整块棋盘重绘一次，之后每帧只重绘动画格子
+            repaint();
+            if (!animationTimer.isRunning()) {
+                animationTimer.setDelay(Math.max(1, 1000 / getRefreshRate()));
+                animationTimer.start();
+            }
+        }
+
+        // 按经过的时间推进所有动画，只重绘动画所在的格子
+        private void stepAnimations() {
+            long now = System.nanoTime();
+            for (int k = animations.size() - 1; k >= 0; k--) {
+                StoneAnimation animation = animations.get(k);
+                long elapsed = now - animation.startNanos;
+                if (elapsed >= ANIMATION_NANOS) {
+                    animations.remove(k);
+                } else {
+                    animation.size = (int) (STONE_SIZE * elapsed / ANIMATION_NANOS);
+                }
+                repaintCell(animation.x, animation.y);
+            }
+            if (animations.isEmpty()) {
+                animationTimer.stop();
+            }
+        }
+
+        private StoneAnimation findAnimation(int x, int y) {
+            for (StoneAnimation animation : animations) {
+                if (animation.x == x && animation.y == y) {
+                    return animation;
+                }
+            }
+            return null;
+        }
+
+        // 当前屏幕的刷新率，取不到时按 60Hz 处理
+        private int getRefreshRate() {
+            GraphicsConfiguration gc = getGraphicsConfiguration();
+            if (gc != null) {
+                int rate = gc.getDevice().getDisplayMode().getRefreshRate();
+                if (rate != DisplayMode.REFRESH_RATE_UNKNOWN) {
+                    return rate;
+                }
+            }
+            return DEFAULT_REFRESH_RATE;
+        }
+    }
+
+    /**
+     * 落子动画类
+     */
+    private static class StoneAnimation {
+        // 动画的棋子坐标
+        final int x;
+        final int y;
+        // 动画开始的时间
+        long startNanos;
+        // 动画的当前大小
+        int size;
+
+        StoneAnimation(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    /**
+     * 棋盘鼠标监听器类
+     */
+    private class BoardMouseListener extends MouseAdapter {
+        @Override
+        public void mouseClicked(MouseEvent e) {
+            // 如果游戏结束，不处理点击事件
+            BoardSnapshot snapshot = gameCore.getSnapshot();
+            if (snapshot.isGameOver()) {
+                return;
+            }
+
+            // 如果是人机模式且轮到AI，不处理点击事件；分析模式下双方都由人落子
+            if (gameCore.isAiMode() && !gameCore.isAnalysisMode() && !snapshot.isCurrentPlayer()) {
+                return;
+            }
+
+            // 计算点击的格子坐标
+            int x = (e.getX() - MARGIN + CELL_SIZE / 2) / CELL_SIZE;
+            int y = (e.getY() - MARGIN + CELL_SIZE / 2) / CELL_SIZE;
+
+            // 联机时只在轮到本方时把落子发给服务器，等服务器广播回来再落到棋盘上；观战者不能落子
+            if (netClient != null) {
+                boolean ourTurn = netRole == (snapshot.isCurrentPlayer() ? GameProtocol.ROLE_BLACK : GameProtocol.ROLE_WHITE);
+                if (ourTurn && x >= 0 && x < BOARD_SIZE && y >= 0 && y < BOARD_SIZE && snapshot.get(x, y) == null) {
+                    try {
+                        netClient.sendMove(x, y);
+                    } catch (IOException ex) {
+                        JOptionPane.showMessageDialog(GomokuGameUI.this, "发送落子失败：" + ex.getMessage(), "联机", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+                return;
+            }
+
+            // 检查坐标是否在棋盘内
+            if (x >= 0 && x < BOARD_SIZE && y >= 0 && y < BOARD_SIZE) {
+                // 落子
+                if (gameCore.placeStone(x, y)) {
+                    // 开始落子动画
+                    boardPanel.startAnimation(x, y);
+                    statusPanel.updateStatus();
+                    if (gameCore.isAiMode() && !gameCore.isAnalysisMode() && !gameCore.isCurrentPlayer()) {
+                        // 延迟一下，让AI思考
+                        java.util.Timer timer = new java.util.Timer();
+                        timer.schedule(new java.util.TimerTask() {
+                            @Override
+                            public void run() {
+                                // AI落子，落子和动画由GameCore转到事件线程进行
+                                gameCore.makeAIMove();
+                            }
+                        }, 500);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 棋盘鼠标移动监听器类
+     */
+    private class BoardMouseMotionListener extends MouseMotionAdapter {
+        @Override
+        public void mouseMoved(MouseEvent e) {
+            // 计算鼠标所在的格子坐标
+            int x = (e.getX() - MARGIN + CELL_SIZE / 2) / CELL_SIZE;
+            int y = (e.getY() - MARGIN + CELL_SIZE / 2) / CELL_SIZE;
+
+            // 检查坐标是否在棋盘内
+            if (x < 0 || x >= BOARD_SIZE || y < 0 || y >= BOARD_SIZE) {
+                x = -1;
+                y = -1;
+            }
+
+            // 仍在同一个格子内时无需重绘
+            if (x == mouseX && y == mouseY) {
+                return;
+            }
+
+            // 只重绘旧格子和新格子
+            if (mouseX != -1) {
+                boardPanel.repaintCell(mouseX, mouseY);
+            }
+            mouseX = x;
+            mouseY = y;
+            if (mouseX != -1) {
+                boardPanel.repaintCell(mouseX, mouseY);
+            }
+        }
+    }
+
+    /**
+     * 控制面板类
+     */
+    private class ControlPanel extends JPanel {
+        private JButton newGameButton;
+        private JButton undoButton;
+        private JButton surrenderButton;
+        private JButton aiModeButton;
+        private JButton difficultyButton;
+        private JButton hintButton;
+        private JButton saveButton;
+        private JButton loadButton;
+
+        public ControlPanel() {
+            setLayout(new FlowLayout());
+
+            // 新建游戏按钮
+            newGameButton = new JButton("重新开始");
+            newGameButton.addActionListener(e -> {
+                int result = JOptionPane.showConfirmDialog(
+                        GomokuGameUI.this,
+                        "确定要重新开始游戏吗？",
+                        "确认",
+                        JOptionPane.YES_NO_OPTION);
+
+                if (result == JOptionPane.YES_OPTION) {
+                    gameCore.initBoard();
+                    boardPanel.repaint();
+                }
+            });
+
+            // 悔棋按钮
+            undoButton = new JButton("悔棋");
+            undoButton.addActionListener(e -> {
+                int steps = 1;
+                if (gameCore.isAiMode() && !gameCore.isCurrentPlayer()) {
+                    // 如果是人机模式且轮到AI，需要悔两步（AI一步和玩家一步）
+                    steps = 2;
+                }
+
+                gameCore.undo(steps);
+                boardPanel.repaint();
+            });
+
+            // 投降按钮
+            surrenderButton = new JButton("投降");
+            surrenderButton.addActionListener(e -> {
+                gameCore.surrender();
+                boardPanel.repaint();
+            });
+
+            // 人机模式按钮
+            aiModeButton = new JButton("人机对战");
+            aiModeButton.addActionListener(e -> {
+                gameCore.setAiMode(!gameCore.isAiMode());
+                if (gameCore.isAiMode()) {
+                    aiModeButton.setText("双人对战");
+                    JOptionPane.showMessageDialog(GomokuGameUI.this, "已切换至人机对战模式\n你将使用黑棋，AI使用白棋", "模式切换", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    aiModeButton.setText("人机对战");
+                    JOptionPane.showMessageDialog(GomokuGameUI.this, "已切换至双人对战模式", "模式切换", JOptionPane.INFORMATION_MESSAGE);
+                }
+
+                // 重新开始游戏
+                gameCore.initBoard();
+                boardPanel.repaint();
+            });
+
+            // 难度设置按钮
+            difficultyButton = new JButton("AI难度: " + gameCore.getDifficultyName(gameCore.getAiDifficulty()));
+            difficultyButton.addActionListener(e -> {
+                String[] options = new String[gameCore.getDifficultyCount()];
+                for (int i = 0; i < options.length; i++) {
+                    options[i] = gameCore.getDifficultyName(i + 1);
+                }
+                int choice = JOptionPane.showOptionDialog(
+                        GomokuGameUI.this,
+                        "选择AI难度",
+                        "AI难度设置",
+                        JOptionPane.DEFAULT_OPTION,
+                        JOptionPane.QUESTION_MESSAGE,
+                        null,
+                        options,
+                        options[gameCore.getAiDifficulty() - 1]);
+
+                if (choice != -1) {
+                    gameCore.setAIDifficulty(choice + 1);
+                    difficultyButton.setText("AI难度: " + gameCore.getDifficultyName(gameCore.getAiDifficulty()));
+                }
+            });
+
+            // 提示按钮
+            hintButton = new JButton("提示");
+            hintButton.addActionListener(e -> {
+                gameCore.showHint();
+                boardPanel.repaint();
+            });
+
+            // 保存按钮
+            saveButton = new JButton("保存游戏");
+            saveButton.addActionListener(e -> gameCore.saveGame());
+
+            // 加载按钮
+            loadButton = new JButton("加载游戏");
+            loadButton.addActionListener(e -> gameCore.loadGame());
+
+            add(newGameButton);
+            add(undoButton);
+            add(surrenderButton);
+            add(aiModeButton);
+            add(difficultyButton);
+            add(hintButton);
+            add(saveButton);
+            add(loadButton);
+        }
+    }
+    public BoardPanel getBoardPanel() {
+        return boardPanel;
+    }
+    public StatusPanel getStatusPanel() {
+        return statusPanel;
+    }
+    /**
+     * 状态面板类
+     */
+    public class StatusPanel extends JPanel {
+        private JLabel statusLabel;
+        // 双方棋钟，不限时时为空
+        private JLabel clockLabel;
+        // 定时刷新棋钟并检查超时
+        private Timer clockTimer;
+
+        public StatusPanel() {
+            statusLabel = new JLabel();
+            clockLabel = new JLabel();
+            add(statusLabel);
+            add(clockLabel);
+            updateStatus();
+
+            clockTimer = new Timer(200, e -> updateClock());
+            clockTimer.start();
+        }
+
+        private void updateClock() {
+            GameClock clock = gameCore.getClock();
+            if (clock == null) {
+                clockLabel.setText("");
+                return;
+            }
+            if (gameCore.checkTimeout()) {
+                boardPanel.repaint();
+                updateStatus();
+            }
+            clockLabel.setText("  黑 " + clock.format(true) + "  |  白 " + clock.format(false));
+        }
+
+        public void updateStatus() {
+            BoardSnapshot snapshot = gameCore.getSnapshot();
+            String status = snapshot.isCurrentPlayer() ? "当前轮到黑棋" : "当前轮到白棋";
+            if (snapshot.isGameOver()) {
+                if (!snapshot.getWinningMoves().isEmpty() || snapshot.isTimedOut()) {
+                    if (gameCore.isAiMode() && !snapshot.isCurrentPlayer()) {
+                        status = "白棋(AI)获胜！";
+                    } else {
+                        status = snapshot.isCurrentPlayer() ? "黑棋获胜！" : "白棋获胜！";
+                    }
+                } else {
+                    status = "平局！";
+                }
+                if (snapshot.isTimedOut()) {
+                    status += (snapshot.isCurrentPlayer() ? "（白棋超时）" : "（黑棋超时）");
+                }
+            }
+            if (gameCore.isAnalysisMode()) {
+                // 分析模式下显示当前手数和所在变化
+                VariationTree variations = gameCore.getVariations();
+                int node = snapshot.getCurrentNode();
+                status += "  [分析] 第" + variations.getDepth(node) + "手";
+                if (node != VariationTree.ROOT) {
+                    int parent = variations.getParent(node);
+                    status += "，变化 " + (variations.getSiblingIndex(node) + 1) + "/" + variations.getChildCount(parent);
+                }
+            }
+            if (netClient != null) {
+                status += netRole == GameProtocol.ROLE_SPECTATOR ? "  [观战]"
+                        : netRole == GameProtocol.ROLE_BLACK ? "  [联机 执黑]" : "  [联机 执白]";
+            }
+            statusLabel.setText(status);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,384 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+// 这个类是联机对局服务器：一个线程用Selector处理所有连接，同时托管多局对局，每局有两个对局者和任意多个观战者
+// 落子规则与单机相同（GameRule禁手、WinDetector判胜、LiveWindowTracker判和），协议见GameProtocol
+// 每一手只编码一次，放在共享的直接缓冲区里，发给每个连接时只取一个duplicate；连接平时只占一个很小的读缓冲区，
+// 写不完时才创建待发队列，待发太多的慢连接直接断开
+class GomokuServer implements Runnable {
+    private static final int BOARD_SIZE = 15;
+    // 客户端发来的帧都很短，读缓冲区放得下最长的一帧就够了
+    private static final int READ_BUFFER_SIZE = 16;
+    // 待发的帧超过这个数量时认为连接跟不上，断开它
+    private static final int MAX_PENDING_FRAMES = 512;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Map<Integer, ServerGame> games = new HashMap<>();
+    private volatile boolean running = true;
+    private int connectionCount = 0;
+
+    // 一个客户端连接
+    private static final class Connection {
+        final SocketChannel channel;
+        SelectionKey key;
+        final ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        // 没写完的帧，大多数时候为null
+        ArrayDeque<ByteBuffer> out;
+        ServerGame game;
+        byte role = -1;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    // 服务器上的一局对局
+    private static final class ServerGame {
+        final int id;
+        byte ruleCode;
+        GameRule rule;
+        final Boolean[][] board = new Boolean[BOARD_SIZE][BOARD_SIZE];
+        final WinDetector detector;
+        final LiveWindowTracker windows = new LiveWindowTracker();
+        final byte[] moves = new byte[BOARD_SIZE * BOARD_SIZE];
+        int moveCount = 0;
+        byte state = GameProtocol.STATE_PLAYING;
+        final Connection[] players = new Connection[2];
+        final List<Connection> spectators = new ArrayList<>();
+        // 发给新观战者的JOINED帧，落子后失效，同一手数的观战者共用
+        ByteBuffer spectatorSnapshot;
+
+        ServerGame(int id, byte ruleCode) {
+            this.id = id;
+            this.ruleCode = ruleCode;
+            this.rule = ruleCode == GameProtocol.RULE_RENJU ? new RenjuRule() : new FreestyleRule();
+            this.detector = new WinDetector(rule);
+        }
+
+        // 观战者先到时对局按无禁手创建，第一个对局者加入时还没有落子，可以改成他要求的规则
+        void setRule(byte code) {
+            ruleCode = code;
+            rule = code == GameProtocol.RULE_RENJU ? new RenjuRule() : new FreestyleRule();
+            detector.setRule(rule);
+            spectatorSnapshot = null;
+        }
+
+        boolean blackToMove() {
+            return moveCount % 2 == 0;
+        }
+
+        boolean isEmpty() {
+            return players[0] == null && players[1] == null && spectators.isEmpty();
+        }
+    }
+
+    public GomokuServer(int port) throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    // 实际监听的端口，构造时传0会分配一个空闲端口
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            read(connection);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            flush(connection);
+                        }
+                    } catch (IOException e) {
+                        close(connection);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("服务器出错: " + e.getMessage());
+        } finally {
+            try {
+                selector.close();
+                serverChannel.close();
+            } catch (IOException e) {
+                System.out.println("关闭服务器时出错: " + e.getMessage());
+            }
+        }
+    }
+
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            connectionCount++;
+        }
+    }
+
+    private void read(Connection connection) throws IOException {
+        int read = connection.channel.read(connection.in);
+        if (read < 0) {
+            close(connection);
+            return;
+        }
+        ByteBuffer in = connection.in;
+        in.flip();
+        while (GameProtocol.hasFrame(in)) {
+            int length = in.get() & 0xFF;
+            int end = in.position() + length;
+            if (length == 0) {
+                send(connection, GameProtocol.error(GameProtocol.ERROR_BAD_FRAME));
+                close(connection);
+                return;
+            }
+            // 限制在这一帧之内读取，内容不足的帧不会读到下一帧
+            int limit = in.limit();
+            in.limit(end);
+            handleFrame(connection, in, in.get());
+            if (!connection.channel.isOpen()) {
+                return;
+            }
+            in.limit(limit);
+            in.position(end);
+        }
+        // 帧长度超过缓冲区时不可能读完整，按错误帧处理
+        if (!in.hasRemaining() || in.remaining() < in.capacity()) {
+            in.compact();
+        } else {
+            send(connection, GameProtocol.error(GameProtocol.ERROR_BAD_FRAME));
+            close(connection);
+        }
+    }
+
+    private void handleFrame(Connection connection, ByteBuffer in, byte type) throws IOException {
+        switch (type) {
+            case GameProtocol.PLAY:
+                if (in.remaining() < 5) {
+                    break;
+                }
+                joinAsPlayer(connection, in.getInt(), in.get());
+                return;
+            case GameProtocol.WATCH:
+                if (in.remaining() < 4) {
+                    break;
+                }
+                joinAsSpectator(connection, in.getInt());
+                return;
+            case GameProtocol.MOVE:
+                if (in.remaining() < 1) {
+                    break;
+                }
+                move(connection, GameProtocol.cell(in.get()));
+                return;
+            default:
+                break;
+        }
+        send(connection, GameProtocol.error(GameProtocol.ERROR_BAD_FRAME));
+    }
+
+    private void joinAsPlayer(Connection connection, int gameId, byte ruleCode) throws IOException {
+        leaveGame(connection);
+        ServerGame game = games.computeIfAbsent(gameId, id -> new ServerGame(id, ruleCode));
+        int side = game.players[0] == null ? 0 : game.players[1] == null ? 1 : -1;
+        if (side < 0) {
+            send(connection, GameProtocol.error(GameProtocol.ERROR_GAME_FULL));
+            return;
+        }
+        if (game.moveCount == 0 && game.players[1 - side] == null && game.ruleCode != ruleCode) {
+            game.setRule(ruleCode);
+        }
+        game.players[side] = connection;
+        connection.game = game;
+        connection.role = (byte) side;
+        send(connection, GameProtocol.joined(game.id, connection.role, game.ruleCode, game.moves, game.moveCount));
+    }
+
+    private void joinAsSpectator(Connection connection, int gameId) throws IOException {
+        leaveGame(connection);
+        ServerGame game = games.get(gameId);
+        if (game == null) {
+            // 对局还没开始时先建一局空的，等对局者加入
+            game = new ServerGame(gameId, GameProtocol.RULE_FREESTYLE);
+            games.put(gameId, game);
+        }
+        game.spectators.add(connection);
+        connection.game = game;
+        connection.role = GameProtocol.ROLE_SPECTATOR;
+        if (game.spectatorSnapshot == null) {
+            game.spectatorSnapshot = GameProtocol.shared(GameProtocol.joined(game.id, GameProtocol.ROLE_SPECTATOR,
+                    game.ruleCode, game.moves, game.moveCount));
+        }
+        send(connection, game.spectatorSnapshot);
+    }
+
+    private void move(Connection connection, int cell) throws IOException {
+        ServerGame game = connection.game;
+        if (game == null || connection.role == GameProtocol.ROLE_SPECTATOR) {
+            send(connection, GameProtocol.error(GameProtocol.ERROR_NOT_JOINED));
+            return;
+        }
+        boolean player = connection.role == GameProtocol.ROLE_BLACK;
+        int x = cell / BOARD_SIZE;
+        int y = cell % BOARD_SIZE;
+        if (game.state != GameProtocol.STATE_PLAYING || player != game.blackToMove() || cell >= BOARD_SIZE * BOARD_SIZE
+                || game.board[x][y] != null || game.rule.isForbidden(game.board, x, y, player)) {
+            send(connection, GameProtocol.error(GameProtocol.ERROR_ILLEGAL_MOVE));
+            return;
+        }
+
+        game.board[x][y] = player;
+        game.windows.place(x, y, player);
+        boolean win = game.detector.place(x, y, player);
+        game.moves[game.moveCount++] = (byte) cell;
+        game.spectatorSnapshot = null;
+        if (win) {
+            game.state = player ? GameProtocol.STATE_BLACK_WIN : GameProtocol.STATE_WHITE_WIN;
+        } else if (game.detector.isFull() || game.windows.isDrawn()) {
+            game.state = GameProtocol.STATE_DRAW;
+        }
+
+        // 只编码一次，所有连接共用
+        broadcast(game, GameProtocol.shared(GameProtocol.moved(cell, game.state)));
+    }
+
+    private void broadcast(ServerGame game, ByteBuffer frame) throws IOException {
+        for (Connection player : game.players) {
+            if (player != null) {
+                send(player, frame);
+            }
+        }
+        // 发送中可能断开慢连接并把它从列表里移除，所以倒序遍历
+        for (int i = game.spectators.size() - 1; i >= 0; i--) {
+            if (i < game.spectators.size()) {
+                send(game.spectators.get(i), frame);
+            }
+        }
+    }
+
+    // 发送一帧：先尝试直接写，写不完的部分排队等OP_WRITE
+    private void send(Connection connection, ByteBuffer frame) throws IOException {
+        if (!connection.channel.isOpen()) {
+            return;
+        }
+        ByteBuffer view = frame.duplicate();
+        if (connection.out == null || connection.out.isEmpty()) {
+            try {
+                connection.channel.write(view);
+            } catch (IOException e) {
+                close(connection);
+                return;
+            }
+            if (!view.hasRemaining()) {
+                return;
+            }
+            if (connection.out == null) {
+                connection.out = new ArrayDeque<>();
+            }
+            connection.key.interestOps(connection.key.interestOps() | SelectionKey.OP_WRITE);
+        }
+        if (connection.out.size() >= MAX_PENDING_FRAMES) {
+            close(connection);
+            return;
+        }
+        connection.out.add(view);
+    }
+
+    private void flush(Connection connection) throws IOException {
+        ArrayDeque<ByteBuffer> out = connection.out;
+        while (out != null && !out.isEmpty()) {
+            ByteBuffer head = out.peek();
+            connection.channel.write(head);
+            if (head.hasRemaining()) {
+                return;
+            }
+            out.poll();
+        }
+        // 写完后释放队列，空闲连接不占额外内存
+        connection.out = null;
+        connection.key.interestOps(SelectionKey.OP_READ);
+    }
+
+    private void leaveGame(Connection connection) throws IOException {
+        ServerGame game = connection.game;
+        if (game == null) {
+            return;
+        }
+        if (connection.role == GameProtocol.ROLE_SPECTATOR) {
+            game.spectators.remove(connection);
+        } else {
+            game.players[connection.role] = null;
+            broadcast(game, GameProtocol.shared(GameProtocol.left(connection.role)));
+        }
+        connection.game = null;
+        connection.role = -1;
+        if (game.isEmpty()) {
+            games.remove(game.id);
+        }
+    }
+
+    private void close(Connection connection) {
+        if (!connection.channel.isOpen()) {
+            return;
+        }
+        connectionCount--;
+        try {
+            connection.key.cancel();
+            connection.channel.close();
+            leaveGame(connection);
+        } catch (IOException e) {
+            System.out.println("关闭连接时出错: " + e.getMessage());
+        }
+    }
+
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    // 用法: java GomokuServer [端口]
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : GameProtocol.DEFAULT_PORT;
+        GomokuServer server = new GomokuServer(port);
+        System.out.println("五子棋服务器已启动，端口 " + server.getPort());
+        server.run();
+    }
+}
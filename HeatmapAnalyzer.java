@@ -0,0 +1,166 @@
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+// 这个类为棋盘上每个空位计算双方的一步评估分数，用于界面上的热力图
+// 计算分给后台线程池，每批结果算完就通过invokeLater交给界面；局面变化后只重算受影响的格子，过期的结果直接丢弃
+class HeatmapAnalyzer {
+    private static final int BOARD_SIZE = 15;
+    private static final int CELL_COUNT = BOARD_SIZE * BOARD_SIZE;
+    // 棋型最远看到4格之外，落子只影响同一条线上4格以内的空位
+    private static final int REACH = 4;
+    private static final int[][] DIRECTIONS = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+    // 一次变化的格子太多（读档、跳转到很远的变化）时直接全部重算
+    private static final int MAX_INCREMENTAL_CHANGES = 8;
+
+    private final ExecutorService executor;
+    private final int batchCount;
+    // 每批结果在事件线程上写入后通知界面，参数是这批更新的格子
+    private final Consumer<int[]> listener;
+    // 每次局面变化加一，任务和回调发现代数不一致就丢弃结果
+    private final AtomicInteger generation = new AtomicInteger();
+
+    // 以下字段只在事件线程上访问
+    private final Boolean[][] lastBoard = new Boolean[BOARD_SIZE][BOARD_SIZE];
+    private boolean hasLastBoard = false;
+    private final int[] blackScores = new int[CELL_COUNT];
+    private final int[] whiteScores = new int[CELL_COUNT];
+    private final boolean[] scored = new boolean[CELL_COUNT];
+
+    public HeatmapAnalyzer(int threadCount, Consumer<int[]> listener) {
+        this.listener = listener;
+        // 每个线程分几批，让先算完的格子尽早显示
+        this.batchCount = threadCount * 4;
+        executor = Executors.newFixedThreadPool(threadCount, r -> {
+            Thread thread = new Thread(r, "heatmap-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // 局面可能变化时在事件线程上调用，与上次的局面比较，只重算受影响的格子
+    public void update(Boolean[][] board) {
+        boolean[] dirty = new boolean[CELL_COUNT];
+        int changes = 0;
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                if (!hasLastBoard || board[i][j] != lastBoard[i][j]) {
+                    changes++;
+                    if (changes <= MAX_INCREMENTAL_CHANGES) {
+                        markAffected(i, j, dirty);
+                    }
+                }
+            }
+        }
+        if (changes == 0) {
+            return;
+        }
+        if (changes > MAX_INCREMENTAL_CHANGES) {
+            Arrays.fill(dirty, true);
+        }
+
+        Boolean[][] snapshot = new Boolean[BOARD_SIZE][BOARD_SIZE];
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            System.arraycopy(board[i], 0, snapshot[i], 0, BOARD_SIZE);
+            System.arraycopy(board[i], 0, lastBoard[i], 0, BOARD_SIZE);
+        }
+        hasLastBoard = true;
+
+        // 之前代数还没算完的格子也要重新算
+        int count = 0;
+        int[] cells = new int[CELL_COUNT];
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            if (snapshot[cell / BOARD_SIZE][cell % BOARD_SIZE] != null) {
+                scored[cell] = false;
+            } else if (dirty[cell] || !scored[cell]) {
+                scored[cell] = false;
+                cells[count++] = cell;
+            }
+        }
+
+        // 按离中心由近到远排序，最可能关心的格子先出结果
+        int[] ordered = Arrays.stream(Arrays.copyOf(cells, count)).boxed()
+                .sorted((a, b) -> Integer.compare(centerDistance(a), centerDistance(b)))
+                .mapToInt(Integer::intValue).toArray();
+
+        int currentGeneration = generation.incrementAndGet();
+        for (int batch = 0; batch < batchCount && batch < ordered.length; batch++) {
+            int start = batch;
+            executor.execute(() -> scoreCells(currentGeneration, snapshot, ordered, start));
+        }
+    }
+
+    // 在后台线程计算一批格子，批内的格子按batchCount间隔交错取，每批都包含靠近中心的格子
+    private void scoreCells(int taskGeneration, Boolean[][] snapshot, int[] ordered, int start) {
+        int size = (ordered.length - start + batchCount - 1) / batchCount;
+        int[] cells = new int[size];
+        int[] black = new int[size];
+        int[] white = new int[size];
+        int count = 0;
+        for (int k = start; k < ordered.length; k += batchCount) {
+            if (generation.get() != taskGeneration) {
+                return;
+            }
+            int cell = ordered[k];
+            int x = cell / BOARD_SIZE;
+            int y = cell % BOARD_SIZE;
+            cells[count] = cell;
+            black[count] = AILogic.evaluatePosition(x, y, true, snapshot);
+            white[count] = AILogic.evaluatePosition(x, y, false, snapshot);
+            count++;
+        }
+
+        int resultCount = count;
+        SwingUtilities.invokeLater(() -> {
+            if (generation.get() != taskGeneration) {
+                return;
+            }
+            for (int k = 0; k < resultCount; k++) {
+                blackScores[cells[k]] = black[k];
+                whiteScores[cells[k]] = white[k];
+                scored[cells[k]] = true;
+            }
+            listener.accept(Arrays.copyOf(cells, resultCount));
+        });
+    }
+
+    // 标记一次落子或提子会影响到的空位：它本身和四条线上REACH格以内的格子
+    private static void markAffected(int x, int y, boolean[] dirty) {
+        dirty[x * BOARD_SIZE + y] = true;
+        for (int[] dir : DIRECTIONS) {
+            for (int i = -REACH; i <= REACH; i++) {
+                int nx = x + dir[0] * i;
+                int ny = y + dir[1] * i;
+                if (nx >= 0 && nx < BOARD_SIZE && ny >= 0 && ny < BOARD_SIZE) {
+                    dirty[nx * BOARD_SIZE + ny] = true;
+                }
+            }
+        }
+    }
+
+    private static int centerDistance(int cell) {
+        int center = BOARD_SIZE / 2;
+        return Math.abs(cell / BOARD_SIZE - center) + Math.abs(cell % BOARD_SIZE - center);
+    }
+
+    // 丢弃所有结果，下次update时全部重算
+    public void reset() {
+        generation.incrementAndGet();
+        hasLastBoard = false;
+        Arrays.fill(scored, false);
+    }
+
+    public boolean isScored(int x, int y) {
+        return scored[x * BOARD_SIZE + y];
+    }
+
+    // (x,y)的热度：黑棋在此落子的分数加上白棋在此落子的分数，即进攻分加防守分，
+    // 与搜索排序候选落子的方式一致，对双方相同，所以轮次变化时不必重算
+    public int getScore(int x, int y) {
+        int cell = x * BOARD_SIZE + y;
+        return blackScores[cell] + whiteScores[cell];
+    }
+}
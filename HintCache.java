@@ -0,0 +1,50 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 这个类按局面哈希缓存提示结果，容量有限，超出时淘汰最久没有用到的局面
+// 后台提示线程和界面线程都会访问，所有方法都加了同步
+class HintCache {
+    private final Map<Long, Entry> entries;
+
+    // 一条提示结果，depth为得到这个结果的搜索深度
+    static final class Entry {
+        final Move move;
+        final int depth;
+
+        Entry(Move move, int depth) {
+            this.move = move;
+            this.depth = depth;
+        }
+    }
+
+    public HintCache(int capacity) {
+        // accessOrder为true时按访问顺序排列，最久没用到的在最前面
+        entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // 查找局面的提示，没有时返回null
+    public synchronized Entry get(long key) {
+        return entries.get(key);
+    }
+
+    // 记录局面的提示，已有更深的结果时保留原结果
+    public synchronized void put(long key, Move move, int depth) {
+        Entry old = entries.get(key);
+        if (old == null || old.depth <= depth) {
+            entries.put(key, new Entry(move, depth));
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,133 @@
+import java.util.Arrays;
+
+// 这个类增量维护棋盘上所有五格窗口（横、竖、两条斜线，共572个）中黑白棋子的数量
+// 不含白子的窗口黑棋仍有可能连成五子，称为黑棋的活窗口，白棋同理；双方都没有活窗口时已经不可能分出胜负
+// 所有活窗口都不经过的空位对双方都没有价值，搜索中可以直接跳过
+class LiveWindowTracker {
+    private static final int BOARD_SIZE = 15;
+    private static final int CELL_COUNT = BOARD_SIZE * BOARD_SIZE;
+    private static final int WINDOW_LENGTH = 5;
+
+    // 每个窗口包含的格子，以及每个格子所在的窗口
+    private static final int[][] WINDOW_CELLS;
+    private static final int[][] CELL_WINDOWS;
+    private static final int WINDOW_COUNT;
+
+    static {
+        int[] dx = {1, 0, 1, 1};
+        int[] dy = {0, 1, 1, -1};
+        int[][] windows = new int[4 * CELL_COUNT][];
+        int[] cellWindowCount = new int[CELL_COUNT];
+        int count = 0;
+
+        for (int d = 0; d < 4; d++) {
+            for (int x = 0; x < BOARD_SIZE; x++) {
+                for (int y = 0; y < BOARD_SIZE; y++) {
+                    int endX = x + dx[d] * (WINDOW_LENGTH - 1);
+                    int endY = y + dy[d] * (WINDOW_LENGTH - 1);
+                    if (endX < 0 || endX >= BOARD_SIZE || endY < 0 || endY >= BOARD_SIZE) {
+                        continue;
+                    }
+                    int[] cells = new int[WINDOW_LENGTH];
+                    for (int i = 0; i < WINDOW_LENGTH; i++) {
+                        cells[i] = (x + dx[d] * i) * BOARD_SIZE + (y + dy[d] * i);
+                        cellWindowCount[cells[i]]++;
+                    }
+                    windows[count++] = cells;
+                }
+            }
+        }
+
+        WINDOW_COUNT = count;
+        WINDOW_CELLS = Arrays.copyOf(windows, count);
+        CELL_WINDOWS = new int[CELL_COUNT][];
+        for (int cell = 0; cell < CELL_COUNT; cell++) {
+            CELL_WINDOWS[cell] = new int[cellWindowCount[cell]];
+            cellWindowCount[cell] = 0;
+        }
+        for (int w = 0; w < count; w++) {
+            for (int cell : WINDOW_CELLS[w]) {
+                CELL_WINDOWS[cell][cellWindowCount[cell]++] = w;
+            }
+        }
+    }
+
+    // 每个窗口中的黑子数和白子数
+    private final byte[] blackCount = new byte[WINDOW_COUNT];
+    private final byte[] whiteCount = new byte[WINDOW_COUNT];
+    // 黑棋、白棋的活窗口数量
+    private int liveForBlack = WINDOW_COUNT;
+    private int liveForWhite = WINDOW_COUNT;
+
+    public LiveWindowTracker() {
+    }
+
+    // 从已有棋盘构建
+    public LiveWindowTracker(Boolean[][] board) {
+        load(board);
+    }
+
+    public void clear() {
+        Arrays.fill(blackCount, (byte) 0);
+        Arrays.fill(whiteCount, (byte) 0);
+        liveForBlack = WINDOW_COUNT;
+        liveForWhite = WINDOW_COUNT;
+    }
+
+    // 清空后按棋盘重新构建，用于读取存档
+    public void load(Boolean[][] board) {
+        clear();
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                if (board[i][j] != null) {
+                    place(i, j, board[i][j]);
+                }
+            }
+        }
+    }
+
+    public void place(int x, int y, boolean player) {
+        for (int w : CELL_WINDOWS[x * BOARD_SIZE + y]) {
+            if (player) {
+                // 窗口中第一次出现黑子，白棋失去这个窗口
+                if (blackCount[w]++ == 0) {
+                    liveForWhite--;
+                }
+            } else if (whiteCount[w]++ == 0) {
+                liveForBlack--;
+            }
+        }
+    }
+
+    public void undo(int x, int y, boolean player) {
+        for (int w : CELL_WINDOWS[x * BOARD_SIZE + y]) {
+            if (player) {
+                if (--blackCount[w] == 0) {
+                    liveForWhite++;
+                }
+            } else if (--whiteCount[w] == 0) {
+                liveForBlack++;
+            }
+        }
+    }
+
+    // 经过(x,y)的窗口是否都已经同时包含黑白棋子
+    public boolean isDeadCell(int x, int y) {
+        for (int w : CELL_WINDOWS[x * BOARD_SIZE + y]) {
+            if (blackCount[w] == 0 || whiteCount[w] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // player是否还有可能连成五子
+    public boolean hasLiveWindow(boolean player) {
+        return (player ? liveForBlack : liveForWhite) > 0;
+    }
+
+    // 双方都不可能再连成五子，可以直接判和
+    public boolean isDrawn() {
+        return liveForBlack == 0 && liveForWhite == 0;
+    }
+}
@@ -1,7 +1,16 @@
-// 这个类是程序的入口点，负责创建GameCore和GomokuGameUI对象并启动游戏
-public class Main {
-    public static void main(String[] args) {
-        GameCore gameCore = new GameCore();
-        new GomokuGameUI(gameCore);
-    }
+// 这个类是程序的入口点，负责创建GameCore和GomokuGameUI对象并启动游戏
+public class Main {
+    public static void main(String[] args) {
+        // 存在调优后的权重文件时使用它替换默认的棋型分值
+        AILogic.loadEvalWeights(new java.io.File("eval_weights.txt"));
+        // 存在权重文件时启用神经网络评估
+        AILogic.loadNeuralEvaluator(new java.io.File("gomoku.nnue"));
+        // 指定了缓存文件时打开持久分析缓存，例如 -Dgomoku.cache=analysis.cache -Dgomoku.cacheMb=256
+        String cacheFile = System.getProperty("gomoku.cache");
+        if (cacheFile != null) {
+            AILogic.openAnalysisCache(new java.io.File(cacheFile), Integer.getInteger("gomoku.cacheMb", 64));
+        }
+        GameCore gameCore = new GameCore();
+        new GomokuGameUI(gameCore);
+    }
 }
\ No newline at end of file
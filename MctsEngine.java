@@ -0,0 +1,399 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 这个类实现蒙特卡洛树搜索（UCT）引擎，作为AILogic极小极大搜索之外的另一种AI
+// 搜索树的节点保存在预分配的基本类型数组中，多个线程通过虚拟损失同时搜索同一棵树
+// 选择阶段用AILogic.evaluatePosition得到的先验值引导，模拟阶段也按启发式评分落子
+class MctsEngine {
+    private static final int BOARD_SIZE = 15;
+    private static final int CELL_COUNT = BOARD_SIZE * BOARD_SIZE;
+
+    // 节点状态：未展开、正在展开、已展开、终局（该节点的落子方获胜）、终局（平局）
+    private static final int STATE_LEAF = 0;
+    private static final int STATE_EXPANDING = 1;
+    private static final int STATE_EXPANDED = 2;
+    private static final int STATE_WIN = 3;
+    private static final int STATE_DRAW = 4;
+
+    // 结果按半分计：胜2、平1、负0
+    private static final int RESULT_WIN = 2;
+    private static final int RESULT_DRAW = 1;
+    private static final int RESULT_LOSS = 0;
+
+    // UCT探索系数
+    private static final double EXPLORATION = 1.0;
+    // 先验值的权重，随访问次数增加而衰减
+    private static final double PRIOR_WEIGHT = 2.0;
+    // 虚拟损失：线程经过节点时暂时记为若干次失败，促使其他线程选择别的分支
+    private static final int VIRTUAL_LOSS = 3;
+    // 候选落子与已有棋子的最大距离
+    private static final int NEIGHBOR_RANGE = 2;
+    // 模拟阶段的最大步数，超过后按平局处理
+    private static final int ROLLOUT_LIMIT = 40;
+    // 模拟阶段每一步随机抽取并评分的候选数
+    private static final int ROLLOUT_SAMPLES = 6;
+    // 节点至少被访问这么多次后才展开（访问次数中包含本线程的虚拟损失）
+    private static final int EXPAND_VISITS = VIRTUAL_LOSS + 2;
+
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // 节点池
+    private final int capacity;
+    private final int[] moves;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final int[] states;
+    private final int[] visits;
+    private final long[] values;
+    private final float[] priors;
+    private final AtomicInteger nodeCount = new AtomicInteger();
+    private volatile boolean poolFull;
+
+    private final int threadCount;
+    private final Worker[] workers;
+    private final ExecutorService executor;
+
+    // 搜索控制
+    private final AtomicLong playouts = new AtomicLong();
+    private volatile boolean stopped;
+    private long playoutBudget;
+    private long deadline;
+    private GameRule rule;
+
+    // 最近一次搜索的统计
+    private long lastPlayouts;
+    private long lastElapsedNanos;
+
+    public MctsEngine(int capacity, int threadCount) {
+        this.capacity = capacity;
+        this.threadCount = threadCount;
+        moves = new int[capacity];
+        firstChild = new int[capacity];
+        childCount = new int[capacity];
+        states = new int[capacity];
+        visits = new int[capacity];
+        values = new long[capacity];
+        priors = new float[capacity];
+
+        workers = new Worker[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            workers[i] = new Worker();
+        }
+        executor = Executors.newFixedThreadPool(threadCount, r -> {
+            Thread thread = new Thread(r, "mcts-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // 为player搜索最佳落子，playoutBudget和timeMillis为0表示不限制，两者至少设置一个
+    public synchronized Move findBestMove(Boolean[][] board, boolean player, long playoutBudget, long timeMillis) {
+        if (playoutBudget <= 0 && timeMillis <= 0) {
+            throw new IllegalArgumentException("必须设置模拟次数或时间限制");
+        }
+
+        long start = System.nanoTime();
+        this.playoutBudget = playoutBudget > 0 ? playoutBudget : Long.MAX_VALUE;
+        this.deadline = timeMillis > 0 ? start + timeMillis * 1_000_000L : Long.MAX_VALUE;
+        this.rule = AILogic.getRule();
+        playouts.set(0);
+        stopped = false;
+        poolFull = false;
+
+        // 根节点没有落子，只用编码中的玩家位记录落子方（对手）
+        initNode(0, Move.encode(0, 0, !player), 0f);
+        nodeCount.set(1);
+        for (Worker worker : workers) {
+            worker.reset(board);
+        }
+        if (!workers[0].expand(0)) {
+            return null;
+        }
+        if (childCount[0] == 1) {
+            // 只有一个合法落子时不需要搜索
+            return Move.decode(moves[firstChild[0]]);
+        }
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (Worker worker : workers) {
+            futures.add(executor.submit(worker::run));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (Exception e) {
+            stopped = true;
+            throw new IllegalStateException("蒙特卡洛搜索失败", e);
+        }
+
+        lastPlayouts = playouts.get();
+        lastElapsedNanos = System.nanoTime() - start;
+
+        // 选择访问次数最多的子节点
+        int best = -1;
+        for (int c = firstChild[0]; c < firstChild[0] + childCount[0]; c++) {
+            if (best < 0 || visits[c] > visits[best]) {
+                best = c;
+            }
+        }
+        return Move.decode(moves[best]);
+    }
+
+    // 最近一次搜索的模拟次数
+    public long getLastPlayouts() {
+        return lastPlayouts;
+    }
+
+    // 最近一次搜索每秒的模拟次数
+    public double getLastPlayoutsPerSecond() {
+        return lastElapsedNanos == 0 ? 0 : lastPlayouts * 1e9 / lastElapsedNanos;
+    }
+
+    private void initNode(int node, int move, float prior) {
+        moves[node] = move;
+        priors[node] = prior;
+        firstChild[node] = 0;
+        childCount[node] = 0;
+        visits[node] = 0;
+        values[node] = 0;
+        states[node] = STATE_LEAF;
+    }
+
+    private boolean shouldStop() {
+        return stopped || playouts.get() >= playoutBudget || System.nanoTime() >= deadline;
+    }
+
+    // 每个线程独立的棋盘副本和搜索路径，在构造时预分配
+    private class Worker {
+        private final Boolean[][] board = new Boolean[BOARD_SIZE][BOARD_SIZE];
+        private WinDetector detector;
+        private final int[] path = new int[CELL_COUNT + 1];
+        private final MoveStack applied = new MoveStack(CELL_COUNT);
+        private final int[] candidates = new int[CELL_COUNT];
+        private final int[] scores = new int[CELL_COUNT];
+
+        void reset(Boolean[][] source) {
+            for (int i = 0; i < BOARD_SIZE; i++) {
+                System.arraycopy(source[i], 0, board[i], 0, BOARD_SIZE);
+            }
+            detector = new WinDetector(board, rule);
+            applied.clear();
+        }
+
+        void run() {
+            while (!shouldStop()) {
+                playOnce();
+                playouts.incrementAndGet();
+            }
+        }
+
+        // 一次完整的选择、展开、模拟和回传
+        private void playOnce() {
+            int node = 0;
+            int depth = 0;
+            path[depth++] = 0;
+            int result;
+
+            while (true) {
+                int state = (int) INTS.getAcquire(states, node);
+                if (state == STATE_WIN) {
+                    result = RESULT_WIN;
+                    break;
+                }
+                if (state == STATE_DRAW) {
+                    result = RESULT_DRAW;
+                    break;
+                }
+                if (state == STATE_LEAF && !poolFull && (node == 0 || (int) INTS.getVolatile(visits, node) >= EXPAND_VISITS) && expand(node)) {
+                    state = STATE_EXPANDED;
+                }
+                if (state != STATE_EXPANDED || childCount[node] == 0) {
+                    // 叶子节点：从当前局面开始模拟，结果换算为该节点落子方的视角
+                    result = rollout(!Move.getPlayer(moves[node]), Move.getPlayer(moves[node]));
+                    break;
+                }
+
+                int child = select(node);
+                INTS.getAndAdd(visits, child, VIRTUAL_LOSS);
+                path[depth++] = child;
+                node = child;
+
+                int move = moves[child];
+                int x = Move.getX(move);
+                int y = Move.getY(move);
+                boolean player = Move.getPlayer(move);
+                board[x][y] = player;
+                applied.push(move);
+                if (detector.place(x, y, player)) {
+                    INTS.compareAndSet(states, child, STATE_LEAF, STATE_WIN);
+                } else if (detector.isFull()) {
+                    INTS.compareAndSet(states, child, STATE_LEAF, STATE_DRAW);
+                }
+            }
+
+            // 回传结果，同时撤销虚拟损失；result是path最后一个节点落子方的结果，每往上一层视角翻转一次
+            for (int i = depth - 1; i >= 0; i--) {
+                int n = path[i];
+                INTS.getAndAdd(visits, n, i == 0 ? 1 : 1 - VIRTUAL_LOSS);
+                LONGS.getAndAdd(values, n, (long) result);
+                result = RESULT_WIN - result;
+            }
+
+            // 恢复到根局面
+            while (!applied.isEmpty()) {
+                int move = applied.pop();
+                board[Move.getX(move)][Move.getY(move)] = null;
+                detector.undo(Move.getX(move), Move.getY(move));
+            }
+        }
+
+        // 按UCT加先验值选择子节点
+        private int select(int node) {
+            int first = firstChild[node];
+            int end = first + childCount[node];
+            double logParent = Math.log(Math.max(1, (int) INTS.getVolatile(visits, node)));
+            int best = first;
+            double bestValue = Double.NEGATIVE_INFINITY;
+
+            for (int c = first; c < end; c++) {
+                int n = (int) INTS.getVolatile(visits, c);
+                double value;
+                if (n == 0) {
+                    // 未访问的节点优先，先验值高的先访问
+                    value = 1e9 + priors[c];
+                } else {
+                    double mean = (long) LONGS.getVolatile(values, c) / (2.0 * n);
+                    value = mean + EXPLORATION * Math.sqrt(logParent / n) + PRIOR_WEIGHT * priors[c] / (n + 1);
+                }
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = c;
+                }
+            }
+            return best;
+        }
+
+        // 展开节点，由抢到展开权的线程生成全部子节点；成功返回true
+        boolean expand(int node) {
+            if (!INTS.compareAndSet(states, node, STATE_LEAF, STATE_EXPANDING)) {
+                return (int) INTS.getAcquire(states, node) == STATE_EXPANDED;
+            }
+
+            boolean player = !Move.getPlayer(moves[node]);
+            int count = generateCandidates(player);
+            int start = nodeCount.getAndAdd(count);
+            if (count == 0 || start + count > capacity) {
+                if (count > 0) {
+                    poolFull = true;
+                }
+                INTS.setRelease(states, node, STATE_LEAF);
+                return false;
+            }
+
+            // 先验值：进攻分加防守分，归一化到0-1
+            int maxScore = 1;
+            for (int i = 0; i < count; i++) {
+                maxScore = Math.max(maxScore, scores[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                initNode(start + i, Move.encode(candidates[i] / BOARD_SIZE, candidates[i] % BOARD_SIZE, player),
+                        (float) scores[i] / maxScore);
+            }
+            firstChild[node] = start;
+            childCount[node] = count;
+            INTS.setRelease(states, node, STATE_EXPANDED);
+            return true;
+        }
+
+        // 生成已有棋子附近的合法空位及其启发式评分，返回数量
+        private int generateCandidates(boolean player) {
+            int count = 0;
+            if (detector.getStoneCount() == 0) {
+                int center = (BOARD_SIZE - 1) / 2;
+                candidates[0] = center * BOARD_SIZE + center;
+                scores[0] = 1;
+                return 1;
+            }
+            for (int i = 0; i < BOARD_SIZE; i++) {
+                for (int j = 0; j < BOARD_SIZE; j++) {
+                    if (board[i][j] == null && hasNeighbor(i, j) && !rule.isForbidden(board, i, j, player)) {
+                        candidates[count] = i * BOARD_SIZE + j;
+                        scores[count] = heuristic(i, j, player);
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        // 从当前局面模拟到终局或步数上限，返回perspective一方的结果
+        private int rollout(boolean toMove, boolean perspective) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            boolean player = toMove;
+
+            for (int step = 0; step < ROLLOUT_LIMIT && !detector.isFull(); step++) {
+                int best = -1;
+                int bestScore = -1;
+                int found = 0;
+                for (int tries = 0; found < ROLLOUT_SAMPLES && tries < ROLLOUT_SAMPLES * 8; tries++) {
+                    int cell = random.nextInt(CELL_COUNT);
+                    int x = cell / BOARD_SIZE;
+                    int y = cell % BOARD_SIZE;
+                    if (board[x][y] != null || !hasNeighbor(x, y)) {
+                        continue;
+                    }
+                    found++;
+                    int score = heuristic(x, y, player) + random.nextInt(10);
+                    if (score > bestScore && !rule.isForbidden(board, x, y, player)) {
+                        bestScore = score;
+                        best = cell;
+                    }
+                }
+                if (best < 0) {
+                    break;
+                }
+
+                int x = best / BOARD_SIZE;
+                int y = best % BOARD_SIZE;
+                board[x][y] = player;
+                applied.push(Move.encode(x, y, player));
+                if (detector.place(x, y, player)) {
+                    return player == perspective ? RESULT_WIN : RESULT_LOSS;
+                }
+                player = !player;
+            }
+            return RESULT_DRAW;
+        }
+
+        // 启发式评分：自己在此落子的进攻分加上对手在此落子的防守分
+        private int heuristic(int x, int y, boolean player) {
+            board[x][y] = player;
+            int attack = AILogic.evaluatePosition(x, y, player, board);
+            board[x][y] = !player;
+            int defense = AILogic.evaluatePosition(x, y, !player, board);
+            board[x][y] = null;
+            return attack + defense / 2;
+        }
+
+        private boolean hasNeighbor(int x, int y) {
+            for (int i = Math.max(0, x - NEIGHBOR_RANGE); i <= Math.min(BOARD_SIZE - 1, x + NEIGHBOR_RANGE); i++) {
+                for (int j = Math.max(0, y - NEIGHBOR_RANGE); j <= Math.min(BOARD_SIZE - 1, y + NEIGHBOR_RANGE); j++) {
+                    if (board[i][j] != null) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -1,14 +1,49 @@
-import java.io.Serializable; // 添加Serializable接口的导入
-
-// 这个类表示一个落子动作，包含落子的坐标和玩家信息
-class Move implements Serializable {
-    int x;
-    int y;
-    boolean player;
-
-    public Move(int x, int y, boolean player) {
-        this.x = x;
-        this.y = y;
-        this.player = player;
-    }
-}
\ No newline at end of file
+import java.io.Serializable; // 添加Serializable接口的导入
+
+// 这个类表示一个落子动作，包含落子的坐标和玩家信息
+// 对象只在对外接口处使用，游戏记录和搜索内部把落子编码为int：低8位是x * BOARD_SIZE + y，第8位是玩家
+class Move implements Serializable {
+    // 与最初版本的类保持一致，旧存档中的Move对象才能读取
+    private static final long serialVersionUID = 4143405899232771267L;
+    private static final int BOARD_SIZE = 15;
+    // 表示没有落子
+    public static final int NONE = -1;
+    private static final int PLAYER_BIT = 1 << 8;
+    private static final int CELL_MASK = PLAYER_BIT - 1;
+
+    int x;
+    int y;
+    boolean player;
+
+    public Move(int x, int y, boolean player) {
+        this.x = x;
+        this.y = y;
+        this.player = player;
+    }
+
+    // 编码为int
+    public int encode() {
+        return encode(x, y, player);
+    }
+
+    public static int encode(int x, int y, boolean player) {
+        return (player ? PLAYER_BIT : 0) | (x * BOARD_SIZE + y);
+    }
+
+    // 从编码还原Move对象
+    public static Move decode(int move) {
+        return new Move(getX(move), getY(move), getPlayer(move));
+    }
+
+    public static int getX(int move) {
+        return (move & CELL_MASK) / BOARD_SIZE;
+    }
+
+    public static int getY(int move) {
+        return (move & CELL_MASK) % BOARD_SIZE;
+    }
+
+    public static boolean getPlayer(int move) {
+        return (move & PLAYER_BIT) != 0;
+    }
+}
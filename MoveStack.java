@@ -0,0 +1,59 @@
+import java.io.Serializable;
+import java.util.Arrays;
+
+// 这个类是预分配的落子栈，元素是Move.encode编码后的int，用于游戏历史记录和搜索中的模拟落子路径，压栈出栈不分配内存
+class MoveStack implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private int[] moves;
+    private int size = 0;
+
+    public MoveStack(int capacity) {
+        moves = new int[capacity];
+    }
+
+    // 复制另一个栈的内容
+    public MoveStack(MoveStack other) {
+        moves = Arrays.copyOf(other.moves, other.moves.length);
+        size = other.size;
+    }
+
+    public void push(int move) {
+        if (size == moves.length) {
+            // 只有超出预分配容量时才扩容
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int pop() {
+        if (size == 0) {
+            throw new IllegalStateException("落子栈为空");
+        }
+        return moves[--size];
+    }
+
+    // 查看栈顶，栈为空时返回Move.NONE
+    public int peek() {
+        return size == 0 ? Move.NONE : moves[size - 1];
+    }
+
+    // 按落子顺序获取第index手
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("落子序号越界: " + index);
+        }
+        return moves[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,77 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+// 这个类比较神经网络评估与手工评估函数的速度，用法：java --add-modules jdk.incubator.vector NnueBenchmark [权重文件]
+// 没有指定权重文件时使用随机权重；每个局面模拟一次落子、评估、撤销，与minimax叶子节点的调用方式相同
+class NnueBenchmark {
+    private static final int BOARD_SIZE = 15;
+    private static final int POSITIONS = 2000;
+    private static final int STONES = 40;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        NnueEvaluator evaluator = args.length > 0 ? NnueEvaluator.load(new File(args[0])) : NnueEvaluator.random(64, 1);
+        System.out.println("隐藏层大小: " + evaluator.getHiddenSize() + ", 运算实现: " + evaluator.getKernelName());
+
+        Boolean[][][] boards = new Boolean[POSITIONS][][];
+        Random random = new Random(42);
+        for (int p = 0; p < POSITIONS; p++) {
+            boards[p] = randomBoard(random);
+        }
+
+        // 前几轮用于预热JIT，只报告最后一轮
+        for (int round = 1; round <= ROUNDS; round++) {
+            long checksum = 0;
+            long evaluations = 0;
+            long start = System.nanoTime();
+            for (Boolean[][] board : boards) {
+                for (int i = 0; i < BOARD_SIZE; i++) {
+                    for (int j = 0; j < BOARD_SIZE; j++) {
+                        if (board[i][j] == null) {
+                            board[i][j] = false;
+                            checksum += AILogic.evaluateBoard(board);
+                            board[i][j] = null;
+                            evaluations++;
+                        }
+                    }
+                }
+            }
+            long handNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (Boolean[][] board : boards) {
+                NnueEvaluator.Accumulator accumulator = evaluator.newAccumulator(board);
+                for (int i = 0; i < BOARD_SIZE; i++) {
+                    for (int j = 0; j < BOARD_SIZE; j++) {
+                        if (board[i][j] == null) {
+                            accumulator.add(i, j, false);
+                            checksum += accumulator.evaluate();
+                            accumulator.remove(i, j, false);
+                        }
+                    }
+                }
+            }
+            long nnueNanos = System.nanoTime() - start;
+
+            if (round == ROUNDS) {
+                System.out.printf("手工评估: 每秒 %.0f 次%n", evaluations * 1e9 / handNanos);
+                System.out.printf("神经网络评估: 每秒 %.0f 次%n", evaluations * 1e9 / nnueNanos);
+                System.out.println("校验和: " + checksum);
+            }
+        }
+    }
+
+    private static Boolean[][] randomBoard(Random random) {
+        Boolean[][] board = new Boolean[BOARD_SIZE][BOARD_SIZE];
+        for (int s = 0; s < STONES; ) {
+            int x = random.nextInt(BOARD_SIZE);
+            int y = random.nextInt(BOARD_SIZE);
+            if (board[x][y] == null) {
+                board[x][y] = s % 2 == 0;
+                s++;
+            }
+        }
+        return board;
+    }
+}
@@ -0,0 +1,174 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+// 这个类是NNUE风格的小型神经网络评估函数，可以替代AILogic.evaluateBoard
+// 输入特征为每个格子上的黑子和白子（共450个），第一层的累加器在落子和撤销时增量更新，权重量化为int16
+// 输出经过截断ReLU后与输出权重做点积，分数为白棋（AI）减去黑棋（玩家），与evaluateBoard一致
+//
+// 权重文件格式（大端序）：魔数、版本、隐藏层大小H，然后依次为
+// 特征权重short[450 * H]、隐藏层偏置short[H]、输出权重short[H]、输出偏置int、输出右移位数int
+class NnueEvaluator {
+    private static final int BOARD_SIZE = 15;
+    private static final int CELL_COUNT = BOARD_SIZE * BOARD_SIZE;
+    private static final int FEATURE_COUNT = 2 * CELL_COUNT;
+    private static final int MAGIC = 0x474E4E55; // "GNNU"
+    private static final int VERSION = 1;
+    // 截断ReLU的上限
+    private static final int CLIP = 127;
+
+    private final int hiddenSize;
+    // 第feature个特征的权重位于[feature * hiddenSize, (feature + 1) * hiddenSize)
+    private final short[] featureWeights;
+    private final short[] hiddenBias;
+    private final short[] outputWeights;
+    private final int outputBias;
+    private final int outputShift;
+    private final NnueKernel kernel;
+
+    NnueEvaluator(int hiddenSize, short[] featureWeights, short[] hiddenBias, short[] outputWeights,
+                  int outputBias, int outputShift, NnueKernel kernel) {
+        if (featureWeights.length != FEATURE_COUNT * hiddenSize || hiddenBias.length != hiddenSize
+                || outputWeights.length != hiddenSize) {
+            throw new IllegalArgumentException("权重尺寸与隐藏层大小不一致");
+        }
+        this.hiddenSize = hiddenSize;
+        this.featureWeights = featureWeights;
+        this.hiddenBias = hiddenBias;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+        this.outputShift = outputShift;
+        this.kernel = kernel;
+    }
+
+    // 从本地文件加载权重
+    public static NnueEvaluator load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("不是神经网络权重文件: " + file.getName());
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("不支持的权重文件版本: " + version);
+            }
+            int hiddenSize = in.readInt();
+            if (hiddenSize <= 0 || hiddenSize > 4096) {
+                throw new IOException("无效的隐藏层大小: " + hiddenSize);
+            }
+            short[] featureWeights = readShorts(in, FEATURE_COUNT * hiddenSize);
+            short[] hiddenBias = readShorts(in, hiddenSize);
+            short[] outputWeights = readShorts(in, hiddenSize);
+            int outputBias = in.readInt();
+            int outputShift = in.readInt();
+            return new NnueEvaluator(hiddenSize, featureWeights, hiddenBias, outputWeights, outputBias, outputShift,
+                    createKernel());
+        }
+    }
+
+    // 保存权重
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(hiddenSize);
+            writeShorts(out, featureWeights);
+            writeShorts(out, hiddenBias);
+            writeShorts(out, outputWeights);
+            out.writeInt(outputBias);
+            out.writeInt(outputShift);
+        }
+    }
+
+    // 生成随机权重，用于测试和性能对比
+    public static NnueEvaluator random(int hiddenSize, long seed) {
+        Random random = new Random(seed);
+        short[] featureWeights = new short[FEATURE_COUNT * hiddenSize];
+        for (int i = 0; i < featureWeights.length; i++) {
+            featureWeights[i] = (short) (random.nextInt(17) - 8);
+        }
+        short[] hiddenBias = new short[hiddenSize];
+        short[] outputWeights = new short[hiddenSize];
+        for (int i = 0; i < hiddenSize; i++) {
+            hiddenBias[i] = (short) random.nextInt(32);
+            outputWeights[i] = (short) (random.nextInt(257) - 128);
+        }
+        return new NnueEvaluator(hiddenSize, featureWeights, hiddenBias, outputWeights, 0, 4, createKernel());
+    }
+
+    // 优先使用Vector API，当前JVM没有加载jdk.incubator.vector模块时使用标量实现
+    static NnueKernel createKernel() {
+        try {
+            return (NnueKernel) Class.forName("VectorNnueKernel").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ScalarNnueKernel();
+        }
+    }
+
+    public String getKernelName() {
+        return kernel.getName();
+    }
+
+    public int getHiddenSize() {
+        return hiddenSize;
+    }
+
+    // 为一个棋盘创建累加器
+    public Accumulator newAccumulator(Boolean[][] board) {
+        return new Accumulator(board);
+    }
+
+    private static int feature(int x, int y, boolean player) {
+        return (player ? 0 : CELL_COUNT) + x * BOARD_SIZE + y;
+    }
+
+    private static short[] readShorts(DataInputStream in, int count) throws IOException {
+        short[] values = new short[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readShort();
+        }
+        return values;
+    }
+
+    private static void writeShorts(DataOutputStream out, short[] values) throws IOException {
+        for (short value : values) {
+            out.writeShort(value);
+        }
+    }
+
+    // 第一层的累加器，保存隐藏层偏置加上所有棋子对应的特征权重之和
+    class Accumulator {
+        private final short[] values = new short[hiddenSize];
+
+        private Accumulator(Boolean[][] board) {
+            System.arraycopy(hiddenBias, 0, values, 0, hiddenSize);
+            for (int i = 0; i < BOARD_SIZE; i++) {
+                for (int j = 0; j < BOARD_SIZE; j++) {
+                    if (board[i][j] != null) {
+                        add(i, j, board[i][j]);
+                    }
+                }
+            }
+        }
+
+        // 落子时加上对应特征的权重
+        public void add(int x, int y, boolean player) {
+            kernel.add(values, featureWeights, feature(x, y, player) * hiddenSize, hiddenSize);
+        }
+
+        // 撤销时减去对应特征的权重
+        public void remove(int x, int y, boolean player) {
+            kernel.subtract(values, featureWeights, feature(x, y, player) * hiddenSize, hiddenSize);
+        }
+
+        // 计算输出层，分数为白棋减去黑棋
+        public int evaluate() {
+            return (kernel.clippedDot(values, outputWeights, hiddenSize, CLIP) + outputBias) >> outputShift;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+// 这个接口是神经网络评估的底层运算，分为使用Vector API的实现和标量实现，运行时选择可用的一个
+interface NnueKernel {
+    // acc[i] += weights[offset + i]，i从0到size-1，结果按int16截断
+    void add(short[] acc, short[] weights, int offset, int size);
+
+    // acc[i] -= weights[offset + i]，i从0到size-1，结果按int16截断
+    void subtract(short[] acc, short[] weights, int offset, int size);
+
+    // 计算sum(clamp(acc[i], 0, clip) * weights[i])，i从0到size-1
+    int clippedDot(short[] acc, short[] weights, int size, int clip);
+
+    String getName();
+}
@@ -0,0 +1,27 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+// 这个类是棋盘重绘较慢时记录的JFR事件，只有超过阈值的重绘才会写入记录，正常帧几乎没有开销
+@Name("gomoku.SlowPaint")
+@Label("棋盘重绘")
+@Category({"Gomoku", "界面"})
+@Description("超过阈值的BoardPanel.paintComponent调用")
+@Threshold("16 ms")
+class PaintEvent extends Event {
+    @Label("重绘格子数")
+    @Description("与裁剪区域相交的格子数，225表示整块重绘")
+    int cells;
+
+    @Label("动画数")
+    int animations;
+
+    @Label("热力图")
+    boolean heatmap;
+
+    @Label("快照版本")
+    long snapshotVersion;
+}
@@ -0,0 +1,133 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+// 这个类读写Piskvork的PSQ棋谱：第一行是"Piskvorky 15x15, 11:11, 0"形式的文件头，之后每行一手"x,y,毫秒"，
+// 坐标从1开始，x为列、y为行；落子之后可能还有引擎名等其他行，读取时跳过
+// 一个文件通常只有一局，多局直接首尾相接时以下一个文件头为界。PSQ不记录结果，读取时复盘判定
+class PsqFormat {
+    private static final int BOARD_SIZE = 15;
+    private static final String HEADER = "Piskvorky";
+
+    private PsqFormat() {
+    }
+
+    static class Reader implements GameRecordReader {
+        private final BufferedReader reader;
+        // 读过头的下一局文件头
+        private String pendingHeader;
+
+        Reader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public GameRecord next() throws IOException {
+            String header = pendingHeader;
+            pendingHeader = null;
+            while (header == null) {
+                String line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+                if (line.trim().startsWith(HEADER)) {
+                    header = line.trim();
+                }
+            }
+
+            int[] cells = new int[BOARD_SIZE * BOARD_SIZE];
+            long[] thinkMillis = new long[BOARD_SIZE * BOARD_SIZE];
+            int count = 0;
+            String error = checkHeader(header);
+            boolean inMoves = true;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.startsWith(HEADER)) {
+                    pendingHeader = line;
+                    break;
+                }
+                if (!inMoves || error != null) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                if (fields.length != 3 || !isNumber(fields[0]) || !isNumber(fields[1]) || !isNumber(fields[2])) {
+                    // 第一个不是落子的行之后都是附加信息
+                    inMoves = false;
+                    continue;
+                }
+                int x = Integer.parseInt(fields[0].trim()) - 1;
+                int y = Integer.parseInt(fields[1].trim()) - 1;
+                if (x < 0 || x >= BOARD_SIZE || y < 0 || y >= BOARD_SIZE || count == cells.length) {
+                    error = "落子坐标超出棋盘: " + line;
+                    continue;
+                }
+                thinkMillis[count] = Long.parseLong(fields[2].trim());
+                cells[count++] = x * BOARD_SIZE + y;
+            }
+            // 整局读完之后再报告错误，下一次调用从下一局开始
+            if (error != null) {
+                throw new IllegalArgumentException(error);
+            }
+            cells = Arrays.copyOf(cells, count);
+            GameFormats.checkCells(cells);
+            // 时间全为0的棋谱当作没有记录思考时间
+            boolean timed = false;
+            for (int i = 0; i < count; i++) {
+                timed |= thinkMillis[i] != 0;
+            }
+            return new GameRecord(GameFormats.replayResult(cells), cells, timed ? Arrays.copyOf(thinkMillis, count) : null);
+        }
+
+        // 检查文件头中的棋盘大小，不是15x15时返回错误信息
+        private static String checkHeader(String header) {
+            String[] tokens = header.split("[\\s,]+");
+            if (tokens.length < 2 || !tokens[1].equals(BOARD_SIZE + "x" + BOARD_SIZE)) {
+                return "不支持的棋盘大小: " + header;
+            }
+            return null;
+        }
+
+        private static boolean isNumber(String text) {
+            text = text.trim();
+            if (text.isEmpty()) {
+                return false;
+            }
+            for (int i = text.charAt(0) == '-' ? 1 : 0; i < text.length(); i++) {
+                if (!Character.isDigit(text.charAt(i))) {
+                    return false;
+                }
+            }
+            return text.length() > (text.charAt(0) == '-' ? 1 : 0);
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    static class Writer implements GameRecordWriter {
+        private final java.io.Writer out;
+
+        Writer(java.io.Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(GameRecord record) throws IOException {
+            StringBuilder sb = new StringBuilder(record.size() * 10 + 32);
+            sb.append(HEADER).append(' ').append(BOARD_SIZE).append('x').append(BOARD_SIZE).append(", 11:11, 0\n");
+            for (int i = 0; i < record.size(); i++) {
+                sb.append(record.getX(i) + 1).append(',').append(record.getY(i) + 1).append(',')
+                        .append(Math.max(0, record.getThinkMillis(i))).append('\n');
+            }
+            out.write(sb.toString());
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
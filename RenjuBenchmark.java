@@ -0,0 +1,95 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+// 这个类对棋谱库做禁手批量校验并统计耗时，用法：java RenjuBenchmark <棋谱文件> [轮数]
+// 每一局按记录逐手复盘，轮到黑棋时对所有空位做一次禁手检测，同时校验记录中的黑棋落子是否违规
+class RenjuBenchmark {
+    private static final int BOARD_SIZE = 15;
+
+    private long positions;
+    private long checks;
+    private long forbiddenPoints;
+    private int games;
+    private int violations;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("用法: java RenjuBenchmark <棋谱文件> [轮数]");
+            return;
+        }
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        GameRule rule = new RenjuRule();
+
+        // 前面几轮用于预热JIT，只报告最后一轮的结果
+        for (int round = 1; round <= rounds; round++) {
+            RenjuBenchmark benchmark = new RenjuBenchmark();
+            long start = System.nanoTime();
+            benchmark.run(args[0], rule, round == rounds);
+            long elapsed = System.nanoTime() - start;
+            if (round == rounds) {
+                benchmark.report(elapsed);
+            }
+        }
+    }
+
+    private void run(String fileName, GameRule rule, boolean printViolations) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
+            GameRecord record;
+            while ((record = GameRecord.readNext(reader)) != null) {
+                games++;
+                replay(record, rule, printViolations);
+            }
+        }
+    }
+
+    private void replay(GameRecord record, GameRule rule, boolean printViolations) {
+        Boolean[][] board = new Boolean[BOARD_SIZE][BOARD_SIZE];
+
+        for (int i = 0; i < record.size(); i++) {
+            int x = record.getX(i);
+            int y = record.getY(i);
+            boolean black = record.isBlack(i);
+
+            if (black) {
+                positions++;
+                // 对所有空位做禁手检测，模拟候选生成时的调用方式
+                for (int a = 0; a < BOARD_SIZE; a++) {
+                    for (int b = 0; b < BOARD_SIZE; b++) {
+                        if (board[a][b] == null) {
+                            checks++;
+                            if (rule.isForbidden(board, a, b, true)) {
+                                forbiddenPoints++;
+                            }
+                        }
+                    }
+                }
+            }
+
+            if (board[x][y] != null) {
+                violations++;
+                if (printViolations) {
+                    System.out.println("第" + games + "局第" + (i + 1) + "手落在已有棋子的位置: " + x + "," + y);
+                }
+                return;
+            }
+            if (rule.isForbidden(board, x, y, black)) {
+                violations++;
+                if (printViolations) {
+                    System.out.println("第" + games + "局第" + (i + 1) + "手为黑棋禁手: " + x + "," + y);
+                }
+            }
+            board[x][y] = black;
+        }
+    }
+
+    private void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.println("对局数: " + games);
+        System.out.println("黑棋局面数: " + positions);
+        System.out.println("禁手检测次数: " + checks);
+        System.out.println("禁手点数: " + forbiddenPoints);
+        System.out.println("违规落子数: " + violations);
+        System.out.printf("耗时: %.1f ms, 每秒检测 %.0f 次%n", seconds * 1000, checks / seconds);
+    }
+}
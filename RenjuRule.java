@@ -0,0 +1,201 @@
+// 这个类实现连珠（Renju）规则：黑棋禁止三三、四四和长连，且黑棋必须恰好连成五子才算获胜，白棋不受限制
+// 禁手检测只扫描经过落子点的四条线（每个方向前后各五格），检测时会临时落子，结束后棋盘保持不变
+class RenjuRule implements GameRule {
+    private static final int BOARD_SIZE = 15;
+    // 判断活三时，递归检查成四点本身是否为禁手的最大深度
+    private static final int MAX_DEPTH = 2;
+    // 构成禁手至少需要的周边黑子数量（三三需要另外四颗黑子）
+    private static final int MIN_NEARBY_BLACK = 4;
+
+    // 定义方向数组：水平、垂直、左上到右下、右上到左下
+    private static final int[][] DIRECTIONS = {
+        {1, 0}, {0, 1}, {1, 1}, {1, -1}
+    };
+
+    @Override
+    public String getName() {
+        return "连珠规则";
+    }
+
+    @Override
+    public boolean isExactFiveRequired(boolean player) {
+        // 黑棋长连不算获胜，白棋五子以上均可获胜
+        return player;
+    }
+
+    @Override
+    public boolean hasForbiddenMoves() {
+        return true;
+    }
+
+    @Override
+    public boolean isForbidden(Boolean[][] board, int x, int y, boolean player) {
+        // 只有黑棋有禁手
+        if (!player || board[x][y] != null) {
+            return false;
+        }
+
+        // 快速预判：周边黑子太少时不可能构成禁手，绝大多数位置在这里直接返回
+        if (countNearbyBlack(board, x, y) < MIN_NEARBY_BLACK) {
+            return false;
+        }
+
+        board[x][y] = true;
+        try {
+            return checkForbidden(board, x, y, MAX_DEPTH);
+        } finally {
+            board[x][y] = null;
+        }
+    }
+
+    // 假设(x,y)已经落下黑子，判断这一手是否构成禁手
+    private boolean checkForbidden(Boolean[][] board, int x, int y, int depth) {
+        // 同时形成五连时以胜论，不算禁手
+        for (int[] dir : DIRECTIONS) {
+            if (runLength(board, x, y, dir[0], dir[1]) == 5) {
+                return false;
+            }
+        }
+
+        int fours = 0;
+        int threes = 0;
+        for (int[] dir : DIRECTIONS) {
+            int dx = dir[0];
+            int dy = dir[1];
+
+            // 长连
+            if (runLength(board, x, y, dx, dy) > 5) {
+                return true;
+            }
+
+            int count = countFours(board, x, y, dx, dy);
+            if (count > 0) {
+                // 同一方向上已经成四时不再计算活三
+                fours += count;
+            } else if (isOpenThree(board, x, y, dx, dy, depth)) {
+                threes++;
+            }
+        }
+
+        return fours >= 2 || threes >= 2;
+    }
+
+    // 统计(x,y)在一个方向上形成的四的个数，活四算一个，同一条线上的两个冲四（如"X.XXX.X"）算两个
+    private int countFours(Boolean[][] board, int x, int y, int dx, int dy) {
+        int count = 0;
+        int first = 0;
+        boolean open = false;
+
+        for (int i = -4; i <= 4; i++) {
+            if (i == 0 || !isEmptyAt(board, x, y, dx, dy, i)) {
+                continue;
+            }
+            if (makesFiveThrough(board, x, y, dx, dy, i)) {
+                if (count == 0) {
+                    first = i;
+                } else if (count == 1 && i - first == 5) {
+                    // 两个成五点相距五格，说明是同一个活四
+                    open = true;
+                }
+                count++;
+            }
+        }
+
+        return open && count == 2 ? 1 : count;
+    }
+
+    // 判断(x,y)在一个方向上是否形成活三：存在一个非禁手的空位，落子后能形成包含(x,y)的活四
+    private boolean isOpenThree(Boolean[][] board, int x, int y, int dx, int dy, int depth) {
+        for (int i = -4; i <= 4; i++) {
+            if (i == 0 || !isEmptyAt(board, x, y, dx, dy, i)) {
+                continue;
+            }
+
+            int nx = x + dx * i;
+            int ny = y + dy * i;
+            board[nx][ny] = true;
+            try {
+                if (isStraightFour(board, x, y, dx, dy)
+                        && (depth == 0 || !checkForbidden(board, nx, ny, depth - 1))) {
+                    return true;
+                }
+            } finally {
+                board[nx][ny] = null;
+            }
+        }
+
+        return false;
+    }
+
+    // 判断(x,y)在一个方向上是否为活四：恰好有两个相距五格的成五点
+    private boolean isStraightFour(Boolean[][] board, int x, int y, int dx, int dy) {
+        int count = 0;
+        int first = 0;
+
+        for (int i = -4; i <= 4; i++) {
+            if (i == 0 || !isEmptyAt(board, x, y, dx, dy, i)) {
+                continue;
+            }
+            if (makesFiveThrough(board, x, y, dx, dy, i)) {
+                if (count == 0) {
+                    first = i;
+                } else if (i - first != 5) {
+                    return false;
+                }
+                count++;
+            }
+        }
+
+        return count == 2;
+    }
+
+    // 判断在偏移i处补一颗黑子后，是否形成恰好五子且经过(x,y)的连珠
+    private boolean makesFiveThrough(Boolean[][] board, int x, int y, int dx, int dy, int i) {
+        int low = i;
+        while (isBlackAt(board, x, y, dx, dy, low - 1)) {
+            low--;
+        }
+        int high = i;
+        while (isBlackAt(board, x, y, dx, dy, high + 1)) {
+            high++;
+        }
+        return high - low + 1 == 5 && low <= 0 && high >= 0;
+    }
+
+    // 计算经过黑子(x,y)在一个方向上的连续黑子数
+    private int runLength(Boolean[][] board, int x, int y, int dx, int dy) {
+        int count = 1;
+        for (int i = 1; isBlackAt(board, x, y, dx, dy, i); i++) {
+            count++;
+        }
+        for (int i = -1; isBlackAt(board, x, y, dx, dy, i); i--) {
+            count++;
+        }
+        return count;
+    }
+
+    // 统计四条线上距离(x,y)五格以内的黑子数量
+    private int countNearbyBlack(Boolean[][] board, int x, int y) {
+        int count = 0;
+        for (int[] dir : DIRECTIONS) {
+            for (int i = -5; i <= 5; i++) {
+                if (i != 0 && isBlackAt(board, x, y, dir[0], dir[1], i)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static boolean isBlackAt(Boolean[][] board, int x, int y, int dx, int dy, int i) {
+        int nx = x + dx * i;
+        int ny = y + dy * i;
+        return nx >= 0 && nx < BOARD_SIZE && ny >= 0 && ny < BOARD_SIZE && Boolean.TRUE.equals(board[nx][ny]);
+    }
+
+    private static boolean isEmptyAt(Boolean[][] board, int x, int y, int dx, int dy, int i) {
+        int nx = x + dx * i;
+        int ny = y + dy * i;
+        return nx >= 0 && nx < BOARD_SIZE && ny >= 0 && ny < BOARD_SIZE && board[nx][ny] == null;
+    }
+}
@@ -0,0 +1,207 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+// 这个类读写RIF（国际连珠联盟）的XML棋谱数据库，用StAX逐个事件解析，几GB的文件也只占用一局棋的内存
+// 只使用<game>元素的bresult属性（1黑胜、0白胜、0.5和棋）和<move>元素，选手、比赛等其他元素跳过
+// 落子写作"h8"：字母a-o为列，数字1-15为行，1在最下面，换算为y = 15 - 行号
+class RifFormat {
+    private static final int BOARD_SIZE = 15;
+
+    private RifFormat() {
+    }
+
+    // 解析"h8 i9 ..."形式的落子，字母和数字之间、各手之间的空白可有可无
+    static int[] parseMoves(String text) {
+        int[] cells = new int[BOARD_SIZE * BOARD_SIZE];
+        int count = 0;
+        int i = 0;
+        while (i < text.length()) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (c < 'a' || c >= 'a' + BOARD_SIZE) {
+                throw new IllegalArgumentException("无效的落子: " + text.substring(i, Math.min(text.length(), i + 3)));
+            }
+            int j = i + 1;
+            while (j < text.length() && Character.isDigit(text.charAt(j)) && j < i + 3) {
+                j++;
+            }
+            if (j == i + 1) {
+                throw new IllegalArgumentException("无效的落子: " + text.substring(i, Math.min(text.length(), i + 3)));
+            }
+            int row = Integer.parseInt(text.substring(i + 1, j));
+            if (row < 1 || row > BOARD_SIZE || count == cells.length) {
+                throw new IllegalArgumentException("落子超出棋盘: " + text.substring(i, j));
+            }
+            cells[count++] = (c - 'a') * BOARD_SIZE + BOARD_SIZE - row;
+            i = j;
+        }
+        return Arrays.copyOf(cells, count);
+    }
+
+    static String formatMove(int x, int y) {
+        return String.valueOf((char) ('a' + x)) + (BOARD_SIZE - y);
+    }
+
+    static class Reader implements GameRecordReader {
+        private final InputStream in;
+        private final XMLStreamReader xml;
+
+        Reader(InputStream in) throws IOException {
+            this.in = in;
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            // 不处理DTD和外部实体，避免读取文件时访问网络或本地其他文件
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+            try {
+                xml = factory.createXMLStreamReader(in);
+            } catch (XMLStreamException e) {
+                in.close();
+                throw new IOException("无法解析RIF文件: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public GameRecord next() throws IOException {
+            try {
+                char result = GameRecord.RESULT_UNKNOWN;
+                String moves = null;
+                boolean inGame = false;
+                while (xml.hasNext()) {
+                    int event = xml.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String name = xml.getLocalName();
+                        if (name.equals("game")) {
+                            inGame = true;
+                            result = parseResult(xml.getAttributeValue(null, "bresult"));
+                            moves = "";
+                        } else if (inGame && name.equals("move")) {
+                            moves = xml.getElementText();
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT && inGame && xml.getLocalName().equals("game")) {
+                        int[] cells = parseMoves(moves);
+                        GameFormats.checkCells(cells);
+                        return new GameRecord(result, cells);
+                    }
+                }
+                return null;
+            } catch (XMLStreamException e) {
+                throw new IOException("RIF文件格式错误: " + e.getMessage(), e);
+            }
+        }
+
+        private static char parseResult(String value) {
+            if (value == null) {
+                return GameRecord.RESULT_UNKNOWN;
+            }
+            switch (value.trim()) {
+                case "1":
+                    return GameRecord.RESULT_BLACK;
+                case "0":
+                    return GameRecord.RESULT_WHITE;
+                case "0.5":
+                    return GameRecord.RESULT_DRAW;
+                default:
+                    return GameRecord.RESULT_UNKNOWN;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                xml.close();
+            } catch (XMLStreamException e) {
+                // 下面关闭底层流
+            }
+            in.close();
+        }
+    }
+
+    static class Writer implements GameRecordWriter {
+        private final OutputStream out;
+        private final XMLStreamWriter xml;
+        private int nextId = 1;
+
+        Writer(OutputStream out) throws IOException {
+            this.out = new java.io.BufferedOutputStream(out);
+            try {
+                xml = XMLOutputFactory.newInstance().createXMLStreamWriter(this.out, "UTF-8");
+                xml.writeStartDocument("UTF-8", "1.0");
+                xml.writeCharacters("\n");
+                xml.writeStartElement("database");
+                xml.writeCharacters("\n  ");
+                xml.writeStartElement("games");
+            } catch (XMLStreamException e) {
+                out.close();
+                throw new IOException("无法写出RIF文件: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void write(GameRecord record) throws IOException {
+            StringBuilder moves = new StringBuilder(record.size() * 4);
+            for (int i = 0; i < record.size(); i++) {
+                if (i > 0) {
+                    moves.append(' ');
+                }
+                moves.append(formatMove(record.getX(i), record.getY(i)));
+            }
+            try {
+                xml.writeCharacters("\n    ");
+                xml.writeStartElement("game");
+                xml.writeAttribute("id", String.valueOf(nextId++));
+                String result = formatResult(record.getResult());
+                if (result != null) {
+                    xml.writeAttribute("bresult", result);
+                }
+                xml.writeStartElement("move");
+                xml.writeCharacters(moves.toString());
+                xml.writeEndElement();
+                xml.writeEndElement();
+            } catch (XMLStreamException e) {
+                throw new IOException("写出RIF文件时出错: " + e.getMessage(), e);
+            }
+        }
+
+        private static String formatResult(char result) {
+            switch (result) {
+                case GameRecord.RESULT_BLACK:
+                    return "1";
+                case GameRecord.RESULT_WHITE:
+                    return "0";
+                case GameRecord.RESULT_DRAW:
+                    return "0.5";
+                default:
+                    return null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                xml.writeCharacters("\n  ");
+                xml.writeEndElement();
+                xml.writeCharacters("\n");
+                xml.writeEndElement();
+                xml.writeCharacters("\n");
+                xml.writeEndDocument();
+                xml.close();
+            } catch (XMLStreamException e) {
+                throw new IOException("写出RIF文件时出错: " + e.getMessage(), e);
+            } finally {
+                out.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+// 这个类是神经网络评估的标量实现，在Vector API不可用时使用
+class ScalarNnueKernel implements NnueKernel {
+    @Override
+    public void add(short[] acc, short[] weights, int offset, int size) {
+        for (int i = 0; i < size; i++) {
+            acc[i] = (short) (acc[i] + weights[offset + i]);
+        }
+    }
+
+    @Override
+    public void subtract(short[] acc, short[] weights, int offset, int size) {
+        for (int i = 0; i < size; i++) {
+            acc[i] = (short) (acc[i] - weights[offset + i]);
+        }
+    }
+
+    @Override
+    public int clippedDot(short[] acc, short[] weights, int size, int clip) {
+        int sum = 0;
+        for (int i = 0; i < size; i++) {
+            int value = Math.max(0, Math.min(clip, acc[i]));
+            sum += value * weights[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String getName() {
+        return "标量";
+    }
+}
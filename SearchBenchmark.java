@@ -0,0 +1,75 @@
+import java.util.Random;
+
+// 这个类在固定时间内测量各项搜索优化对迭代加深深度的贡献
+// 用法：java SearchBenchmark [每步毫秒数] [局面数] [选项组合...]，选项组合如"none"、"pvs"、"pvs,asp,lmr"，默认测试全部八种组合
+class SearchBenchmark {
+    private static final int BOARD_SIZE = 15;
+
+    public static void main(String[] args) {
+        long timeMillis = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        int positionCount = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String[] configs;
+        if (args.length > 2) {
+            configs = new String[args.length - 2];
+            System.arraycopy(args, 2, configs, 0, configs.length);
+        } else {
+            configs = new String[] {"none", "pvs", "asp", "lmr", "pvs,asp", "pvs,lmr", "asp,lmr", "pvs,asp,lmr"};
+        }
+
+        // 用固定种子生成中局局面，保证每次测试的局面相同
+        Random random = new Random(2024);
+        Boolean[][][] boards = new Boolean[positionCount][][];
+        MoveStack[] histories = new MoveStack[positionCount];
+        for (int p = 0; p < positionCount; p++) {
+            boards[p] = new Boolean[BOARD_SIZE][BOARD_SIZE];
+            histories[p] = new MoveStack(BOARD_SIZE * BOARD_SIZE);
+            generatePosition(random, boards[p], histories[p]);
+        }
+
+        System.out.println("每步" + timeMillis + " ms, " + positionCount + "个局面");
+        for (String config : configs) {
+            SearchOptions options = SearchOptions.parse(config);
+            int depthSum = 0;
+            int minDepth = Integer.MAX_VALUE;
+            long nodes = 0;
+            long nanos = 0;
+            for (int p = 0; p < positionCount; p++) {
+                boolean player = histories[p].size() % 2 == 0;
+                SearchResult result = AILogic.findBestMoveTimed(boards[p], histories[p], player, timeMillis, options);
+                depthSum += result.depth;
+                minDepth = Math.min(minDepth, result.depth);
+                nodes += result.nodes;
+                nanos += result.elapsedNanos;
+            }
+            System.out.printf("%-12s 平均深度 %.2f, 最小深度 %d, 每秒 %.0f 个节点%n", options,
+                    (double) depthSum / positionCount, minDepth, nodes * 1e9 / nanos);
+        }
+    }
+
+    // 前几手在中心附近随机落子，之后双方用短时搜索对弈若干手，得到尚未分出胜负的中局局面
+    private static void generatePosition(Random random, Boolean[][] board, MoveStack history) {
+        int plies = 10 + random.nextInt(10);
+        while (history.size() < plies) {
+            boolean player = history.size() % 2 == 0;
+            int x;
+            int y;
+            if (history.size() < 3) {
+                x = 5 + random.nextInt(5);
+                y = 5 + random.nextInt(5);
+                if (board[x][y] != null) {
+                    continue;
+                }
+            } else {
+                SearchResult result = AILogic.findBestMoveTimed(board, history, player, 20, SearchOptions.all());
+                if (Math.abs(result.score) >= AILogic.WIN_SCORE / 2) {
+                    // 已经出现必胜局面，不适合用来测量搜索深度
+                    break;
+                }
+                x = result.move.x;
+                y = result.move.y;
+            }
+            board[x][y] = player;
+            history.push(Move.encode(x, y, player));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+// 这个类保存迭代加深搜索中各项优化的开关，便于逐项测量它们对搜索深度的贡献
+class SearchOptions {
+    // 主要变例搜索：第一个候选用完整窗口，其余用零窗口试探，失败时再用完整窗口重搜
+    boolean principalVariation;
+    // 渴望窗口：以上一轮迭代的分数为中心缩小根节点窗口，落在窗口外时放宽后重搜
+    boolean aspirationWindows;
+    // 晚期落子削减：排序靠后的平稳候选先减少一层深度搜索，结果超过alpha时再按原深度重搜
+    boolean lateMoveReductions;
+
+    public SearchOptions(boolean principalVariation, boolean aspirationWindows, boolean lateMoveReductions) {
+        this.principalVariation = principalVariation;
+        this.aspirationWindows = aspirationWindows;
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    // 全部开启
+    public static SearchOptions all() {
+        return new SearchOptions(true, true, true);
+    }
+
+    // 全部关闭，即普通的Alpha-Beta搜索
+    public static SearchOptions none() {
+        return new SearchOptions(false, false, false);
+    }
+
+    // 从逗号分隔的开关名解析，例如"pvs,asp,lmr"，"none"表示全部关闭
+    public static SearchOptions parse(String text) {
+        SearchOptions options = none();
+        for (String name : text.split(",")) {
+            switch (name.trim()) {
+                case "pvs":
+                    options.principalVariation = true;
+                    break;
+                case "asp":
+                    options.aspirationWindows = true;
+                    break;
+                case "lmr":
+                    options.lateMoveReductions = true;
+                    break;
+                case "none":
+                case "":
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知的搜索选项: " + name);
+            }
+        }
+        return options;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (principalVariation) {
+            sb.append("pvs");
+        }
+        if (aspirationWindows) {
+            sb.append(sb.length() > 0 ? "," : "").append("asp");
+        }
+        if (lateMoveReductions) {
+            sb.append(sb.length() > 0 ? "," : "").append("lmr");
+        }
+        return sb.length() > 0 ? sb.toString() : "none";
+    }
+}
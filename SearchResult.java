@@ -0,0 +1,34 @@
+// 这个类表示一次搜索的结果和统计信息
+class SearchResult {
+    final Move move;
+    // 从落子方视角的分数
+    final int score;
+    // 完整完成的迭代深度
+    final int depth;
+    final long nodes;
+    final long elapsedNanos;
+    // 能直接连五或只有一个挡法，没有经过搜索；此时分数和深度都为0
+    final boolean forced;
+
+    public SearchResult(Move move, int score, int depth, long nodes, long elapsedNanos) {
+        this(move, score, depth, nodes, elapsedNanos, false);
+    }
+
+    public SearchResult(Move move, int score, int depth, long nodes, long elapsedNanos, boolean forced) {
+        this.move = move;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+        this.forced = forced;
+    }
+
+    public double getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("(%d,%d) 分数%d 深度%d 节点%d 耗时%.0f ms", move.x, move.y, score, depth, nodes, elapsedNanos / 1e6);
+    }
+}
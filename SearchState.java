@@ -0,0 +1,86 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// 这个类把一次搜索用到的棋盘、模拟落子路径、胜负检测器和可选的神经网络累加器放在一起
+// 搜索中的每次模拟落子和撤销都通过它进行，保证各部分同步更新
+class SearchState {
+    private static final int CELL_COUNT = 15 * 15;
+    // 迭代加深搜索支持的最大层数
+    static final int MAX_PLY = 32;
+
+    final Boolean[][] board;
+    final MoveStack path;
+    final WinDetector detector;
+    // 双方仍可能连成五子的窗口，用于跳过无用的空位和提前判和
+    final LiveWindowTracker windows;
+    // 未启用神经网络评估时为null
+    final NnueEvaluator.Accumulator accumulator;
+
+    // 迭代加深搜索用到的每层候选落子及其启发式分数，预分配避免搜索中分配内存
+    final int[][] candidates = new int[MAX_PLY][CELL_COUNT];
+    final int[][] candidateScores = new int[MAX_PLY][CELL_COUNT];
+    // 搜索设置和统计
+    SearchOptions options = SearchOptions.all();
+    long deadline = Long.MAX_VALUE;
+    // 节点预算，搜索的节点数达到它时停止；与时间限制不同，在任何机器上都停在同一个节点
+    long nodeLimit = Long.MAX_VALUE;
+    long nodes = 0;
+    boolean aborted = false;
+    // 根节点当前迭代的最佳落子
+    int rootBest = Move.NONE;
+    // 外部取消搜索的标志，为null表示只受时间限制
+    AtomicBoolean cancelled;
+    // 叶节点评估噪声的最大幅度和种子，噪声只由局面和种子决定，与搜索顺序无关
+    int noise = 0;
+    long noiseSeed = 0;
+    // 当前模拟局面的Zobrist哈希，用于计算噪声
+    long hash;
+
+    public SearchState(Boolean[][] board, MoveStack moveHistory, GameRule rule, NnueEvaluator evaluator) {
+        this.board = board;
+        this.path = new MoveStack(moveHistory);
+        this.detector = new WinDetector(board, rule);
+        this.windows = new LiveWindowTracker(board);
+        this.accumulator = evaluator == null ? null : evaluator.newAccumulator(board);
+        this.hash = Zobrist.hash(board);
+    }
+
+    // 模拟落子，返回这一手是否获胜
+    public boolean place(int x, int y, boolean player) {
+        board[x][y] = player;
+        path.push(Move.encode(x, y, player));
+        if (accumulator != null) {
+            accumulator.add(x, y, player);
+        }
+        windows.place(x, y, player);
+        hash ^= Zobrist.key(x, y, player);
+        return detector.place(x, y, player);
+    }
+
+    // 撤销模拟落子
+    public void undo(int x, int y) {
+        boolean player = board[x][y];
+        detector.undo(x, y);
+        windows.undo(x, y, player);
+        hash ^= Zobrist.key(x, y, player);
+        if (accumulator != null) {
+            accumulator.remove(x, y, player);
+        }
+        path.pop();
+        board[x][y] = null;
+    }
+
+    // 评估当前局面，分数为AI（白棋）减去玩家（黑棋）
+    public int evaluate() {
+        int score = accumulator != null ? accumulator.evaluate() : AILogic.evaluateBoard(board);
+        return noise > 0 ? score + noise(hash ^ noiseSeed, noise) : score;
+    }
+
+    // 由key确定的[-range, range]内的伪随机数，使用SplitMix64的混合函数
+    private static int noise(long key, int range) {
+        long z = key + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (int) Math.floorMod(z, 2L * range + 1) - range;
+    }
+}
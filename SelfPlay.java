@@ -0,0 +1,298 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+// 这个类用多个本地工作进程并行生成自我对弈棋谱，每个进程有自己的堆和GC，不会像单进程多线程那样在分配和GC上互相拖累
+// 协调进程把开局种子分片，通过标准输入发给工作进程；工作进程每下完一局就把"种子 棋谱"写到标准输出
+// 每局只由种子决定：开局由种子随机生成，之后双方按难度的节点预算和以种子为噪声种子的评估落子，与机器快慢无关
+// 协调进程按种子顺序合并写出，输出文件与进程数和完成顺序无关；工作进程崩溃时，它没有下完的种子交给重新启动的进程
+// 用法：java SelfPlay [-workers 进程数] [-games 局数] [-seed 起始种子] [-level 难度] [-shard 每片局数] [-out 输出文件]
+// 工作进程由协调进程启动：java SelfPlay -worker [-level 难度]
+class SelfPlay {
+    private static final int BOARD_SIZE = 15;
+    // 随机开局的手数
+    private static final int OPENING_MOVES = 3;
+    // 每个工作进程最多重启的次数，超过后放弃这个进程
+    private static final int MAX_RESTARTS = 3;
+    // 工作进程输出中棋谱行的前缀，其他输出原样转给协调进程的标准错误
+    private static final String RESULT_PREFIX = "G ";
+
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int games = 100;
+    private long firstSeed = 1;
+    private int level = 2;
+    private int shardSize = 8;
+    private File output = new File("selfplay.txt");
+
+    // 还没有分配的种子片，崩溃进程没下完的种子放回队首
+    private final Deque<long[]> shards = new ArrayDeque<>();
+    // 已下完但还不能写出的棋谱，按种子排序；写出后移除，内存只与乱序的程度有关
+    private final TreeMap<Long, String> pending = new TreeMap<>();
+    private long nextSeedToWrite;
+    private int written = 0;
+    private int restarts = 0;
+    private PrintWriter writer;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        SelfPlay selfPlay = new SelfPlay();
+        boolean worker = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-worker":
+                    worker = true;
+                    break;
+                case "-workers":
+                    selfPlay.workers = Integer.parseInt(args[++i]);
+                    break;
+                case "-games":
+                    selfPlay.games = Integer.parseInt(args[++i]);
+                    break;
+                case "-seed":
+                    selfPlay.firstSeed = Long.parseLong(args[++i]);
+                    break;
+                case "-level":
+                    selfPlay.level = Integer.parseInt(args[++i]);
+                    break;
+                case "-shard":
+                    selfPlay.shardSize = Integer.parseInt(args[++i]);
+                    break;
+                case "-out":
+                    selfPlay.output = new File(args[++i]);
+                    break;
+                default:
+                    System.out.println("未知参数: " + args[i]);
+                    return;
+            }
+        }
+        if (worker) {
+            runWorker(Difficulty.of(selfPlay.level));
+        } else {
+            selfPlay.coordinate();
+        }
+    }
+
+    // 工作进程：每读到一个种子就下一局，写出"G 种子 棋谱"
+    private static void runWorker(Difficulty difficulty) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            long seed = Long.parseLong(line);
+            out.println(RESULT_PREFIX + seed + " " + playGame(seed, difficulty).format());
+            out.flush();
+        }
+    }
+
+    // 下一局自我对弈，结果只由种子和难度决定
+    static GameRecord playGame(long seed, Difficulty difficulty) {
+        EngineConfig engine = new EngineConfig(difficulty.name, SearchOptions.all(), difficulty);
+        return playGame(randomOpening(new Random(seed)), engine, engine, seed);
+    }
+
+    // 在中心附近随机落下开局的几手，按x * BOARD_SIZE + y编码
+    static int[] randomOpening(Random random) {
+        int[] opening = new int[OPENING_MOVES];
+        int count = 0;
+        while (count < OPENING_MOVES) {
+            int cell = (BOARD_SIZE / 2 - 2 + random.nextInt(5)) * BOARD_SIZE + BOARD_SIZE / 2 - 2 + random.nextInt(5);
+            boolean used = false;
+            for (int i = 0; i < count; i++) {
+                used |= opening[i] == cell;
+            }
+            if (!used) {
+                opening[count++] = cell;
+            }
+        }
+        return opening;
+    }
+
+    // 从给定的开局下完一局，black和white分别为黑白双方的引擎；结果只由开局、双方设置和种子决定
+    static GameRecord playGame(int[] opening, EngineConfig black, EngineConfig white, long seed) {
+        Boolean[][] board = new Boolean[BOARD_SIZE][BOARD_SIZE];
+        MoveStack history = new MoveStack(BOARD_SIZE * BOARD_SIZE);
+        WinDetector detector = new WinDetector(AILogic.getRule());
+        LiveWindowTracker windows = new LiveWindowTracker();
+        int[] cells = new int[BOARD_SIZE * BOARD_SIZE];
+        char result = GameRecord.RESULT_DRAW;
+
+        while (history.size() < BOARD_SIZE * BOARD_SIZE) {
+            boolean player = history.size() % 2 == 0;
+            int x;
+            int y;
+            if (history.size() < opening.length) {
+                x = opening[history.size()] / BOARD_SIZE;
+                y = opening[history.size()] % BOARD_SIZE;
+            } else {
+                SearchResult move = (player ? black : white).findMove(board, history, player, seed);
+                if (move == null) {
+                    break;
+                }
+                x = move.move.x;
+                y = move.move.y;
+            }
+            cells[history.size()] = x * BOARD_SIZE + y;
+            board[x][y] = player;
+            history.push(Move.encode(x, y, player));
+            windows.place(x, y, player);
+            if (detector.place(x, y, player)) {
+                result = player ? GameRecord.RESULT_BLACK : GameRecord.RESULT_WHITE;
+                break;
+            }
+            if (windows.isDrawn()) {
+                break;
+            }
+        }
+        return new GameRecord(result, java.util.Arrays.copyOf(cells, history.size()));
+    }
+
+    // 协调进程：分片、启动工作进程、合并结果
+    private void coordinate() throws IOException, InterruptedException {
+        for (long seed = firstSeed; seed < firstSeed + games; seed += shardSize) {
+            long[] shard = new long[(int) Math.min(shardSize, firstSeed + games - seed)];
+            for (int i = 0; i < shard.length; i++) {
+                shard[i] = seed + i;
+            }
+            shards.add(shard);
+        }
+        nextSeedToWrite = firstSeed;
+
+        long start = System.nanoTime();
+        writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8)));
+        try {
+            writer.println("# 自我对弈棋谱，种子" + firstSeed + "-" + (firstSeed + games - 1) + "，难度"
+                    + Difficulty.of(level).name + "，按种子顺序排列");
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                int index = i;
+                Thread thread = new Thread(() -> runSlot(index), "selfplay-" + i);
+                thread.start();
+                threads.add(thread);
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } finally {
+            writer.close();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d个进程，写出%d/%d局，重启%d次，用时%.1f秒，每秒%.2f局%n", workers, written, games, restarts,
+                seconds, written / seconds);
+        if (written < games) {
+            System.out.println("部分对局没有完成，输出在第" + nextSeedToWrite + "号种子处中断");
+        }
+    }
+
+    // 一个工作进程槽位：启动进程，逐片分配种子，进程崩溃时把没下完的种子放回队列并重启进程
+    private void runSlot(int index) {
+        int slotRestarts = 0;
+        while (true) {
+            Process process;
+            try {
+                process = startWorker();
+            } catch (IOException e) {
+                System.out.println("无法启动工作进程: " + e.getMessage());
+                return;
+            }
+            boolean crashed = serve(index, process);
+            process.destroy();
+            if (!crashed) {
+                return;
+            }
+            synchronized (this) {
+                restarts++;
+            }
+            if (++slotRestarts > MAX_RESTARTS) {
+                System.out.println("工作进程" + index + "重启次数过多，不再启动");
+                return;
+            }
+        }
+    }
+
+    private Process startWorker() throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "SelfPlay", "-worker", "-level", String.valueOf(level));
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        return builder.start();
+    }
+
+    // 给进程分配种子片直到队列为空，返回进程是否中途崩溃
+    private boolean serve(int index, Process process) {
+        PrintWriter toWorker = new PrintWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        BufferedReader fromWorker = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        while (true) {
+            long[] shard;
+            synchronized (this) {
+                shard = shards.pollFirst();
+            }
+            if (shard == null) {
+                toWorker.close();
+                return false;
+            }
+            for (long seed : shard) {
+                toWorker.println(seed);
+            }
+            toWorker.flush();
+
+            int done = 0;
+            try {
+                while (done < shard.length) {
+                    String line = fromWorker.readLine();
+                    if (line == null) {
+                        break;
+                    }
+                    if (!line.startsWith(RESULT_PREFIX)) {
+                        System.err.println("[工作进程" + index + "] " + line);
+                        continue;
+                    }
+                    int space = line.indexOf(' ', RESULT_PREFIX.length());
+                    long seed = Long.parseLong(line.substring(RESULT_PREFIX.length(), space));
+                    if (seed != shard[done]) {
+                        throw new IOException("工作进程返回了意外的种子: " + seed);
+                    }
+                    // 先解析一遍，保证写出的每一行都是合法的棋谱
+                    GameRecord record = GameRecord.parse(line.substring(space + 1));
+                    complete(seed, record.format());
+                    done++;
+                }
+            } catch (IOException | RuntimeException e) {
+                System.out.println("读取工作进程" + index + "的输出时出错: " + e.getMessage());
+            }
+            if (done < shard.length) {
+                long[] rest = java.util.Arrays.copyOfRange(shard, done, shard.length);
+                synchronized (this) {
+                    shards.addFirst(rest);
+                }
+                System.out.println("工作进程" + index + "异常退出，" + rest.length + "局重新分配");
+                return true;
+            }
+        }
+    }
+
+    // 记录一局的结果，并按种子顺序写出所有已经连续的结果
+    private synchronized void complete(long seed, String record) {
+        pending.put(seed, record);
+        while (!pending.isEmpty() && pending.firstKey() == nextSeedToWrite) {
+            writer.println(pending.pollFirstEntry().getValue());
+            nextSeedToWrite++;
+            written++;
+        }
+    }
+}
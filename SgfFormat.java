@@ -0,0 +1,220 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+// 这个类读写SGF形式的五子棋棋谱，例如"(;GM[4]SZ[15]RE[B+];B[hh];W[hi])"，一个文件可以连续存放多局
+// 坐标为两个字母，第一个是列、第二个是行，都从a开始，行从上往下数；变化分支只读取主线（每处的第一个分支）
+// 读取时逐个字符扫描，只保存当前这一局的落子
+class SgfFormat {
+    private static final int BOARD_SIZE = 15;
+
+    private SgfFormat() {
+    }
+
+    static class Reader implements GameRecordReader {
+        private final java.io.Reader in;
+        private int peeked = -2;
+
+        Reader(java.io.Reader in) {
+            this.in = in;
+        }
+
+        @Override
+        public GameRecord next() throws IOException {
+            // 跳到下一局的开头
+            int c;
+            do {
+                c = read();
+                if (c < 0) {
+                    return null;
+                }
+            } while (c != '(');
+
+            int[] cells = new int[BOARD_SIZE * BOARD_SIZE];
+            int count = 0;
+            char result = GameRecord.RESULT_UNKNOWN;
+            String error = null;
+            int depth = 1;
+            // 大于0时正在跳过的分支所在的深度
+            int skipDepth = 0;
+            // 当前深度是否已经进入过一个子分支，进入过的话后面的兄弟分支都不是主线
+            boolean[] childVisited = new boolean[64];
+
+            while (depth > 0) {
+                c = read();
+                if (c < 0) {
+                    throw new IOException("SGF文件在一局中间结束");
+                }
+                if (c == '(') {
+                    depth++;
+                    if (skipDepth == 0 && depth < childVisited.length && !childVisited[depth - 1]) {
+                        childVisited[depth - 1] = true;
+                    } else if (skipDepth == 0) {
+                        skipDepth = depth;
+                    }
+                } else if (c == ')') {
+                    if (depth < childVisited.length) {
+                        childVisited[depth] = false;
+                    }
+                    if (skipDepth == depth) {
+                        skipDepth = 0;
+                    }
+                    depth--;
+                } else if (c >= 'A' && c <= 'Z') {
+                    StringBuilder name = new StringBuilder();
+                    name.append((char) c);
+                    while ((c = peek()) >= 'A' && c <= 'Z') {
+                        name.append((char) read());
+                    }
+                    String property = name.toString();
+                    // 一个属性可以有多个值
+                    while (skipWhitespace() == '[') {
+                        read();
+                        String value = readValue();
+                        if (skipDepth != 0 || error != null) {
+                            continue;
+                        }
+                        switch (property) {
+                            case "B":
+                            case "W":
+                                if (value.isEmpty()) {
+                                    break;
+                                }
+                                if ((count % 2 == 0) != property.equals("B")) {
+                                    error = "落子顺序不是黑白交替: 第" + (count + 1) + "手";
+                                } else if (value.length() != 2 || count == cells.length) {
+                                    error = "无效的落子: " + value;
+                                } else {
+                                    int x = value.charAt(0) - 'a';
+                                    int y = value.charAt(1) - 'a';
+                                    if (x < 0 || x >= BOARD_SIZE || y < 0 || y >= BOARD_SIZE) {
+                                        error = "落子超出棋盘: " + value;
+                                    } else {
+                                        cells[count++] = x * BOARD_SIZE + y;
+                                    }
+                                }
+                                break;
+                            case "RE":
+                                result = parseResult(value);
+                                break;
+                            case "SZ":
+                                if (!value.trim().equals(String.valueOf(BOARD_SIZE))) {
+                                    error = "不支持的棋盘大小: " + value;
+                                }
+                                break;
+                            default:
+                                break;
+                        }
+                    }
+                }
+            }
+
+            // 整局读完之后再报告错误，下一次调用从下一局开始
+            if (error != null) {
+                throw new IllegalArgumentException(error);
+            }
+            cells = Arrays.copyOf(cells, count);
+            GameFormats.checkCells(cells);
+            return new GameRecord(result, cells);
+        }
+
+        private static char parseResult(String value) {
+            String result = value.trim().toUpperCase();
+            if (result.startsWith("B+")) {
+                return GameRecord.RESULT_BLACK;
+            }
+            if (result.startsWith("W+")) {
+                return GameRecord.RESULT_WHITE;
+            }
+            if (result.equals("0") || result.equals("DRAW")) {
+                return GameRecord.RESULT_DRAW;
+            }
+            return GameRecord.RESULT_UNKNOWN;
+        }
+
+        // 读取"["之后到"]"为止的属性值，处理反斜杠转义
+        private String readValue() throws IOException {
+            StringBuilder value = new StringBuilder();
+            int c;
+            while ((c = read()) != ']') {
+                if (c < 0) {
+                    throw new IOException("SGF属性值没有结束");
+                }
+                if (c == '\\') {
+                    c = read();
+                    if (c < 0) {
+                        throw new IOException("SGF属性值没有结束");
+                    }
+                }
+                value.append((char) c);
+            }
+            return value.toString();
+        }
+
+        private int skipWhitespace() throws IOException {
+            int c;
+            while ((c = peek()) >= 0 && Character.isWhitespace(c)) {
+                read();
+            }
+            return c;
+        }
+
+        private int read() throws IOException {
+            if (peeked != -2) {
+                int c = peeked;
+                peeked = -2;
+                return c;
+            }
+            return in.read();
+        }
+
+        private int peek() throws IOException {
+            if (peeked == -2) {
+                peeked = in.read();
+            }
+            return peeked;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    static class Writer implements GameRecordWriter {
+        private final java.io.Writer out;
+
+        Writer(java.io.Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(GameRecord record) throws IOException {
+            StringBuilder sb = new StringBuilder(record.size() * 6 + 32);
+            sb.append("(;GM[4]FF[4]SZ[").append(BOARD_SIZE).append(']');
+            switch (record.getResult()) {
+                case GameRecord.RESULT_BLACK:
+                    sb.append("RE[B+]");
+                    break;
+                case GameRecord.RESULT_WHITE:
+                    sb.append("RE[W+]");
+                    break;
+                case GameRecord.RESULT_DRAW:
+                    sb.append("RE[0]");
+                    break;
+                default:
+                    break;
+            }
+            for (int i = 0; i < record.size(); i++) {
+                sb.append(';').append(record.isBlack(i) ? 'B' : 'W').append('[')
+                        .append((char) ('a' + record.getX(i))).append((char) ('a' + record.getY(i))).append(']');
+            }
+            sb.append(")\n");
+            out.write(sb.toString());
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+
+// 这个类测量GomokuServer向大量观战者广播落子的延迟：用一个Selector建立大量观战连接，两个对局者轮流落子，
+// 记录每一手从发出到每个观战者收到的时间
+// 服务器应在另一个进程里运行（java GomokuServer），两边各占一半文件描述符
+// 用法：java SpectatorBenchmark [主机] [端口] [观战人数] [手数]
+class SpectatorBenchmark {
+    // 一帧MOVED的字节数
+    private static final int MOVED_FRAME = 4;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : GameProtocol.DEFAULT_PORT;
+        int spectatorCount = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int moveCount = args.length > 3 ? Integer.parseInt(args[3]) : 40;
+        int gameId = (int) (System.nanoTime() & Integer.MAX_VALUE);
+        InetSocketAddress address = new InetSocketAddress(host, port);
+
+        // 建立观战连接，全部收到JOINED后再开始落子
+        Selector selector = Selector.open();
+        SocketChannel[] spectators = new SocketChannel[spectatorCount];
+        long connectStart = System.nanoTime();
+        for (int i = 0; i < spectatorCount; i++) {
+            spectators[i] = SocketChannel.open(address);
+            spectators[i].configureBlocking(false);
+            spectators[i].register(selector, SelectionKey.OP_READ, i);
+            ByteBuffer watch = GameProtocol.watch(gameId);
+            while (watch.hasRemaining()) {
+                spectators[i].write(watch);
+            }
+        }
+        long[] received = new long[spectatorCount];
+        ByteBuffer in = ByteBuffer.allocate(GameProtocol.MAX_FRAME);
+        // 空对局的JOINED帧为9字节
+        waitFor(selector, in, received, 9, null, 0);
+        System.out.println(spectatorCount + "个观战者已加入，用时 " + (System.nanoTime() - connectStart) / 1_000_000 + " ms");
+
+        GomokuClient black = new GomokuClient(host, port, new IgnoringListener());
+        GomokuClient white = new GomokuClient(host, port, new IgnoringListener());
+        black.play(gameId, GameProtocol.RULE_FREESTYLE);
+        Thread.sleep(100);
+        white.play(gameId, GameProtocol.RULE_FREESTYLE);
+        Thread.sleep(100);
+
+        // 每个观战者收到每一手的延迟，单位微秒
+        long[] latencies = new long[spectatorCount * moveCount];
+        long[] fanOut = new long[moveCount];
+        for (int m = 0; m < moveCount; m++) {
+            // 黑棋下在偶数行偶数列，白棋下在奇数行奇数列，同色棋子互不相邻，不会提前分出胜负
+            int k = m / 2;
+            int x = m % 2 == 0 ? 2 * (k / 8) : 1 + 2 * (k / 7);
+            int y = m % 2 == 0 ? 2 * (k % 8) : 1 + 2 * (k % 7);
+            long sent = System.nanoTime();
+            (m % 2 == 0 ? black : white).sendMove(x, y);
+            long target = 9 + (long) (m + 1) * MOVED_FRAME;
+            long last = waitFor(selector, in, received, target, latencies, m * spectatorCount);
+            for (int i = m * spectatorCount; i < (m + 1) * spectatorCount; i++) {
+                latencies[i] = (latencies[i] - sent) / 1000;
+            }
+            fanOut[m] = (last - sent) / 1000;
+        }
+
+        Arrays.sort(latencies);
+        Arrays.sort(fanOut);
+        System.out.println("观战者" + spectatorCount + "人，" + moveCount + "手");
+        System.out.println("单个观战者收到落子的延迟: p50 " + percentile(latencies, 50) + " us, p99 "
+                + percentile(latencies, 99) + " us, 最大 " + latencies[latencies.length - 1] + " us");
+        System.out.println("一手发给全部观战者的用时: p50 " + percentile(fanOut, 50) + " us, 最大 "
+                + fanOut[fanOut.length - 1] + " us");
+
+        black.close();
+        white.close();
+        for (SocketChannel spectator : spectators) {
+            spectator.close();
+        }
+        selector.close();
+    }
+
+    // 读取观战连接，直到每个连接累计收到target字节；arrivals不为空时记录每个连接收齐的时刻，返回最后一个收齐的时刻
+    private static long waitFor(Selector selector, ByteBuffer in, long[] received, long target,
+                                long[] arrivals, int offset) throws IOException {
+        int pending = 0;
+        for (long bytes : received) {
+            if (bytes < target) {
+                pending++;
+            }
+        }
+        long last = System.nanoTime();
+        while (pending > 0) {
+            if (selector.select(10_000) == 0) {
+                throw new IOException("等待广播超时，还有" + pending + "个观战者没有收到");
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                int index = (Integer) key.attachment();
+                in.clear();
+                int read = ((SocketChannel) key.channel()).read(in);
+                if (read < 0) {
+                    throw new IOException("观战连接被服务器关闭");
+                }
+                boolean before = received[index] < target;
+                received[index] += read;
+                if (before && received[index] >= target) {
+                    pending--;
+                    last = System.nanoTime();
+                    if (arrivals != null) {
+                        arrivals[offset + index] = last;
+                    }
+                }
+            }
+        }
+        return last;
+    }
+
+    private static long percentile(long[] sorted, int p) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * p / 100)];
+    }
+
+    // 对局者不关心服务器回传的消息
+    private static class IgnoringListener implements GomokuClient.Listener {
+        @Override
+        public void joined(int gameId, byte role, byte rule, int[] moves) {
+        }
+
+        @Override
+        public void moved(int cell, byte state) {
+        }
+
+        @Override
+        public void error(byte code) {
+            System.out.println("服务器返回错误 " + code);
+        }
+
+        @Override
+        public void left(byte role) {
+        }
+
+        @Override
+        public void closed() {
+        }
+    }
+}
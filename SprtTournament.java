@@ -0,0 +1,193 @@
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// 这个类比较两种引擎设置的棋力：成对对局（同一开局，双方交换先后手），用序贯概率比检验（SPRT）决定何时停止
+// 第一个设置作为基准，其余每个设置分别与它比赛；H0为Elo差等于elo0，H1为等于elo1，
+// 对数似然比超过上界时接受H1（改进有效），低于下界时接受H0，结果一出就停止，不必下满固定局数
+// 对数似然比按成对结果（五种可能的得分）的均值和方差用正态近似计算，成对对局能抵消开局先后手带来的偏差；
+// 五种结果各加上少量虚拟计数，所有对局结果都相同时方差也不为0，一边倒的比赛同样能提前停止
+// 用法：java SprtTournament [-elo0 0] [-elo1 5] [-alpha 0.05] [-beta 0.05] [-pairs 最多对数] [-threads 线程数]
+//                           [-seed 起始种子] 基准设置 设置...，设置的写法见EngineConfig，例如"none@20000"、"pvs,asp,lmr@20000"
+class SprtTournament {
+    // 每种成对结果加上的虚拟对数，五种合计相当于一对
+    private static final double PRIOR_PAIRS = 0.2;
+
+    private double elo0 = 0;
+    private double elo1 = 5;
+    private double alpha = 0.05;
+    private double beta = 0.05;
+    private int maxPairs = 2000;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = 1;
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        SprtTournament tournament = new SprtTournament();
+        int i = 0;
+        for (; i < args.length && args[i].startsWith("-"); i++) {
+            switch (args[i]) {
+                case "-elo0":
+                    tournament.elo0 = Double.parseDouble(args[++i]);
+                    break;
+                case "-elo1":
+                    tournament.elo1 = Double.parseDouble(args[++i]);
+                    break;
+                case "-alpha":
+                    tournament.alpha = Double.parseDouble(args[++i]);
+                    break;
+                case "-beta":
+                    tournament.beta = Double.parseDouble(args[++i]);
+                    break;
+                case "-pairs":
+                    tournament.maxPairs = Integer.parseInt(args[++i]);
+                    break;
+                case "-threads":
+                    tournament.threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-seed":
+                    tournament.seed = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    System.out.println("未知参数: " + args[i]);
+                    return;
+            }
+        }
+        if (args.length - i < 2) {
+            System.out.println("用法: java SprtTournament [选项] 基准设置 设置...");
+            return;
+        }
+        EngineConfig base = EngineConfig.parse(args[i]);
+        for (int j = i + 1; j < args.length; j++) {
+            tournament.match(base, EngineConfig.parse(args[j]));
+        }
+    }
+
+    // 一对对局的结果：挑战方在两局中的得分（0到2，和棋各得0.5）和胜负和局数
+    private static class PairResult {
+        double points;
+        int wins;
+        int draws;
+        int losses;
+
+        void add(GameRecord record, boolean challengerBlack) {
+            char winner = record.getResult();
+            if (winner == GameRecord.RESULT_DRAW || winner == GameRecord.RESULT_UNKNOWN) {
+                points += 0.5;
+                draws++;
+            } else if ((winner == GameRecord.RESULT_BLACK) == challengerBlack) {
+                points += 1;
+                wins++;
+            } else {
+                losses++;
+            }
+        }
+    }
+
+    private PairResult playPair(EngineConfig base, EngineConfig challenger, long pairSeed) {
+        int[] opening = SelfPlay.randomOpening(new Random(pairSeed));
+        PairResult result = new PairResult();
+        result.add(SelfPlay.playGame(opening, challenger, base, pairSeed), true);
+        result.add(SelfPlay.playGame(opening, base, challenger, pairSeed), false);
+        return result;
+    }
+
+    private void match(EngineConfig base, EngineConfig challenger) throws InterruptedException, ExecutionException {
+        System.out.printf("%s 对 %s：H0 Elo=%.1f，H1 Elo=%.1f，alpha=%.2f，beta=%.2f，最多%d对，%d个线程%n",
+                challenger, base, elo0, elo1, alpha, beta, maxPairs, threads);
+        double lower = Math.log(beta / (1 - alpha));
+        double upper = Math.log((1 - beta) / alpha);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ExecutorCompletionService<PairResult> completion = new ExecutorCompletionService<>(executor);
+        long start = System.nanoTime();
+        int submitted = 0;
+        int pairs = 0;
+        int wins = 0;
+        int draws = 0;
+        int losses = 0;
+        // 成对得分（0、0.5、1、1.5、2）的分布
+        int[] pentanomial = new int[5];
+        double llr = 0;
+        String verdict = "达到最大对数，未分出结果";
+        try {
+            // 同时进行的对局保持在线程数的两倍，结果出来后不再多下太多
+            while (submitted < Math.min(maxPairs, threads * 2)) {
+                long pairSeed = seed + submitted++;
+                completion.submit(() -> playPair(base, challenger, pairSeed));
+            }
+            while (pairs < submitted) {
+                PairResult result = completion.take().get();
+                pairs++;
+                wins += result.wins;
+                draws += result.draws;
+                losses += result.losses;
+                pentanomial[(int) Math.round(result.points * 2)]++;
+
+                llr = logLikelihoodRatio(pentanomial);
+                if (pairs % 10 == 0) {
+                    System.out.printf("  %d对 胜%d 和%d 负%d LLR %.2f [%.2f, %.2f]%n", pairs, wins, draws, losses, llr, lower, upper);
+                }
+                if (llr >= upper) {
+                    verdict = "接受H1：" + challenger + " 强于 " + base;
+                    break;
+                }
+                if (llr <= lower) {
+                    verdict = "接受H0：" + challenger + " 没有强于 " + base;
+                    break;
+                }
+                if (submitted < maxPairs) {
+                    long pairSeed = seed + submitted++;
+                    completion.submit(() -> playPair(base, challenger, pairSeed));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        double[] stats = statistics(pentanomial);
+        double mean = stats[1];
+        double margin = 1.96 * Math.sqrt(stats[2] / stats[0]);
+        System.out.println("  " + verdict);
+        System.out.printf("  %d对%d局 胜%d 和%d 负%d，成对得分分布 %d/%d/%d/%d/%d，LLR %.2f，用时%.1f秒%n", pairs, pairs * 2,
+                wins, draws, losses, pentanomial[0], pentanomial[1], pentanomial[2], pentanomial[3], pentanomial[4], llr,
+                (System.nanoTime() - start) / 1e9);
+        System.out.printf("  Elo差 %.1f ± %.1f（95%%置信区间 %.1f 到 %.1f）%n", elo(mean),
+                (elo(mean + margin) - elo(mean - margin)) / 2, elo(mean - margin), elo(mean + margin));
+    }
+
+    // 按成对得分的均值和方差用正态近似计算H1对H0的对数似然比
+    private double logLikelihoodRatio(int[] pentanomial) {
+        double[] stats = statistics(pentanomial);
+        double score0 = expectedScore(elo0);
+        double score1 = expectedScore(elo1);
+        return stats[0] * (score1 - score0) * (2 * stats[1] - score0 - score1) / (2 * stats[2]);
+    }
+
+    // 加上虚拟计数后的对数、每局平均得分和成对平均得分的方差
+    private static double[] statistics(int[] pentanomial) {
+        double total = 0;
+        double sum = 0;
+        double sumSquares = 0;
+        for (int i = 0; i < pentanomial.length; i++) {
+            double count = pentanomial[i] + PRIOR_PAIRS;
+            double score = i / 4.0;
+            total += count;
+            sum += count * score;
+            sumSquares += count * score * score;
+        }
+        double mean = sum / total;
+        return new double[] {total, mean, sumSquares / total - mean * mean};
+    }
+
+    private static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    // 期望得分对应的Elo差，得分为0或1时截断，避免无穷大
+    private static double elo(double score) {
+        double clipped = Math.min(Math.max(score, 1e-3), 1 - 1e-3);
+        return -400 * Math.log10(1 / clipped - 1);
+    }
+}
@@ -0,0 +1,132 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// 这个类表示战术题库中的一道题：一个局面和它的全部正确落子
+// 文本格式每行一题："编号 类型 解答 落子..."，解答是以分号分隔的"x,y"，落子与GameRecord相同，是从空棋盘开始的"x,y"，
+// 黑棋先行，轮到哪一方由落子数的奇偶决定；以#开头的行是注释
+class TacticalPosition {
+    private static final int BOARD_SIZE = 15;
+
+    // 题目类型
+    public static final String WIN1 = "WIN1";   // 一步连五
+    public static final String BLOCK = "BLOCK"; // 对方有唯一的连五点，必须去挡
+    public static final String WIN3 = "WIN3";   // 走出活四或双四，三步内获胜
+    public static final String VCF = "VCF";     // 连续冲四获胜
+    public static final String[] TYPES = {WIN1, BLOCK, WIN3, VCF};
+
+    final String id;
+    final String type;
+    // 正确落子和局面中的落子，按x * BOARD_SIZE + y编码
+    private final int[] solutions;
+    private final int[] cells;
+
+    public TacticalPosition(String id, String type, int[] solutions, int[] cells) {
+        this.id = id;
+        this.type = type;
+        this.solutions = solutions.clone();
+        this.cells = cells.clone();
+    }
+
+    // 解析一行题目
+    public static TacticalPosition parse(String line) {
+        String[] tokens = line.trim().split("\\s+");
+        if (tokens.length < 3) {
+            throw new IllegalArgumentException("题目格式错误: " + line);
+        }
+        String[] answers = tokens[2].split(";");
+        int[] solutions = new int[answers.length];
+        for (int i = 0; i < answers.length; i++) {
+            solutions[i] = parseCell(answers[i]);
+        }
+        int[] cells = new int[tokens.length - 3];
+        for (int i = 3; i < tokens.length; i++) {
+            cells[i - 3] = parseCell(tokens[i]);
+        }
+        return new TacticalPosition(tokens[0], tokens[1], solutions, cells);
+    }
+
+    private static int parseCell(String token) {
+        int comma = token.indexOf(',');
+        if (comma < 0) {
+            throw new IllegalArgumentException("无效的落子坐标: " + token);
+        }
+        int x = Integer.parseInt(token.substring(0, comma));
+        int y = Integer.parseInt(token.substring(comma + 1));
+        if (x < 0 || x >= BOARD_SIZE || y < 0 || y >= BOARD_SIZE) {
+            throw new IllegalArgumentException("落子坐标超出棋盘: " + token);
+        }
+        return x * BOARD_SIZE + y;
+    }
+
+    // 读取整个题库，跳过空行和注释
+    public static List<TacticalPosition> readAll(BufferedReader reader) throws IOException {
+        List<TacticalPosition> positions = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                positions.add(parse(line));
+            }
+        }
+        return positions;
+    }
+
+    // 转换为一行文本，与parse互逆
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(id).append(' ').append(type).append(' ');
+        for (int i = 0; i < solutions.length; i++) {
+            if (i > 0) {
+                sb.append(';');
+            }
+            appendCell(sb, solutions[i]);
+        }
+        for (int cell : cells) {
+            sb.append(' ');
+            appendCell(sb, cell);
+        }
+        return sb.toString();
+    }
+
+    private static void appendCell(StringBuilder sb, int cell) {
+        sb.append(cell / BOARD_SIZE).append(',').append(cell % BOARD_SIZE);
+    }
+
+    // 题目局面的棋盘
+    public Boolean[][] toBoard() {
+        Boolean[][] board = new Boolean[BOARD_SIZE][BOARD_SIZE];
+        for (int i = 0; i < cells.length; i++) {
+            board[cells[i] / BOARD_SIZE][cells[i] % BOARD_SIZE] = i % 2 == 0;
+        }
+        return board;
+    }
+
+    // 题目局面的落子历史
+    public MoveStack toHistory() {
+        MoveStack history = new MoveStack(BOARD_SIZE * BOARD_SIZE);
+        for (int i = 0; i < cells.length; i++) {
+            history.push(Move.encode(cells[i] / BOARD_SIZE, cells[i] % BOARD_SIZE, i % 2 == 0));
+        }
+        return history;
+    }
+
+    // 轮到落子的一方，true为黑棋
+    public boolean getSideToMove() {
+        return cells.length % 2 == 0;
+    }
+
+    public boolean isSolution(int x, int y) {
+        for (int cell : solutions) {
+            if (cell == x * BOARD_SIZE + y) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getSolutionCount() {
+        return solutions.length;
+    }
+}
@@ -0,0 +1,277 @@
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+// 这个类生成战术题库：用带随机性的贪心走法下出大量对局，在每个局面上穷举验证是否构成某类战术题，
+// 正确落子全部由穷举得到，不依赖被测的搜索；按局面哈希去重，每类收集指定数量的题目
+// 题目均按自由规则验证。用法：java TacticalSuiteGenerator [输出文件] [每类题数] [种子]
+class TacticalSuiteGenerator {
+    private static final int BOARD_SIZE = 15;
+    // VCF最多连续冲四的次数，不含最后连五或走出活四的一手
+    private static final int MAX_VCF_FOURS = 3;
+    // 只考虑离已有棋子这么近的落子
+    private static final int RANGE = 2;
+
+    private final WinDetector detector = new WinDetector(new FreestyleRule());
+    private final Boolean[][] board = new Boolean[BOARD_SIZE][BOARD_SIZE];
+
+    public static void main(String[] args) throws IOException {
+        String output = args.length > 0 ? args[0] : "tactics.txt";
+        int perType = args.length > 1 ? Integer.parseInt(args[1]) : 120;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 2024;
+
+        long start = System.nanoTime();
+        Map<String, List<TacticalPosition>> suite = new TacticalSuiteGenerator().generate(perType, new Random(seed));
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8))) {
+            writer.println("# 五子棋战术题库，由TacticalSuiteGenerator生成，种子" + seed + "，自由规则");
+            writer.println("# 格式：编号 类型 解答(x,y;x,y) 落子(x,y ...)，黑棋先行");
+            for (String type : TacticalPosition.TYPES) {
+                writer.println("# " + type + "：" + suite.get(type).size() + "题");
+                for (TacticalPosition position : suite.get(type)) {
+                    writer.println(position.format());
+                }
+            }
+        }
+        System.out.println("已生成题库 " + output + "，用时 " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    public Map<String, List<TacticalPosition>> generate(int perType, Random random) {
+        Map<String, List<TacticalPosition>> suite = new HashMap<>();
+        for (String type : TacticalPosition.TYPES) {
+            suite.put(type, new ArrayList<>());
+        }
+        Set<Long> seen = new HashSet<>();
+        int[] cells = new int[BOARD_SIZE * BOARD_SIZE];
+        // 同一局中相邻的局面很相似，每局每类最多取一题
+        Set<String> taken = new HashSet<>();
+
+        while (!isFull(suite, perType)) {
+            clear();
+            taken.clear();
+            int length = 8 + random.nextInt(40);
+            for (int ply = 0; ply < length; ply++) {
+                boolean player = ply % 2 == 0;
+                if (ply >= 6) {
+                    classify(suite, perType, seen, taken, cells, ply, player);
+                }
+                int move = chooseMove(player, random);
+                if (move < 0) {
+                    break;
+                }
+                cells[ply] = move;
+                if (place(move / BOARD_SIZE, move % BOARD_SIZE, player)) {
+                    // 已经分出胜负，换下一局
+                    break;
+                }
+            }
+        }
+        return suite;
+    }
+
+    private static boolean isFull(Map<String, List<TacticalPosition>> suite, int perType) {
+        for (List<TacticalPosition> positions : suite.values()) {
+            if (positions.size() < perType) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 判断当前局面属于哪类题目，还没收集够时加入题库
+    private void classify(Map<String, List<TacticalPosition>> suite, int perType, Set<Long> seen, Set<String> taken,
+                          int[] cells, int ply, boolean player) {
+        int[] own = winningCells(player);
+        int[] opponent = winningCells(!player);
+        String type;
+        int[] solutions;
+        if (own.length > 0) {
+            type = TacticalPosition.WIN1;
+            solutions = own;
+        } else if (opponent.length == 1) {
+            type = TacticalPosition.BLOCK;
+            solutions = opponent;
+        } else if (opponent.length > 1) {
+            // 对方有两个以上连五点，已经输了
+            return;
+        } else {
+            solutions = openFourMoves(player);
+            if (solutions.length > 0) {
+                type = TacticalPosition.WIN3;
+            } else {
+                solutions = vcfMoves(player);
+                if (solutions.length == 0) {
+                    return;
+                }
+                type = TacticalPosition.VCF;
+            }
+        }
+
+        List<TacticalPosition> positions = suite.get(type);
+        if (positions.size() >= perType || taken.contains(type) || !seen.add(Zobrist.withSide(Zobrist.hash(board), player))) {
+            return;
+        }
+        taken.add(type);
+        String id = String.format("%s-%03d", type, positions.size() + 1);
+        positions.add(new TacticalPosition(id, type, solutions, Arrays.copyOf(cells, ply)));
+    }
+
+    // player落子就能连五的所有空位
+    private int[] winningCells(boolean player) {
+        int[] result = new int[BOARD_SIZE * BOARD_SIZE];
+        int count = 0;
+        for (int x = 0; x < BOARD_SIZE; x++) {
+            for (int y = 0; y < BOARD_SIZE; y++) {
+                if (board[x][y] == null && nearStones(x, y)) {
+                    if (place(x, y, player)) {
+                        result[count++] = x * BOARD_SIZE + y;
+                    }
+                    undo(x, y);
+                }
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    // 落子后形成两个以上连五点（活四或双四）的所有空位；调用前双方都没有连五点，对方只能挡住其中一个
+    private int[] openFourMoves(boolean player) {
+        List<Integer> moves = new ArrayList<>();
+        for (int x = 0; x < BOARD_SIZE; x++) {
+            for (int y = 0; y < BOARD_SIZE; y++) {
+                if (board[x][y] == null && nearStones(x, y)) {
+                    place(x, y, player);
+                    if (winningCells(player).length >= 2) {
+                        moves.add(x * BOARD_SIZE + y);
+                    }
+                    undo(x, y);
+                }
+            }
+        }
+        return toArray(moves);
+    }
+
+    // 能通过连续冲四获胜的第一手；调用前双方都没有连五点，player也没有活四
+    private int[] vcfMoves(boolean player) {
+        List<Integer> moves = new ArrayList<>();
+        for (int x = 0; x < BOARD_SIZE; x++) {
+            for (int y = 0; y < BOARD_SIZE; y++) {
+                if (board[x][y] == null && nearStones(x, y)) {
+                    place(x, y, player);
+                    if (isVcfFour(player, MAX_VCF_FOURS)) {
+                        moves.add(x * BOARD_SIZE + y);
+                    }
+                    undo(x, y);
+                }
+            }
+        }
+        return toArray(moves);
+    }
+
+    // player刚走完一手：这一手是否是冲四，并且对方挡住后player还能继续冲四直到获胜，fours为还能冲四的次数
+    private boolean isVcfFour(boolean player, int fours) {
+        int[] threats = winningCells(player);
+        if (threats.length >= 2) {
+            return true;
+        }
+        if (threats.length == 0 || fours <= 1) {
+            return false;
+        }
+        // 对方必须挡在唯一的连五点；挡完之后对方有连五点时VCF中断
+        int block = threats[0];
+        int bx = block / BOARD_SIZE;
+        int by = block % BOARD_SIZE;
+        place(bx, by, !player);
+        boolean win = false;
+        if (winningCells(!player).length == 0) {
+            for (int x = 0; x < BOARD_SIZE && !win; x++) {
+                for (int y = 0; y < BOARD_SIZE && !win; y++) {
+                    if (board[x][y] == null && nearStones(x, y)) {
+                        place(x, y, player);
+                        win = isVcfFour(player, fours - 1);
+                        undo(x, y);
+                    }
+                }
+            }
+        }
+        undo(bx, by);
+        return win;
+    }
+
+    // 带随机性的贪心走法：大多数时候从进攻分加防守分最高的几个空位中随机选，偶尔随机走附近的空位
+    private int chooseMove(boolean player, Random random) {
+        if (detector.getStoneCount() == 0) {
+            int center = BOARD_SIZE / 2;
+            return (center - 2 + random.nextInt(5)) * BOARD_SIZE + center - 2 + random.nextInt(5);
+        }
+        int[] moves = new int[BOARD_SIZE * BOARD_SIZE];
+        int[] scores = new int[BOARD_SIZE * BOARD_SIZE];
+        int count = 0;
+        for (int x = 0; x < BOARD_SIZE; x++) {
+            for (int y = 0; y < BOARD_SIZE; y++) {
+                if (board[x][y] == null && nearStones(x, y)) {
+                    int score = AILogic.evaluatePosition(x, y, player, board) + AILogic.evaluatePosition(x, y, !player, board);
+                    int k = count++;
+                    while (k > 0 && scores[k - 1] < score) {
+                        moves[k] = moves[k - 1];
+                        scores[k] = scores[k - 1];
+                        k--;
+                    }
+                    moves[k] = x * BOARD_SIZE + y;
+                    scores[k] = score;
+                }
+            }
+        }
+        if (count == 0) {
+            return -1;
+        }
+        if (random.nextInt(4) == 0) {
+            return moves[random.nextInt(count)];
+        }
+        return moves[random.nextInt(Math.min(count, 4))];
+    }
+
+    private boolean nearStones(int x, int y) {
+        for (int i = Math.max(0, x - RANGE); i <= Math.min(BOARD_SIZE - 1, x + RANGE); i++) {
+            for (int j = Math.max(0, y - RANGE); j <= Math.min(BOARD_SIZE - 1, y + RANGE); j++) {
+                if (board[i][j] != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean place(int x, int y, boolean player) {
+        board[x][y] = player;
+        return detector.place(x, y, player);
+    }
+
+    private void undo(int x, int y) {
+        detector.undo(x, y);
+        board[x][y] = null;
+    }
+
+    private void clear() {
+        for (Boolean[] row : board) {
+            Arrays.fill(row, null);
+        }
+        detector.clear();
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,153 @@
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// 这个类用战术题库衡量搜索的战术能力：每道题在限定时间内搜索，记录是否解出以及解出所用的时间
+// 解出时间是这样一轮迭代结束时的耗时：从这一轮起直到搜索结束，每一轮的最佳落子都是正确落子；只有强制落子时取最终耗时
+// VCF题的解答只包含连续冲四的第一手，用别的走法也能赢时记为未解出
+// 结果文件每行一题，按选项组合和编号排序，两次运行的结果文件可以直接用diff比较
+// 用法：java TacticalSuiteRunner [题库] [结果文件] [每题毫秒数] [线程数] [选项组合...]，选项组合与SearchBenchmark相同
+class TacticalSuiteRunner {
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        String suitePath = args.length > 0 ? args[0] : "tactics.txt";
+        String resultPath = args.length > 1 ? args[1] : "tactics-results.txt";
+        long timeMillis = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        String[] configs;
+        if (args.length > 4) {
+            configs = Arrays.copyOfRange(args, 4, args.length);
+        } else {
+            configs = new String[] {"none", "pvs,asp,lmr"};
+        }
+
+        List<TacticalPosition> positions;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(suitePath), StandardCharsets.UTF_8))) {
+            positions = TacticalPosition.readAll(reader);
+        }
+        System.out.println("题库 " + suitePath + "：" + positions.size() + "题，每题" + timeMillis + " ms，" + threads + "个线程");
+
+        List<String> lines = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (String config : configs) {
+                SearchOptions options = SearchOptions.parse(config);
+                List<Future<Outcome>> futures = new ArrayList<>();
+                for (TacticalPosition position : positions) {
+                    futures.add(executor.submit(() -> solve(position, options, timeMillis)));
+                }
+                List<Outcome> outcomes = new ArrayList<>();
+                for (Future<Outcome> future : futures) {
+                    outcomes.add(future.get());
+                }
+                printSummary(options.toString(), outcomes);
+                outcomes.sort((a, b) -> a.position.id.compareTo(b.position.id));
+                for (Outcome outcome : outcomes) {
+                    lines.add(outcome.format(options.toString()));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(resultPath), StandardCharsets.UTF_8))) {
+            writer.println("# 选项 编号 类型 解出 落子 深度 节点 解出毫秒");
+            for (String line : lines) {
+                writer.println(line);
+            }
+        }
+        System.out.println("结果已写入 " + resultPath);
+    }
+
+    // 一道题的搜索结果
+    private static class Outcome {
+        final TacticalPosition position;
+        final SearchResult result;
+        // 解出所用的纳秒数，没有解出时为-1
+        final long solveNanos;
+
+        Outcome(TacticalPosition position, SearchResult result, long solveNanos) {
+            this.position = position;
+            this.result = result;
+            this.solveNanos = solveNanos;
+        }
+
+        boolean isSolved() {
+            return solveNanos >= 0;
+        }
+
+        // 不含耗时以外的不确定内容；耗时只保留到毫秒
+        String format(String config) {
+            return String.format("%s %s %s %s %d,%d %d %d %s", config.replace(' ', '_'), position.id, position.type,
+                    isSolved() ? "ok" : "FAIL", result.move.x, result.move.y, result.depth, result.nodes,
+                    isSolved() ? String.valueOf(solveNanos / 1_000_000) : "-");
+        }
+    }
+
+    private static Outcome solve(TacticalPosition position, SearchOptions options, long timeMillis) {
+        // 最近一次最佳落子变为正确落子的那一轮的耗时，-1表示当前最佳落子不正确
+        long[] solvedAt = {-1};
+        SearchResult result = AILogic.findBestMoveTimed(position.toBoard(), position.toHistory(), position.getSideToMove(),
+                timeMillis, options, iteration -> {
+                    if (!position.isSolution(iteration.move.x, iteration.move.y)) {
+                        solvedAt[0] = -1;
+                    } else if (solvedAt[0] < 0) {
+                        solvedAt[0] = iteration.elapsedNanos;
+                    }
+                });
+        long solveNanos = -1;
+        if (position.isSolution(result.move.x, result.move.y)) {
+            // 强制落子不经过迭代，也可能最后一轮之后被中断
+            solveNanos = solvedAt[0] >= 0 ? solvedAt[0] : result.elapsedNanos;
+        }
+        return new Outcome(position, result, solveNanos);
+    }
+
+    // 按题目类型输出解出数量和解出时间的分位数
+    private static void printSummary(String config, List<Outcome> outcomes) {
+        System.out.println("选项 " + config + "：");
+        int totalSolved = 0;
+        for (String type : TacticalPosition.TYPES) {
+            List<Long> times = new ArrayList<>();
+            int count = 0;
+            for (Outcome outcome : outcomes) {
+                if (outcome.position.type.equals(type)) {
+                    count++;
+                    if (outcome.isSolved()) {
+                        times.add(outcome.solveNanos);
+                    }
+                }
+            }
+            if (count == 0) {
+                continue;
+            }
+            totalSolved += times.size();
+            times.sort(null);
+            System.out.printf("  %-6s 解出 %3d/%3d  p50 %7.1f ms  p90 %7.1f ms  p99 %7.1f ms  最长 %7.1f ms%n", type,
+                    times.size(), count, percentile(times, 0.50), percentile(times, 0.90), percentile(times, 0.99),
+                    percentile(times, 1.0));
+        }
+        System.out.println("  合计 解出 " + totalSolved + "/" + outcomes.size());
+    }
+
+    // 已排序的纳秒数的分位数，单位毫秒
+    private static double percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, index))) / 1e6;
+    }
+}
@@ -0,0 +1,66 @@
+// 这个类为AI的一步棋分配思考时间：按剩余用时和预计还要走的步数算出常规用时和最长用时
+// 迭代加深每完成一轮就询问是否继续：最佳落子在这一轮变了说明局面不稳定，延长常规用时，但不超过最长用时
+class TimeManager {
+    // 预计还要走的步数的范围，五子棋一局通常不长
+    private static final int MIN_MOVES_TO_GO = 10;
+    private static final int MAX_MOVES_TO_GO = 30;
+    // 给落子、界面刷新等留出的余量
+    private static final long SAFETY_MILLIS = 100;
+    private static final long MIN_MILLIS = 10;
+    // 最佳落子不稳定时常规用时的延长倍数
+    private static final double INSTABILITY_EXTENSION = 1.5;
+
+    private long softNanos;
+    private final long hardNanos;
+
+    public TimeManager(long softMillis, long hardMillis) {
+        this.hardNanos = Math.max(MIN_MILLIS, hardMillis) * 1_000_000L;
+        this.softNanos = Math.min(hardNanos, Math.max(MIN_MILLIS, softMillis) * 1_000_000L);
+    }
+
+    // 根据棋钟为player的这一手分配时间，movesPlayed为已经走过的总手数
+    public static TimeManager forClock(GameClock clock, boolean player, int movesPlayed) {
+        long main = clock.getRemainingMillis(player);
+        long increment = clock.getIncrementMillis();
+        long period = clock.getPeriodMillis();
+        boolean hasByoyomi = clock.getPeriods() > 0;
+
+        long soft;
+        long hard;
+        if (main > 0) {
+            int movesToGo = Math.max(MIN_MOVES_TO_GO, Math.min(MAX_MOVES_TO_GO, MAX_MOVES_TO_GO - movesPlayed / 2));
+            soft = main / movesToGo + increment * 3 / 4;
+            hard = Math.min(soft * 4, main / 4 + increment);
+            if (hasByoyomi) {
+                // 有读秒时基本用时用完也不会立刻输，可以多用一些，但不越过第一个读秒周期
+                soft = Math.max(soft, period / 3);
+                hard = Math.max(hard, Math.min(main + period * 4 / 5, soft * 4));
+            } else {
+                hard = Math.min(hard, main - SAFETY_MILLIS);
+            }
+        } else {
+            // 读秒中每手都要在一个周期内走完
+            soft = period * 2 / 5;
+            hard = period * 4 / 5;
+        }
+        return new TimeManager(soft, hard);
+    }
+
+    // 每完成一轮迭代调用，bestMoveChanged为这一轮的最佳落子是否与上一轮不同
+    // 下一轮通常比已经用掉的时间长好几倍，已用时间超过常规用时的一半就不再开始新的一轮
+    public boolean shouldStartNextIteration(long elapsedNanos, boolean bestMoveChanged) {
+        if (bestMoveChanged) {
+            softNanos = Math.min(hardNanos, (long) (softNanos * INSTABILITY_EXTENSION));
+        }
+        return elapsedNanos < softNanos / 2;
+    }
+
+    public long getSoftMillis() {
+        return softNanos / 1_000_000L;
+    }
+
+    // 最长用时，作为搜索的截止时间
+    public long getHardMillis() {
+        return hardNanos / 1_000_000L;
+    }
+}
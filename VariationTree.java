@@ -0,0 +1,214 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 这个类把对局保存为变化树，用于分析模式。节点的父节点、第一个子节点、下一个兄弟节点和落子都存放在基本类型数组里，
+// 每隔CHECKPOINT_INTERVAL手保存一份棋盘快照，任意节点的局面由最近的祖先快照加上不超过CHECKPOINT_INTERVAL手的重放得到
+class VariationTree {
+    private static final int BOARD_SIZE = 15;
+    // 每隔多少手保存一份棋盘快照
+    public static final int CHECKPOINT_INTERVAL = 16;
+    // 根节点是空棋盘
+    public static final int ROOT = 0;
+    // 表示不存在的节点
+    public static final int NONE = -1;
+
+    // 快照中每个格子的取值
+    private static final byte EMPTY = 0;
+    private static final byte BLACK = 1;
+    private static final byte WHITE = 2;
+
+    private int[] parent;
+    private int[] firstChild;
+    private int[] nextSibling;
+    // 到达该节点的一手，使用Move.encode编码
+    private int[] move;
+    private int[] depth;
+    // 该节点的快照在checkpoints中的下标，没有快照时为NONE
+    private int[] checkpoint;
+    private final List<byte[]> checkpoints = new ArrayList<>();
+    private int size;
+
+    public VariationTree() {
+        this(256);
+    }
+
+    public VariationTree(int capacity) {
+        capacity = Math.max(1, capacity);
+        parent = new int[capacity];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        move = new int[capacity];
+        depth = new int[capacity];
+        checkpoint = new int[capacity];
+        clear();
+    }
+
+    // 清空整棵树，只保留空棋盘的根节点
+    public void clear() {
+        size = 0;
+        checkpoints.clear();
+        newNode(NONE, Move.NONE, 0);
+        checkpoint[ROOT] = checkpoints.size();
+        checkpoints.add(new byte[BOARD_SIZE * BOARD_SIZE]);
+    }
+
+    // 在parentNode下添加一手，已有相同落子的子节点时直接返回该节点，新变化排在已有变化之后
+    public int addChild(int parentNode, int childMove) {
+        int last = NONE;
+        for (int child = firstChild[parentNode]; child != NONE; child = nextSibling[child]) {
+            if (move[child] == childMove) {
+                return child;
+            }
+            last = child;
+        }
+
+        int node = newNode(parentNode, childMove, depth[parentNode] + 1);
+        if (last == NONE) {
+            firstChild[parentNode] = node;
+        } else {
+            nextSibling[last] = node;
+        }
+
+        // 到了快照间隔就保存一份棋盘，由上一份快照重放得到
+        if (depth[node] % CHECKPOINT_INTERVAL == 0) {
+            byte[] snapshot = new byte[BOARD_SIZE * BOARD_SIZE];
+            restoreCells(node, snapshot);
+            checkpoint[node] = checkpoints.size();
+            checkpoints.add(snapshot);
+        }
+        return node;
+    }
+
+    private int newNode(int parentNode, int nodeMove, int nodeDepth) {
+        if (size == parent.length) {
+            int capacity = parent.length * 2;
+            parent = Arrays.copyOf(parent, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            move = Arrays.copyOf(move, capacity);
+            depth = Arrays.copyOf(depth, capacity);
+            checkpoint = Arrays.copyOf(checkpoint, capacity);
+        }
+        int node = size++;
+        parent[node] = parentNode;
+        firstChild[node] = NONE;
+        nextSibling[node] = NONE;
+        move[node] = nodeMove;
+        depth[node] = nodeDepth;
+        checkpoint[node] = NONE;
+        return node;
+    }
+
+    // 把node对应的局面写入board，从最近的祖先快照开始重放
+    public void restore(int node, Boolean[][] board) {
+        byte[] cells = new byte[BOARD_SIZE * BOARD_SIZE];
+        restoreCells(node, cells);
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                byte cell = cells[i * BOARD_SIZE + j];
+                board[i][j] = cell == EMPTY ? null : cell == BLACK;
+            }
+        }
+    }
+
+    private void restoreCells(int node, byte[] cells) {
+        // 向上找到最近的快照，途中的落子最多CHECKPOINT_INTERVAL-1手
+        int ancestor = node;
+        while (checkpoint[ancestor] == NONE) {
+            ancestor = parent[ancestor];
+        }
+        System.arraycopy(checkpoints.get(checkpoint[ancestor]), 0, cells, 0, cells.length);
+        for (int n = node; n != ancestor; n = parent[n]) {
+            // 不同格子的落子互不影响，重放顺序无关紧要
+            cells[move[n] & 0xFF] = Move.getPlayer(move[n]) ? BLACK : WHITE;
+        }
+    }
+
+    // 按落子顺序把根节点到node路径上的所有落子压入history
+    public void collectPath(int node, MoveStack history) {
+        int[] path = new int[depth[node]];
+        for (int n = node; n != ROOT; n = parent[n]) {
+            path[depth[n] - 1] = move[n];
+        }
+        for (int m : path) {
+            history.push(m);
+        }
+    }
+
+    // 两个节点最近的公共祖先
+    public int commonAncestor(int a, int b) {
+        while (depth[a] > depth[b]) {
+            a = parent[a];
+        }
+        while (depth[b] > depth[a]) {
+            b = parent[b];
+        }
+        while (a != b) {
+            a = parent[a];
+            b = parent[b];
+        }
+        return a;
+    }
+
+    // 沿着每一层的第一个变化走到底
+    public int mainLineEnd(int node) {
+        while (firstChild[node] != NONE) {
+            node = firstChild[node];
+        }
+        return node;
+    }
+
+    public int getChildCount(int node) {
+        int count = 0;
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+            count++;
+        }
+        return count;
+    }
+
+    // node在兄弟节点中的序号，从0开始
+    public int getSiblingIndex(int node) {
+        if (node == ROOT) {
+            return 0;
+        }
+        int index = 0;
+        for (int child = firstChild[parent[node]]; child != node; child = nextSibling[child]) {
+            index++;
+        }
+        return index;
+    }
+
+    // parentNode的第index个子节点，不存在时返回NONE
+    public int getChild(int parentNode, int index) {
+        int child = firstChild[parentNode];
+        for (int i = 0; i < index && child != NONE; i++) {
+            child = nextSibling[child];
+        }
+        return child;
+    }
+
+    public int getParent(int node) {
+        return parent[node];
+    }
+
+    public int getFirstChild(int node) {
+        return firstChild[node];
+    }
+
+    public int getNextSibling(int node) {
+        return nextSibling[node];
+    }
+
+    public int getMove(int node) {
+        return move[node];
+    }
+
+    public int getDepth(int node) {
+        return depth[node];
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,65 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// 这个类用jdk.incubator.vector实现神经网络评估的底层运算
+// 编译和运行都需要--add-modules jdk.incubator.vector，运行时缺少该模块时NnueEvaluator会改用ScalarNnueKernel
+class VectorNnueKernel implements NnueKernel {
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    // 点积时把int16扩展为int32，短向量的长度与int向量保持一致
+    private static final VectorSpecies<Short> DOT_SHORTS = ShortVector.SPECIES_128;
+    private static final VectorSpecies<Integer> DOT_INTS = IntVector.SPECIES_256;
+
+    @Override
+    public void add(short[] acc, short[] weights, int offset, int size) {
+        int i = 0;
+        int bound = SHORTS.loopBound(size);
+        for (; i < bound; i += SHORTS.length()) {
+            ShortVector a = ShortVector.fromArray(SHORTS, acc, i);
+            ShortVector w = ShortVector.fromArray(SHORTS, weights, offset + i);
+            a.add(w).intoArray(acc, i);
+        }
+        for (; i < size; i++) {
+            acc[i] = (short) (acc[i] + weights[offset + i]);
+        }
+    }
+
+    @Override
+    public void subtract(short[] acc, short[] weights, int offset, int size) {
+        int i = 0;
+        int bound = SHORTS.loopBound(size);
+        for (; i < bound; i += SHORTS.length()) {
+            ShortVector a = ShortVector.fromArray(SHORTS, acc, i);
+            ShortVector w = ShortVector.fromArray(SHORTS, weights, offset + i);
+            a.sub(w).intoArray(acc, i);
+        }
+        for (; i < size; i++) {
+            acc[i] = (short) (acc[i] - weights[offset + i]);
+        }
+    }
+
+    @Override
+    public int clippedDot(short[] acc, short[] weights, int size, int clip) {
+        IntVector sum = IntVector.zero(DOT_INTS);
+        int i = 0;
+        int bound = DOT_SHORTS.loopBound(size);
+        for (; i < bound; i += DOT_SHORTS.length()) {
+            ShortVector a = ShortVector.fromArray(DOT_SHORTS, acc, i).max((short) 0).min((short) clip);
+            ShortVector w = ShortVector.fromArray(DOT_SHORTS, weights, i);
+            IntVector ai = (IntVector) a.convertShape(VectorOperators.S2I, DOT_INTS, 0);
+            IntVector wi = (IntVector) w.convertShape(VectorOperators.S2I, DOT_INTS, 0);
+            sum = sum.add(ai.mul(wi));
+        }
+        int result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < size; i++) {
+            result += Math.max(0, Math.min(clip, acc[i])) * weights[i];
+        }
+        return result;
+    }
+
+    @Override
+    public String getName() {
+        return "Vector API (" + SHORTS.length() + "×int16)";
+    }
+}
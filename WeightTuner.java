@@ -0,0 +1,273 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// 这个类是离线的评估权重调优工具，用Texel方法拟合AILogic中各棋型的分值
+// 从棋谱文件（GameRecord格式）中逐局读取，复盘得到每个局面的棋型统计和对局结果，
+// 以sigmoid(K * 评估值)预测白棋得分，用梯度下降最小化平方误差
+// 棋谱按块流式读取，每块内的梯度用fork-join并行计算后归并，内存占用与棋谱总量无关
+// 用法：java WeightTuner [-epochs 轮数] [-chunk 每块局数] [-lr 学习率] [-k 缩放系数] [-out 输出文件] <棋谱文件>...
+class WeightTuner {
+    private static final int BOARD_SIZE = 15;
+    // 跳过开局的若干手，开局局面与胜负关系不大
+    private static final int SKIP_OPENING = 4;
+    // 每个fork-join子任务直接处理的最大局数
+    private static final int TASK_GAMES = 32;
+    // 梯度结果数组中的损失和局面数位置
+    private static final int LOSS = EvalWeights.COUNT;
+    private static final int POSITIONS = EvalWeights.COUNT + 1;
+
+    // Adam优化器参数
+    private static final double BETA1 = 0.9;
+    private static final double BETA2 = 0.999;
+    private static final double EPSILON = 1e-8;
+
+    private final List<File> files = new ArrayList<>();
+    private int epochs = 20;
+    private int chunkSize = 4096;
+    private double learningRate = 0.05;
+    private double scale = 0;
+    private File output = new File("eval_weights.txt");
+
+    // 在对数空间中优化，保证分值为正且不同量级的分值步长一致
+    private final double[] logWeights = new double[EvalWeights.COUNT];
+    private final double[] moment1 = new double[EvalWeights.COUNT];
+    private final double[] moment2 = new double[EvalWeights.COUNT];
+    private int step = 0;
+
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    public static void main(String[] args) throws IOException {
+        WeightTuner tuner = new WeightTuner();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-epochs":
+                    tuner.epochs = Integer.parseInt(args[++i]);
+                    break;
+                case "-chunk":
+                    tuner.chunkSize = Integer.parseInt(args[++i]);
+                    break;
+                case "-lr":
+                    tuner.learningRate = Double.parseDouble(args[++i]);
+                    break;
+                case "-k":
+                    tuner.scale = Double.parseDouble(args[++i]);
+                    break;
+                case "-out":
+                    tuner.output = new File(args[++i]);
+                    break;
+                default:
+                    tuner.files.add(new File(args[i]));
+            }
+        }
+        if (tuner.files.isEmpty()) {
+            System.out.println("用法: java WeightTuner [-epochs 轮数] [-chunk 每块局数] [-lr 学习率] [-k 缩放系数] [-out 输出文件] <棋谱文件>...");
+            return;
+        }
+        tuner.run();
+    }
+
+    private void run() throws IOException {
+        int[] initial = AILogic.getEvalWeights().toArray();
+        for (int i = 0; i < EvalWeights.COUNT; i++) {
+            logWeights[i] = Math.log(initial[i]);
+        }
+        System.out.println("初始权重: " + AILogic.getEvalWeights() + "，并行度: " + pool.getParallelism());
+
+        if (scale <= 0) {
+            scale = fitScale();
+        }
+        System.out.printf("缩放系数K = %.3g%n", scale);
+
+        for (int epoch = 1; epoch <= epochs; epoch++) {
+            long start = System.nanoTime();
+            double lossSum = 0;
+            long positions = 0;
+
+            try (ChunkReader reader = new ChunkReader()) {
+                List<GameRecord> chunk;
+                while (!(chunk = reader.next()).isEmpty()) {
+                    double[] result = pool.invoke(new GradientTask(chunk, 0, chunk.size(), currentWeights(), scale));
+                    lossSum += result[LOSS];
+                    positions += (long) result[POSITIONS];
+                    if (result[POSITIONS] > 0) {
+                        update(result);
+                    }
+                }
+            }
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("第%d轮: 误差 %.6f, %d个局面, 每秒%.0f个局面, %s%n", epoch,
+                    positions == 0 ? 0 : lossSum / positions, positions, positions / seconds, toWeights());
+        }
+
+        toWeights().save(output, String.format("由WeightTuner生成，K=%.3g", scale));
+        System.out.println("权重已写入: " + output.getPath());
+    }
+
+    // 在第一块棋谱上按对数网格搜索使误差最小的缩放系数
+    private double fitScale() throws IOException {
+        List<GameRecord> chunk;
+        try (ChunkReader reader = new ChunkReader()) {
+            chunk = reader.next();
+        }
+        if (chunk.isEmpty()) {
+            throw new IllegalArgumentException("棋谱中没有结果已知的对局");
+        }
+
+        double[] weights = currentWeights();
+        double best = 1e-4;
+        double bestLoss = Double.MAX_VALUE;
+        for (double exponent = -7; exponent <= -1; exponent += 0.25) {
+            double k = Math.pow(10, exponent);
+            double[] result = pool.invoke(new GradientTask(chunk, 0, chunk.size(), weights, k));
+            double loss = result[LOSS] / Math.max(1, result[POSITIONS]);
+            if (loss < bestLoss) {
+                bestLoss = loss;
+                best = k;
+            }
+        }
+        return best;
+    }
+
+    // 用一块棋谱的平均梯度做一次Adam更新
+    private void update(double[] result) {
+        step++;
+        double[] weights = currentWeights();
+        for (int i = 0; i < EvalWeights.COUNT; i++) {
+            // 对数空间的梯度：dL/dlog(w) = dL/dw * w
+            double gradient = result[i] / result[POSITIONS] * weights[i];
+            moment1[i] = BETA1 * moment1[i] + (1 - BETA1) * gradient;
+            moment2[i] = BETA2 * moment2[i] + (1 - BETA2) * gradient * gradient;
+            double m = moment1[i] / (1 - Math.pow(BETA1, step));
+            double v = moment2[i] / (1 - Math.pow(BETA2, step));
+            logWeights[i] -= learningRate * m / (Math.sqrt(v) + EPSILON);
+        }
+    }
+
+    private double[] currentWeights() {
+        double[] weights = new double[EvalWeights.COUNT];
+        for (int i = 0; i < EvalWeights.COUNT; i++) {
+            weights[i] = Math.exp(logWeights[i]);
+        }
+        return weights;
+    }
+
+    private EvalWeights toWeights() {
+        int[] values = new int[EvalWeights.COUNT];
+        for (int i = 0; i < EvalWeights.COUNT; i++) {
+            values[i] = (int) Math.max(1, Math.min(Integer.MAX_VALUE / 1000, Math.round(Math.exp(logWeights[i]))));
+        }
+        return new EvalWeights(values);
+    }
+
+    // 依次读取所有棋谱文件，每次返回最多chunkSize局结果已知的对局
+    private class ChunkReader implements AutoCloseable {
+        private int fileIndex = 0;
+        private BufferedReader reader;
+
+        List<GameRecord> next() throws IOException {
+            List<GameRecord> chunk = new ArrayList<>(chunkSize);
+            while (chunk.size() < chunkSize) {
+                if (reader == null) {
+                    if (fileIndex >= files.size()) {
+                        break;
+                    }
+                    reader = new BufferedReader(new FileReader(files.get(fileIndex++)));
+                }
+                GameRecord record = GameRecord.readNext(reader);
+                if (record == null) {
+                    reader.close();
+                    reader = null;
+                } else if (record.getResult() != GameRecord.RESULT_UNKNOWN) {
+                    chunk.add(record);
+                }
+            }
+            return chunk;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (reader != null) {
+                reader.close();
+            }
+        }
+    }
+
+    // 计算一段对局的梯度之和、误差之和与局面数，超过TASK_GAMES局时一分为二并行计算
+    // 任务只在线程池中使用，不会被序列化
+    @SuppressWarnings("serial")
+    private static class GradientTask extends RecursiveTask<double[]> {
+        private final List<GameRecord> games;
+        private final int from;
+        private final int to;
+        private final double[] weights;
+        private final double scale;
+
+        GradientTask(List<GameRecord> games, int from, int to, double[] weights, double scale) {
+            this.games = games;
+            this.from = from;
+            this.to = to;
+            this.weights = weights;
+            this.scale = scale;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from > TASK_GAMES) {
+                int middle = (from + to) >>> 1;
+                GradientTask left = new GradientTask(games, from, middle, weights, scale);
+                left.fork();
+                double[] right = new GradientTask(games, middle, to, weights, scale).compute();
+                double[] result = left.join();
+                for (int i = 0; i < result.length; i++) {
+                    result[i] += right[i];
+                }
+                return result;
+            }
+
+            double[] result = new double[EvalWeights.COUNT + 2];
+            int[] counts = new int[EvalWeights.COUNT];
+            for (int g = from; g < to; g++) {
+                accumulate(games.get(g), counts, result);
+            }
+            return result;
+        }
+
+        // 复盘一局，累加除终局外每个局面的梯度
+        private void accumulate(GameRecord record, int[] counts, double[] result) {
+            double target = record.getResult() == GameRecord.RESULT_WHITE ? 1.0
+                    : record.getResult() == GameRecord.RESULT_BLACK ? 0.0 : 0.5;
+            Boolean[][] board = new Boolean[BOARD_SIZE][BOARD_SIZE];
+
+            for (int i = 0; i < record.size() - 1; i++) {
+                board[record.getX(i)][record.getY(i)] = record.isBlack(i);
+                if (i + 1 < SKIP_OPENING) {
+                    continue;
+                }
+
+                Arrays.fill(counts, 0);
+                AILogic.countPatterns(board, counts);
+                double eval = 0;
+                for (int p = 0; p < EvalWeights.COUNT; p++) {
+                    eval += weights[p] * counts[p];
+                }
+
+                double predicted = 1.0 / (1.0 + Math.exp(-scale * eval));
+                double error = target - predicted;
+                double factor = -2.0 * error * predicted * (1.0 - predicted) * scale;
+                for (int p = 0; p < EvalWeights.COUNT; p++) {
+                    result[p] += factor * counts[p];
+                }
+                result[LOSS] += error * error;
+                result[POSITIONS]++;
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 这个类增量维护每颗棋子在四个方向上所在连珠的长度以及棋盘上的棋子总数
+// 落子和撤销时只更新经过该点的连珠，判断胜负和平局都不需要扫描棋盘，也不分配内存
+class WinDetector {
+    private static final int BOARD_SIZE = 15;
+    private static final int CELL_COUNT = BOARD_SIZE * BOARD_SIZE;
+    private static final byte EMPTY = 0;
+    private static final byte BLACK = 1;
+    private static final byte WHITE = 2;
+
+    // 方向：水平、垂直、左上到右下、右上到左下
+    private static final int[] DX = {1, 0, 1, 1};
+    private static final int[] DY = {0, 1, 1, -1};
+
+    // 每个格子的棋子颜色
+    private final byte[] stones = new byte[CELL_COUNT];
+    // runs[d][cell]：该格子所在同色连珠在方向d上的长度，空位为0
+    private final byte[][] runs = new byte[4][CELL_COUNT];
+    // 棋盘上的棋子总数
+    private int stoneCount = 0;
+    // 黑棋、白棋是否必须恰好五子才算获胜
+    private boolean blackExactFive = false;
+    private boolean whiteExactFive = false;
+
+    public WinDetector(GameRule rule) {
+        setRule(rule);
+    }
+
+    // 从已有棋盘构建
+    public WinDetector(Boolean[][] board, GameRule rule) {
+        this(rule);
+        load(board);
+    }
+
+    public void setRule(GameRule rule) {
+        blackExactFive = rule.isExactFiveRequired(true);
+        whiteExactFive = rule.isExactFiveRequired(false);
+    }
+
+    // 清空所有记录
+    public void clear() {
+        Arrays.fill(stones, EMPTY);
+        for (byte[] run : runs) {
+            Arrays.fill(run, (byte) 0);
+        }
+        stoneCount = 0;
+    }
+
+    // 清空后按棋盘重新构建，用于读取存档
+    public void load(Boolean[][] board) {
+        clear();
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                if (board[i][j] != null) {
+                    place(i, j, board[i][j]);
+                }
+            }
+        }
+    }
+
+    // 落子并返回这一手是否获胜
+    public boolean place(int x, int y, boolean player) {
+        int cell = x * BOARD_SIZE + y;
+        byte color = player ? BLACK : WHITE;
+        stones[cell] = color;
+        stoneCount++;
+
+        boolean win = false;
+        for (int d = 0; d < 4; d++) {
+            byte[] run = runs[d];
+            // 落子前该点为空，相邻同色棋子的连珠只会延伸到一侧，长度就是该侧的棋子数
+            int back = sameColorRun(x - DX[d], y - DY[d], color, run);
+            int forward = sameColorRun(x + DX[d], y + DY[d], color, run);
+            int total = back + 1 + forward;
+
+            for (int i = -back; i <= forward; i++) {
+                run[(x + DX[d] * i) * BOARD_SIZE + (y + DY[d] * i)] = (byte) total;
+            }
+
+            if (isWinningLength(total, player)) {
+                win = true;
+            }
+        }
+
+        return win;
+    }
+
+    // 撤销(x,y)处的棋子
+    public void undo(int x, int y) {
+        int cell = x * BOARD_SIZE + y;
+        byte color = stones[cell];
+        stones[cell] = EMPTY;
+        stoneCount--;
+
+        for (int d = 0; d < 4; d++) {
+            byte[] run = runs[d];
+            int back = 0;
+            while (isColor(x - DX[d] * (back + 1), y - DY[d] * (back + 1), color)) {
+                back++;
+            }
+            int forward = run[cell] - back - 1;
+
+            // 原来的连珠被拆成前后两段
+            for (int i = 1; i <= back; i++) {
+                run[(x - DX[d] * i) * BOARD_SIZE + (y - DY[d] * i)] = (byte) back;
+            }
+            for (int i = 1; i <= forward; i++) {
+                run[(x + DX[d] * i) * BOARD_SIZE + (y + DY[d] * i)] = (byte) forward;
+            }
+            run[cell] = 0;
+        }
+    }
+
+    // (x,y)处的棋子是否位于获胜的连珠上
+    public boolean isWinningCell(int x, int y) {
+        return winningDirection(x, y) >= 0;
+    }
+
+    // 棋盘是否已满
+    public boolean isFull() {
+        return stoneCount == CELL_COUNT;
+    }
+
+    public int getStoneCount() {
+        return stoneCount;
+    }
+
+    // 生成经过(x,y)的获胜连珠，只在对局结束时调用
+    public List<Move> collectWinningLine(int x, int y) {
+        List<Move> line = new ArrayList<>();
+        int d = winningDirection(x, y);
+        if (d < 0) {
+            return line;
+        }
+
+        byte color = stones[x * BOARD_SIZE + y];
+        boolean player = color == BLACK;
+        line.add(new Move(x, y, player));
+        for (int i = 1; isColor(x + DX[d] * i, y + DY[d] * i, color); i++) {
+            line.add(new Move(x + DX[d] * i, y + DY[d] * i, player));
+        }
+        for (int i = 1; isColor(x - DX[d] * i, y - DY[d] * i, color); i++) {
+            line.add(new Move(x - DX[d] * i, y - DY[d] * i, player));
+        }
+        return line;
+    }
+
+    private int winningDirection(int x, int y) {
+        int cell = x * BOARD_SIZE + y;
+        if (stones[cell] == EMPTY) {
+            return -1;
+        }
+        boolean player = stones[cell] == BLACK;
+        for (int d = 0; d < 4; d++) {
+            if (isWinningLength(runs[d][cell], player)) {
+                return d;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isWinningLength(int length, boolean player) {
+        boolean exactFive = player ? blackExactFive : whiteExactFive;
+        return exactFive ? length == 5 : length >= 5;
+    }
+
+    // 相邻格子为同色时返回其连珠长度，否则返回0
+    private int sameColorRun(int x, int y, byte color, byte[] run) {
+        return isColor(x, y, color) ? run[x * BOARD_SIZE + y] : 0;
+    }
+
+    private boolean isColor(int x, int y, byte color) {
+        return x >= 0 && x < BOARD_SIZE && y >= 0 && y < BOARD_SIZE && stones[x * BOARD_SIZE + y] == color;
+    }
+}
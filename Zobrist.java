@@ -0,0 +1,47 @@
+import java.util.SplittableRandom;
+
+// 这个类提供局面的Zobrist哈希：每个格子的黑子和白子各对应一个随机数，局面哈希是所有棋子对应随机数的异或，
+// 落子和撤销都只需异或一次。随机数用固定种子生成，同一局面在不同次运行中的哈希相同
+class Zobrist {
+    private static final int BOARD_SIZE = 15;
+    private static final long[] BLACK_KEYS = new long[BOARD_SIZE * BOARD_SIZE];
+    private static final long[] WHITE_KEYS = new long[BOARD_SIZE * BOARD_SIZE];
+    // 轮到黑棋落子时额外异或的随机数，区分棋子相同但轮次不同的局面
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EEDL);
+        for (int i = 0; i < BLACK_KEYS.length; i++) {
+            BLACK_KEYS[i] = random.nextLong();
+            WHITE_KEYS[i] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    // 棋子对应的随机数，落子和撤销时与局面哈希异或
+    public static long key(int x, int y, boolean player) {
+        int cell = x * BOARD_SIZE + y;
+        return player ? BLACK_KEYS[cell] : WHITE_KEYS[cell];
+    }
+
+    // 从头计算整个棋盘的哈希
+    public static long hash(Boolean[][] board) {
+        long hash = 0;
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                if (board[i][j] != null) {
+                    hash ^= key(i, j, board[i][j]);
+                }
+            }
+        }
+        return hash;
+    }
+
+    // 在局面哈希中加入轮到哪一方落子
+    public static long withSide(long hash, boolean player) {
+        return player ? hash ^ BLACK_TO_MOVE : hash;
+    }
+}